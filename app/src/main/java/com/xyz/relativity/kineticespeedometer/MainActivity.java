@@ -3,22 +3,20 @@ package com.xyz.relativity.kineticespeedometer;
 import android.Manifest;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Color;
-import android.hardware.Sensor;
-import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
-import android.location.Location;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.DisplayMetrics;
+import android.util.Log;
 import android.util.TypedValue;
+import android.view.View;
+import android.view.ViewStub;
 import android.view.Window;
 import android.view.WindowManager;
 import android.widget.TextView;
@@ -26,6 +24,7 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
+import androidx.lifecycle.ViewModelProvider;
 
 import com.github.mikephil.charting.charts.LineChart;
 import com.github.mikephil.charting.components.Legend;
@@ -36,36 +35,44 @@ import com.github.mikephil.charting.data.LineData;
 import com.github.mikephil.charting.data.LineDataSet;
 import com.github.mikephil.charting.formatter.ValueFormatter;
 import com.github.mikephil.charting.interfaces.datasets.ILineDataSet;
-import com.xyz.relativity.kineticespeedometer.sensors.DeviceLocationManager;
-import com.xyz.relativity.kineticespeedometer.sensors.ILocationListener;
-
-import java.math.RoundingMode;
-import java.text.NumberFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.HashMap;
+import com.xyz.relativity.kineticespeedometer.chart.HistoryChartAdapter;
+import com.xyz.relativity.kineticespeedometer.chart.HistoryLineChart;
+import com.xyz.relativity.kineticespeedometer.chart.NumberAxisFormatter;
+import com.xyz.relativity.kineticespeedometer.chart.RingLineDataSet;
+import com.xyz.relativity.kineticespeedometer.chart.StripChartView;
+import com.xyz.relativity.kineticespeedometer.chart.TimeAxisFormatter;
+import com.xyz.relativity.kineticespeedometer.core.FixedPointFormatter;
+import com.xyz.relativity.kineticespeedometer.core.FusionState;
+import com.xyz.relativity.kineticespeedometer.core.HistoryPyramid;
+import com.xyz.relativity.kineticespeedometer.core.HistorySnapshot;
+import com.xyz.relativity.kineticespeedometer.core.MotionState;
+import com.xyz.relativity.kineticespeedometer.sensors.FusionSensorPipeline;
+
+import java.text.DecimalFormatSymbols;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import de.nitri.gauge.Gauge;
-import de.nitri.gauge.IGaugeNick;
+import de.nitri.gauge.GaugeScale;
+import de.nitri.gauge.GaugeTextureView;
+import de.nitri.gauge.NeedleAnimator;
+import de.nitri.gauge.SecondaryScale;
+import de.nitri.gauge.ValueTransform;
 
-public class MainActivity extends AppCompatActivity implements ILocationListener, SensorEventListener {
-	private DeviceLocationManager locationManager;
+public class MainActivity extends AppCompatActivity {
+	private static final String TAG = MainActivity.class.getSimpleName();
 
-	private static final String SAVED_GRAPH_DATA = "GRAPH_DATA";
+	private FusionSensorPipeline sensorPipeline;
+
+	private static final String SAVED_HISTORY = "HISTORY";
 	private static final String SAVED_START_TIME = "START_TIME";
-	private static final String SAVED_PREV_SPEED = "PREV_SPEED";
-	private static final String SAVED_PREV_TIME = "PREV_TIME";
-	private static final String SAVED_TARGET_SPEED = "TARGET_SPEED";
-	private static final String SAVED_CURRENT_SPEED = "CURRENT_SPEED";
-	private static final String SAVED_SPEED_STEP = "SPEED_STEP";
-	private static final String SAVED_DELTA_LEFT = "DELTA_LEFT";
-	private static final String SAVED_ODOMETER = "ODOMETER";
-
-	private static final String ODOMETER_FORMAT = "%011.2f km";
+
+	// %011.2f km
+	private static final int ODOMETER_WIDTH = 11;
+	private static final int ODOMETER_DECIMALS = 2;
+	private static final String ODOMETER_UNIT = " km";
+	private static final int GAUGE_TEXT_DECIMALS = 1;
 	private static final float MASS_KG = 1;
 	private static final float ONE_HALF_MASS_KG = MASS_KG * 0.5f;
 	private static final float GAUGE_MAX_SPEED_KH = 200;
@@ -75,62 +82,60 @@ public class MainActivity extends AppCompatActivity implements ILocationListener
 	private static final int MAJOR_NICK_FOR_SPEED = 20;
 	private static final int MINOR_NICK_FOR_SPEED = 10;
 
-	private LineChart chart;
+	// one of the two, depending on the settings
+	private HistoryLineChart chart;
+	private HistoryChartAdapter chartAdapter;
+	private StripChartView stripChart;
+	private SpeedometerViewModel model;
+	private HistoryPyramid history;
+	private final float[] historySample = new float[LineGraphs.values().length];
 	private TextView odometerView;
+	// reused every tick instead of String.format
+	private FixedPointFormatter odometerText;
+	private FixedPointFormatter speedText;
+	private FixedPointFormatter energyText;
+	private final TimeAxisFormatter timeAxisFormatter = new TimeAxisFormatter();
 
-	long startTime = System.currentTimeMillis();
-	float prevSpeed = 0;
-	float prevTime = 0;
-	float targetSpeedMps = 0;
-	float currentSpeedMps = targetSpeedMps;
-	float speedStep = 0;
-	float deltaLeft = 0;
-
+	// one of the two, depending on the settings
 	private Gauge gaugeView;
+	private GaugeTextureView gaugeTextureView;
 	private boolean isRunning = false;
 	private double odometerMeters;
-	private SharedPreferences settings;
-
-	// --- State Variables ---
-	private float fusedSpeedMps = 0.0f;
-	private long lastSensorTimestampNs = 0;
-	private boolean hasFirstGpsFix = false;
-
-	// --- Rotation and Orientation Matrices ---
-	private final float[] rotationMatrix = new float[9];
-	private final float[] localAcceleration = new float[3];
-	private final float[] worldAcceleration = new float[3];
-
-	private float gpsDirectionX = 0.0f;
-	private float gpsDirectionY = 0.0f;
-	private boolean hasMovementDirection = false;
-
-	private static final float FILTER_TIME_CONSTANT_SEC = 0.20f;
-	private long lastGpsTimestampNs = 0;
 
-	private static final float ACCEL_NOISE_DEADZONE = 0.10f;
-	private static final float ACCEL_SMOOTHING_ALPHA = 0.1f;
-
-	private float smoothedAcceleration = 0.01f;
+	private final FusionState fusionState = new FusionState();
 
 	// --- UI Decoupling Handler and Interval ---
 	private static final int UI_UPDATE_INTERVAL_MS = 100; // 10Hz rendering rate
-	private long lastUiUpdateTimeMs = 0;
 
 	// --- Tuning Constants ---
 	private static final LineDataSet.Mode GRAPH_DATA_SET_DISPLAY_MODE = LineDataSet.Mode.LINEAR;
-	private static final int GPS_UPDATE_INTERVAL_MILLISECONDS = 250;
-	private static final int GRAPH_DATA_WINDOW_SECONDS = 4 * 60; // 4-minute rolling window
+	private static final int GRAPH_DATA_WINDOW_SECONDS = 4 * 60; // 4-minute live window
+	private static final int GRAPH_MIN_VISIBLE_SECONDS = 10;
 	private static final int GRAPH_MAX_SAMPLES_PER_SECOND = 1000 / UI_UPDATE_INTERVAL_MS; // samples per second (10)
 	private static final int GRAPH_MAX_SAMPLES = GRAPH_DATA_WINDOW_SECONDS * GRAPH_MAX_SAMPLES_PER_SECOND;
+	// every history level holds GRAPH_MAX_SAMPLES buckets of 4^level samples, the last one reaches back weeks
+	private static final int GRAPH_HISTORY_LEVELS = 8;
 
 	private final Handler uiHandler = new Handler(Looper.getMainLooper());
 	private final Runnable uiRefreshRunnable = new Runnable() {
 		@Override
 		public void run() {
 			if (isRunning) {
-				processPeriodicUiUpdate(fusedSpeedMps, smoothedAcceleration);
-				uiHandler.postDelayed(this, UI_UPDATE_INTERVAL_MS);
+				sensorPipeline.readState(fusionState);
+				odometerMeters = fusionState.distanceMeters;
+				processPeriodicUiUpdate(fusionState.speedMps, fusionState.accelerationMps2);
+				uiHandler.postDelayed(this, sensorPipeline.getMotionState().uiIntervalMs);
+			}
+		}
+	};
+
+	private final Runnable uiRescheduleRunnable = new Runnable() {
+		@Override
+		public void run() {
+			if (isRunning) {
+				// render at the new rate right away instead of after the old, possibly long, delay
+				uiHandler.removeCallbacks(uiRefreshRunnable);
+				uiHandler.post(uiRefreshRunnable);
 			}
 		}
 	};
@@ -167,51 +172,25 @@ public class MainActivity extends AppCompatActivity implements ILocationListener
 	@Override
 	public void onSaveInstanceState(@NonNull Bundle savedInstanceState){
 		super.onSaveInstanceState(savedInstanceState);
-		savedInstanceState.putLong(SAVED_START_TIME, startTime);
-		savedInstanceState.putFloat(SAVED_PREV_SPEED, prevSpeed);
-		savedInstanceState.putFloat(SAVED_PREV_TIME, prevTime);
-		savedInstanceState.putFloat(SAVED_TARGET_SPEED, targetSpeedMps);
-		savedInstanceState.putFloat(SAVED_CURRENT_SPEED, currentSpeedMps);
-		savedInstanceState.putFloat(SAVED_SPEED_STEP, speedStep);
-		savedInstanceState.putFloat(SAVED_DELTA_LEFT, deltaLeft);
-		savedInstanceState.putDouble(SAVED_ODOMETER, odometerMeters);
-
-		for (LineGraphs graph: LineGraphs.values()) {
-			ILineDataSet dataSet = chart.getData().getDataSets().get(graph.ordinal());
-			savedInstanceState.putString(SAVED_GRAPH_DATA + "_" + graph.name(), dataSet.toString());
-		}
+		savedInstanceState.putLong(SAVED_START_TIME, model.getStartTime());
+		savedInstanceState.putByteArray(SAVED_HISTORY, HistorySnapshot.write(history));
 	}
 
 	@Override
 	public void onRestoreInstanceState(@NonNull Bundle savedInstanceState) {
 		super.onRestoreInstanceState(savedInstanceState);
-		startTime = savedInstanceState.getLong(SAVED_START_TIME);
-		prevSpeed = savedInstanceState.getFloat(SAVED_PREV_SPEED);
-		prevTime = savedInstanceState.getFloat(SAVED_PREV_TIME);
-		targetSpeedMps = savedInstanceState.getFloat(SAVED_TARGET_SPEED);
-		currentSpeedMps = savedInstanceState.getFloat(SAVED_CURRENT_SPEED);
-		speedStep = savedInstanceState.getFloat(SAVED_SPEED_STEP);
-		deltaLeft = savedInstanceState.getFloat(SAVED_DELTA_LEFT);
-		odometerMeters = savedInstanceState.getDouble(SAVED_ODOMETER);
-
-		String[] speedSplit = savedInstanceState.getString(SAVED_GRAPH_DATA + "_" + LineGraphs.SPEED.name()).split("Entry,");
-		String[] energySplit = savedInstanceState.getString(SAVED_GRAPH_DATA + "_" + LineGraphs.ENERGY.name()).split("Entry,");
-		String[] accelerationSplit = savedInstanceState.getString(SAVED_GRAPH_DATA + "_" + LineGraphs.ACCELERATION.name()).split("Entry,");
-
-		for (int i = 1; i < speedSplit.length; ++i) {
-			updateUi(Long.parseLong(speedSplit[i].trim().split(" ")[1]),
-					Float.parseFloat(speedSplit[i].trim().split(" ")[3]),
-					Float.parseFloat(energySplit[i].trim().split(" ")[3]),
-					Float.parseFloat(accelerationSplit[i].trim().split(" ")[3])
-			);
+		if (history.getSampleCount() != 0) {
+			// configuration change, the view model kept the live history
+			return;
 		}
-	}
 
-	@Override
-	protected void onStart() {
-		super.onStart();
-		if (settings.contains("odometer")) {
-			odometerMeters = settings.getFloat("odometer", 0f);
+		// the process was killed: one pass over the raw samples, the chart is refreshed once on resume
+		model.setStartTime(savedInstanceState.getLong(SAVED_START_TIME, model.getStartTime()));
+		timeAxisFormatter.setOriginMillis(model.getStartTime());
+		if (!HistorySnapshot.read(savedInstanceState.getByteArray(SAVED_HISTORY), history)) {
+			Log.w(TAG, "Chart history snapshot not restored");
+		} else if (stripChart != null) {
+			stripChart.loadFrom(history);
 		}
 	}
 
@@ -219,14 +198,16 @@ public class MainActivity extends AppCompatActivity implements ILocationListener
 	protected void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 
-		SensorManager sm = (SensorManager) getSystemService(SENSOR_SERVICE);
-		Sensor accel = sm.getDefaultSensor(Sensor.TYPE_LINEAR_ACCELERATION);
-		Sensor rotation = sm.getDefaultSensor(Sensor.TYPE_ROTATION_VECTOR);
-
-		sm.registerListener(this, accel, SensorManager.SENSOR_DELAY_GAME);
-		sm.registerListener(this, rotation, SensorManager.SENSOR_DELAY_GAME);
-
-		settings = getSharedPreferences("configs", 0);
+		// the pipeline and the history outlive this activity across configuration changes
+		model = new ViewModelProvider(this).get(SpeedometerViewModel.class);
+		sensorPipeline = model.getSensorPipeline();
+		history = model.getHistory(LineGraphs.values().length, GRAPH_MAX_SAMPLES, GRAPH_HISTORY_LEVELS);
+		sensorPipeline.setMotionStateListener(new FusionSensorPipeline.MotionStateListener() {
+			@Override
+			public void onMotionStateChanged(MotionState state) {
+				uiHandler.post(uiRescheduleRunnable);
+			}
+		});
 
 		supportRequestWindowFeature(Window.FEATURE_NO_TITLE);
 		getWindow().setFlags(WindowManager.LayoutParams.FLAG_FULLSCREEN, WindowManager.LayoutParams.FLAG_FULLSCREEN);
@@ -244,15 +225,22 @@ public class MainActivity extends AppCompatActivity implements ILocationListener
 			startActivity(intent);
 		}
 
-		locationManager = new DeviceLocationManager(this, GPS_UPDATE_INTERVAL_MILLISECONDS, this);
-
 		initChart();
 		initGauge();
 	}
 
 	private void initChart() {
-		chart = findViewById(R.id.historyChart);
-		chart.setAutoScaleMinMaxEnabled(true);
+		ViewStub chartStub = findViewById(R.id.historyChartStub);
+		if (model.isStripChartEnabled()) {
+			chartStub.setLayoutResource(R.layout.history_strip_chart);
+		}
+		View chartView = chartStub.inflate();
+		if (chartView instanceof StripChartView) {
+			initStripChart((StripChartView) chartView);
+			return;
+		}
+
+		chart = (HistoryLineChart) chartView;
 		chart.setDrawGridBackground(false);
 		chart.getDescription().setEnabled(false);
 		configureAxis(chart);
@@ -260,8 +248,6 @@ public class MainActivity extends AppCompatActivity implements ILocationListener
 		chart.setTouchEnabled(true);
 		chart.setDragEnabled(true);
 		chart.setScaleEnabled(true);
-		chart.setVisibleXRangeMaximum(50);
-		chart.setVisibleXRangeMinimum(50);
 
 		Legend legend = chart.getLegend();
 		legend.setVerticalAlignment(Legend.LegendVerticalAlignment.BOTTOM);
@@ -272,65 +258,70 @@ public class MainActivity extends AppCompatActivity implements ILocationListener
 
 		chart.setData(buildLineData());
 		chart.setMaxVisibleValueCount(GRAPH_MAX_SAMPLES);
+		chartAdapter = new HistoryChartAdapter(chart, history, GRAPH_MAX_SAMPLES,
+				GRAPH_DATA_WINDOW_SECONDS * 1000f, GRAPH_MIN_VISIBLE_SECONDS * 1000f);
 		chart.invalidate();
 	}
 
-	private void initGauge() {
-		odometerView = findViewById(R.id.odometer);
-		gaugeView = findViewById(R.id.gauge);
-		gaugeView.setMinValue(0);
-		gaugeView.setMaxValue(GAUGE_MAX_ENERGY);
-		gaugeView.setTotalNicks(GAUGE_NICK_COUNT);
-
-		gaugeView.setUpperTextUnit(getString(LineGraphs.SPEED.unit));
-		gaugeView.setUpperTextColor(LineGraphs.SPEED.color);
-		gaugeView.setUpperTextSize(140);
-		gaugeView.setLowerTextUnit(getString(LineGraphs.ENERGY.unit));
-		gaugeView.setLowerTextColor(LineGraphs.ENERGY.color);
-		gaugeView.setLowerTextSize(80);
-
-		float valuePerNick = (GAUGE_MAX_ENERGY) / (float) GAUGE_NICK_COUNT;
-		final Map<Integer, Integer> majorNickMap = new HashMap<>();
-		final Map<Integer, Integer> minorNickMap = new HashMap<>();
-
-		for (int i = 0; i <= GAUGE_NICK_COUNT; i++) {
-			int speed = lookAround(i, valuePerNick, MAJOR_NICK_FOR_SPEED);
-			if (speed % MAJOR_NICK_FOR_SPEED == 0) majorNickMap.put(i, speed);
-
-			speed = lookAround(i, valuePerNick, MINOR_NICK_FOR_SPEED);
-			if (speed % MINOR_NICK_FOR_SPEED == 0) minorNickMap.put(i, speed);
+	private void initStripChart(StripChartView view) {
+		stripChart = view;
+		stripChart.setWindow(GRAPH_DATA_WINDOW_SECONDS * 1000f, GRAPH_MAX_SAMPLES);
+		for (LineGraphs graph : LineGraphs.values()) {
+			stripChart.addSeries(graph.getLabelWithUnit(this), graph.color, graph.lineSize,
+					graph.dependency == YAxis.AxisDependency.RIGHT);
 		}
-
-		gaugeView.setNickHandler(new IGaugeNick() {
-			@Override public int getNicColor(int nick, float value) { return LineGraphs.ENERGY.color; }
-			@Override public boolean shouldDrawMajorNick(int nick, float value) { return majorNickMap.containsKey(nick); }
-			@Override public int getMajorNicColor(int nick, float value) { return LineGraphs.SPEED.color; }
-			@Override public boolean shouldDrawHalfNick(int nick, float value) { return minorNickMap.containsKey(nick); }
-			@Override public int getHalfNicColor(int nick, float value) { return LineGraphs.SPEED.color; }
-			@Override public String getNicLabelString(int nick, float value) {
-				if (nick != 0 && shouldDrawMajorNick(nick, value)) return String.valueOf(majorNickMap.get(nick));
-				else return null;
-			}
-			@Override public int getNicLabelColor() { return LineGraphs.SPEED.color; }
-		});
+		stripChart.setBorderColor(getThemeColor(MainActivity.this, android.R.attr.textColor));
+		stripChart.loadFrom(history);
 	}
 
-	private int lookAround(int i, float valuePerNick, int nickInterval) {
-		if (i == 0) return 0;
-		float speedkmh = (float) Math.sqrt((2 * i * valuePerNick) / MASS_KG) * 3.6f;
-		int smallerMultiple = ((int) (speedkmh / nickInterval) * nickInterval);
-		int largerMultiple = smallerMultiple + nickInterval;
-
-		int j = i;
-		float nextSpeed = (float) Math.sqrt((2 * j * valuePerNick) / MASS_KG) * 3.6f;
-		while (nextSpeed < largerMultiple) {
-			j++;
-			nextSpeed = (float) Math.sqrt((2 * j * valuePerNick) / MASS_KG) * 3.6f;
+	private void initGauge() {
+		char decimalSeparator = DecimalFormatSymbols.getInstance(Locale.getDefault()).getDecimalSeparator();
+		odometerText = new FixedPointFormatter(32, decimalSeparator);
+		speedText = new FixedPointFormatter(16, decimalSeparator);
+		energyText = new FixedPointFormatter(16, decimalSeparator);
+
+		odometerView = findViewById(R.id.odometer);
+		ViewStub gaugeStub = findViewById(R.id.gaugeStub);
+		if (model.isGaugeRenderThreadEnabled()) {
+			gaugeStub.setLayoutResource(R.layout.gauge_texture_view);
 		}
-		j--;
+		View view = gaugeStub.inflate();
+		if (view instanceof GaugeTextureView) {
+			gaugeTextureView = (GaugeTextureView) view;
+			gaugeTextureView.editGauge(new GaugeTextureView.GaugeEditor() {
+				@Override
+				public void edit(Gauge gauge) {
+					configureGauge(gauge);
+				}
+			});
+		} else {
+			gaugeView = (Gauge) view;
+			configureGauge(gaugeView);
+		}
+	}
 
-		if (i == j) return largerMultiple;
-		else return -1;
+	private void configureGauge(Gauge gauge) {
+		// energy nicks under speed ticks: E = m v^2 / 2, so km/h = 3.6 * sqrt(E / (m / 2))
+		ValueTransform energyToKph = ValueTransform.sqrt(3.6 / Math.sqrt(ONE_HALF_MASS_KG));
+		SecondaryScale speedTicks = SecondaryScale.compute(energyToKph, 0, GAUGE_MAX_ENERGY,
+				MAJOR_NICK_FOR_SPEED, MINOR_NICK_FOR_SPEED, LineGraphs.SPEED.color);
+		// no label at the needle rest
+		speedTicks.setLabel(0, null);
+
+		// one pass over paints and layout instead of one per setter
+		gauge.applyConfig(gauge.configBuilder()
+				.setMinValue(0)
+				.setMaxValue(GAUGE_MAX_ENERGY)
+				.setScale(new GaugeScale(GAUGE_NICK_COUNT, LineGraphs.ENERGY.color))
+				.setSecondaryScale(speedTicks)
+				.setNeedleProfile(NeedleAnimator.Profile.SPRING)
+				.setUpperTextUnit(getString(LineGraphs.SPEED.unit))
+				.setUpperTextColor(LineGraphs.SPEED.color)
+				.setUpperTextSize(140)
+				.setLowerTextUnit(getString(LineGraphs.ENERGY.unit))
+				.setLowerTextColor(LineGraphs.ENERGY.color)
+				.setLowerTextSize(80)
+				.build());
 	}
 
 	private int getThemeColor(Context context, int colorAttr) {
@@ -341,143 +332,49 @@ public class MainActivity extends AppCompatActivity implements ILocationListener
 		return color;
 	}
 
-	@Override
-	public void updatePosition(Location location) {
-		if (location.hasSpeed() && location.getAccuracy() < 12.0f ) {
-			targetSpeedMps = location.getSpeed();
-
-			if (targetSpeedMps > 1.0f && location.hasBearing()) {
-				double bearingRad = Math.toRadians(location.getBearing());
-				gpsDirectionX = (float) Math.sin(bearingRad);
-				gpsDirectionY = (float) Math.cos(bearingRad);
-				hasMovementDirection = true;
-			}
-
-			long currentTimestampNs = location.getElapsedRealtimeNanos();
-
-			if (!hasFirstGpsFix || lastGpsTimestampNs == 0) {
-				fusedSpeedMps = targetSpeedMps;
-				hasFirstGpsFix = true;
-				lastGpsTimestampNs = currentTimestampNs;
-				return;
-			}
-
-			float dt = (currentTimestampNs - lastGpsTimestampNs) / 1_000_000_000.0f;
-			lastGpsTimestampNs = currentTimestampNs;
-
-			if (dt <= 0.0f) dt = 0.01f;
-			if (dt > 2.0f) dt = 0.25f;
-
-			float dynamicAlpha = (float) Math.exp(-dt / FILTER_TIME_CONSTANT_SEC);
-			fusedSpeedMps = (dynamicAlpha * fusedSpeedMps) +
-					((1.0f - dynamicAlpha) * targetSpeedMps);
-		}
-	}
-
-	@Override
-	public void onSensorChanged(SensorEvent event) {
-		if (event.sensor.getType() == Sensor.TYPE_ROTATION_VECTOR) {
-			SensorManager.getRotationMatrixFromVector(rotationMatrix, event.values);
-			return;
-		}
-
-		if (event.sensor.getType() == Sensor.TYPE_LINEAR_ACCELERATION) {
-			long currentTimestampNs = event.timestamp;
-			if (lastSensorTimestampNs == 0) {
-				lastSensorTimestampNs = currentTimestampNs;
-				return;
-			}
-
-			float dt = (currentTimestampNs - lastSensorTimestampNs) / 1000000000.0f;
-			lastSensorTimestampNs = currentTimestampNs;
-
-			localAcceleration[0] = event.values[0];
-			localAcceleration[1] = event.values[1];
-			localAcceleration[2] = event.values[2];
-
-			multiplyMatrixVector(rotationMatrix, localAcceleration, worldAcceleration);
-
-			float stepAcceleration = 0.0f;
-			if (hasMovementDirection) {
-				stepAcceleration = (worldAcceleration[0] * gpsDirectionX) + (worldAcceleration[1] * gpsDirectionY);
-			} else {
-				stepAcceleration = (float) Math.sqrt((worldAcceleration[0] * worldAcceleration[0]) + (worldAcceleration[1] * worldAcceleration[1]));
-			}
-
-			if (Math.abs(stepAcceleration) < ACCEL_NOISE_DEADZONE) {
-				stepAcceleration = 0.0f;
-			}
-
-			smoothedAcceleration = (ACCEL_SMOOTHING_ALPHA * stepAcceleration) +
-					((1.0f - ACCEL_SMOOTHING_ALPHA) * smoothedAcceleration);
-
-			fusedSpeedMps += smoothedAcceleration * dt;
-
-			if (fusedSpeedMps < 0.1f) {
-				fusedSpeedMps = 0.0f;
-			}
-		}
-	}
-
-	private void multiplyMatrixVector(float[] matrix, float[] vector, float[] result) {
-		result[0] = matrix[0] * vector[0] + matrix[1] * vector[1] + matrix[2] * vector[2];
-		result[1] = matrix[3] * vector[0] + matrix[4] * vector[1] + matrix[5] * vector[2];
-		result[2] = matrix[6] * vector[0] + matrix[7] * vector[1] + matrix[8] * vector[2];
-	}
-
 	private void processPeriodicUiUpdate(float speedMps, float acceleration) {
 		long currentSystemTime = System.currentTimeMillis();
-		if (lastUiUpdateTimeMs != 0) {
-			float dtUi = (currentSystemTime - lastUiUpdateTimeMs) / 1000.0f;
-			if (dtUi > 0 && dtUi < 2.0f) {
-				// Accumulate distance using current speed over elapsed UI time delta
-				odometerMeters += speedMps * dtUi;
-			}
-		}
-		lastUiUpdateTimeMs = currentSystemTime;
 
 		float accelerationInG = acceleration / SensorManager.GRAVITY_EARTH;
 
-		long time = (currentSystemTime - startTime);
+		long time = (currentSystemTime - model.getStartTime());
 		if (time < 0) {
-			startTime = currentSystemTime;
+			model.setStartTime(currentSystemTime);
+			timeAxisFormatter.setOriginMillis(currentSystemTime);
 			time = 0;
-			prevTime = 0;
 		}
 
 		updateUi(time, speedMps * 3.6f, (ONE_HALF_MASS_KG * speedMps * speedMps), accelerationInG);
 	}
 
-	@Override public void onAccuracyChanged(Sensor sensor, int accuracy) {}
-
-	private void updateUi(final long time, final Float speedKph, final Float energy, final Float acceleration) {
-		final LineData data = chart.getData();
-		if (data == null) return;
-
-		data.addEntry(new Entry(time, speedKph), LineGraphs.SPEED.ordinal());
-		data.addEntry(new Entry(time, energy), LineGraphs.ENERGY.ordinal());
-
-		if (acceleration != null) {
-			data.addEntry(new Entry(time, acceleration), LineGraphs.ACCELERATION.ordinal());
-		}
-
-		for (ILineDataSet i : data.getDataSets()) {
-			if (i.getEntryCount() >= GRAPH_MAX_SAMPLES) {
-				i.removeFirst();
-			}
+	private void updateUi(long time, float speedKph, float energy, float acceleration) {
+		historySample[LineGraphs.SPEED.ordinal()] = speedKph;
+		historySample[LineGraphs.ENERGY.ordinal()] = energy;
+		historySample[LineGraphs.ACCELERATION.ordinal()] = acceleration;
+		history.add(time, historySample);
+		if (stripChart != null) {
+			stripChart.append(time, historySample);
 		}
 
-		data.notifyDataChanged();
-
 		if (isRunning) {
-			odometerView.setText(String.format(Locale.getDefault(), ODOMETER_FORMAT, odometerMeters / 1000.0));
-			chart.notifyDataSetChanged();
-
-			gaugeView.moveToValue(energy);
-			gaugeView.setLowerText(String.format(Locale.getDefault(), "%.1f", energy));
-			gaugeView.setUpperText(String.format(Locale.getDefault(), "%.1f", speedKph));
+			odometerText.clear().append(odometerMeters / 1000.0, ODOMETER_WIDTH, ODOMETER_DECIMALS).append(ODOMETER_UNIT);
+			odometerView.setText(odometerText.getChars(), 0, odometerText.length());
+			// the chart only gets the history level that matches its visible range
+			if (chartAdapter != null) {
+				chartAdapter.refresh();
+			}
 
-			chart.invalidate();
+			energyText.clear().append(energy, GAUGE_TEXT_DECIMALS);
+			speedText.clear().append(speedKph, GAUGE_TEXT_DECIMALS);
+			if (gaugeTextureView != null) {
+				gaugeTextureView.moveToValue(energy);
+				gaugeTextureView.setLowerText(energyText);
+				gaugeTextureView.setUpperText(speedText);
+			} else {
+				gaugeView.moveToValue(energy);
+				gaugeView.setLowerText(energyText);
+				gaugeView.setUpperText(speedText);
+			}
 		}
 	}
 
@@ -494,32 +391,15 @@ public class MainActivity extends AppCompatActivity implements ILocationListener
 		xAxis.setLabelRotationAngle(20f);
 		xAxis.setTextColor(getThemeColor(MainActivity.this, android.R.attr.textColor));
 		xAxis.setGridColor(getThemeColor(MainActivity.this, android.R.attr.textColor));
-		xAxis.setValueFormatter(new ValueFormatter() {
-			final SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
-
-			@Override
-			public String getFormattedValue(float value) {
-				return format.format(new Date(startTime + (long) value));
-			}
-		});
+		timeAxisFormatter.setOriginMillis(model.getStartTime());
+		xAxis.setValueFormatter(timeAxisFormatter);
 	}
 
 	private void prepareAccelerationAxis(YAxis axis) {
 		axis.setGridColor(LineGraphs.ACCELERATION.color);
 		axis.setTextColor(LineGraphs.ACCELERATION.color);
 		axis.setAxisLineColor(LineGraphs.ACCELERATION.color);
-		axis.setValueFormatter(new ValueFormatter() {
-			final NumberFormat formatter = NumberFormat.getInstance(Locale.getDefault());
-			{
-				formatter.setMaximumFractionDigits(4);
-				formatter.setRoundingMode(RoundingMode.HALF_EVEN);
-			}
-
-			@Override
-			public String getFormattedValue(float value) {
-				return formatter.format(value);
-			}
-		});
+		axis.setValueFormatter(new NumberAxisFormatter(4));
 	}
 
 	private void prepareSpeedEnergyAxis(YAxis axis) {
@@ -527,24 +407,15 @@ public class MainActivity extends AppCompatActivity implements ILocationListener
 		axis.setTextColor(getThemeColor(MainActivity.this, android.R.attr.textColor));
 		axis.setAxisLineColor(getThemeColor(MainActivity.this, android.R.attr.textColor));
 		axis.setAxisMinimum(0);
-		axis.setValueFormatter(new ValueFormatter() {
-			final NumberFormat formatter = NumberFormat.getInstance(Locale.getDefault());
-			{
-				formatter.setMaximumFractionDigits(2);
-				formatter.setRoundingMode(RoundingMode.HALF_EVEN);
-			}
-			@Override
-			public String getFormattedValue(float value) {
-				return formatter.format(value);
-			}
-		});
+		axis.setValueFormatter(new NumberAxisFormatter(2));
 	}
 
 	private LineData buildLineData() {
 		List<ILineDataSet> dataSets = new CopyOnWriteArrayList<>();
 
 		for (LineGraphs graph : LineGraphs.values()) {
-			LineDataSet dataSet = new LineDataSet(new CopyOnWriteArrayList<Entry>(), graph.getLabelWithUnit(this));
+			LineDataSet dataSet = new RingLineDataSet(HistoryChartAdapter.getDataSetCapacity(GRAPH_MAX_SAMPLES, GRAPH_HISTORY_LEVELS),
+					graph.getLabelWithUnit(this));
 			dataSet.setMode(GRAPH_DATA_SET_DISPLAY_MODE);
 			dataSet.setLineWidth(graph.lineSize);
 			dataSet.setDrawCircles(false);
@@ -574,27 +445,31 @@ public class MainActivity extends AppCompatActivity implements ILocationListener
 	protected void onResume() {
 		super.onResume();
 		isRunning = true;
-		lastUiUpdateTimeMs = System.currentTimeMillis();
 		getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
-		locationManager.onResume();
+		sensorPipeline.onResume();
 
 		uiHandler.post(uiRefreshRunnable);
 	}
 
 	@Override
 	protected void onPause() {
-		SharedPreferences.Editor editor = settings.edit();
-		editor.putFloat("odometer", (float) odometerMeters);
-		editor.apply();
-
 		getWindow().clearFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
-		locationManager.onPause();
+		// sensors and location stop in the background, the fusion state stays with the view model
+		sensorPipeline.onPause();
 		isRunning = false;
 
 		uiHandler.removeCallbacks(uiRefreshRunnable);
+		uiHandler.removeCallbacks(uiRescheduleRunnable);
 		super.onPause();
 	}
 
+	@Override
+	protected void onDestroy() {
+		// the view model stops the pipeline once the activity is finished for good
+		sensorPipeline.setMotionStateListener(null);
+		super.onDestroy();
+	}
+
 	public static Double convertDpToPixel(double dp) {
 		return dp * ((double) Resources.getSystem().getDisplayMetrics().densityDpi / DisplayMetrics.DENSITY_DEFAULT);
 	}
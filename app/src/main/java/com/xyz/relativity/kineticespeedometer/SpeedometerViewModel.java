@@ -0,0 +1,153 @@
+package com.xyz.relativity.kineticespeedometer;
+
+import android.app.Application;
+import android.content.SharedPreferences;
+import android.hardware.SensorManager;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+
+import com.xyz.relativity.kineticespeedometer.core.EstimatorMode;
+import com.xyz.relativity.kineticespeedometer.core.HistoryPyramid;
+import com.xyz.relativity.kineticespeedometer.core.OdometerJournal;
+import com.xyz.relativity.kineticespeedometer.sensors.FusionSensorPipeline;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Owns everything that must survive a configuration change: the sensor pipeline with its fusion state
+ * and the chart history. A rotation only rebuilds the views of {@link MainActivity}; the fusion state is
+ * kept, so the speed has no discontinuity. Sensors and location only run while the activity is resumed,
+ * the pipeline is stopped when the activity finishes for good.
+ */
+public class SpeedometerViewModel extends AndroidViewModel {
+	private static final String TAG = SpeedometerViewModel.class.getSimpleName();
+
+	static final String PREFERENCES = "configs";
+	private static final String PREF_ESTIMATOR = "estimator";
+	private static final String PREF_SENSOR_BATCH_LATENCY_MS = "sensor_batch_latency_ms";
+	private static final String PREF_ADAPTIVE_RATES = "adaptive_rates";
+	private static final String PREF_RECORD_SENSOR_LOG = "record_sensor_log";
+	private static final String SENSOR_LOG_FILE_FORMAT = "sensors-%d.kesl";
+	private static final String PREF_STRIP_CHART = "strip_chart";
+	private static final String PREF_GAUGE_RENDER_THREAD = "gauge_render_thread";
+	private static final String PREF_LEGACY_ODOMETER = "odometer";
+	private static final String ODOMETER_JOURNAL_FILE = "odometer.journal";
+
+	private static final int GPS_UPDATE_INTERVAL_MILLISECONDS = 250;
+
+	private final SharedPreferences settings;
+	private final FusionSensorPipeline sensorPipeline;
+	private HistoryPyramid history;
+	private long startTime = System.currentTimeMillis();
+
+	public SpeedometerViewModel(@NonNull Application application) {
+		super(application);
+		settings = application.getSharedPreferences(PREFERENCES, 0);
+
+		sensorPipeline = new FusionSensorPipeline(application, GPS_UPDATE_INTERVAL_MILLISECONDS);
+		sensorPipeline.setOdometerStore(new OdometerPreferenceStore());
+		sensorPipeline.setEstimatorMode(readEstimatorMode());
+		sensorPipeline.setAdaptiveRates(settings.getBoolean(PREF_ADAPTIVE_RATES, true));
+		if (settings.getBoolean(PREF_RECORD_SENSOR_LOG, false)) {
+			File logDir = application.getExternalFilesDir(null) != null ? application.getExternalFilesDir(null) : application.getFilesDir();
+			sensorPipeline.startRecording(new File(logDir, String.format(Locale.US, SENSOR_LOG_FILE_FORMAT, System.currentTimeMillis())));
+		}
+		sensorPipeline.start(SensorManager.SENSOR_DELAY_GAME, settings.getInt(PREF_SENSOR_BATCH_LATENCY_MS, 0) * 1000);
+	}
+
+	private EstimatorMode readEstimatorMode() {
+		String mode = settings.getString(PREF_ESTIMATOR, null);
+		if (mode != null) {
+			try {
+				return EstimatorMode.valueOf(mode);
+			} catch (IllegalArgumentException e) {
+				Log.w(TAG, "Unknown estimator " + mode + ", using " + EstimatorMode.COMPLEMENTARY);
+			}
+		}
+		return EstimatorMode.COMPLEMENTARY;
+	}
+
+	/**
+	 * The odometer journal, migrated from and falling back to the total the app used to keep in its
+	 * preferences.
+	 */
+	private class OdometerPreferenceStore implements FusionSensorPipeline.OdometerStore {
+		@Override
+		public OdometerJournal openJournal() throws IOException {
+			OdometerJournal odometerJournal = new OdometerJournal(new File(getApplication().getFilesDir(), ODOMETER_JOURNAL_FILE));
+			double legacyMeters = readFallbackMeters();
+			// also picks up a total kept in the preferences while the journal couldn't be opened
+			if (settings.contains(PREF_LEGACY_ODOMETER) && (odometerJournal.isEmpty() || legacyMeters > odometerJournal.getMeters())) {
+				try {
+					odometerJournal.update(legacyMeters, SystemClock.elapsedRealtime());
+					odometerJournal.sync();
+				} catch (IOException e) {
+					odometerJournal.close();
+					throw e;
+				}
+				settings.edit().remove(PREF_LEGACY_ODOMETER).apply();
+			}
+			return odometerJournal;
+		}
+
+		@Override
+		public double readFallbackMeters() {
+			return settings.getFloat(PREF_LEGACY_ODOMETER, 0f);
+		}
+
+		@Override
+		public void writeFallbackMeters(double meters) {
+			settings.edit().putFloat(PREF_LEGACY_ODOMETER, (float) meters).apply();
+		}
+	}
+
+	/**
+	 * @return true to draw the history with the lightweight StripChartView instead of the zoomable LineChart
+	 */
+	public boolean isStripChartEnabled() {
+		return settings.getBoolean(PREF_STRIP_CHART, false);
+	}
+
+	/**
+	 * @return true to draw the gauge on its own render thread with GaugeTextureView instead of the plain Gauge
+	 */
+	public boolean isGaugeRenderThreadEnabled() {
+		return settings.getBoolean(PREF_GAUGE_RENDER_THREAD, false);
+	}
+
+	public FusionSensorPipeline getSensorPipeline() {
+		return sensorPipeline;
+	}
+
+	/**
+	 * The chart history, created by the first call. The shape of later calls is ignored.
+	 */
+	public HistoryPyramid getHistory(int seriesCount, int levelCapacity, int levelCount) {
+		if (history == null) {
+			history = new HistoryPyramid(seriesCount, levelCapacity, levelCount);
+		}
+		return history;
+	}
+
+	/**
+	 * @return wall clock time of chart x 0
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	public void setStartTime(long startTime) {
+		this.startTime = startTime;
+	}
+
+	@Override
+	protected void onCleared() {
+		sensorPipeline.setMotionStateListener(null);
+		sensorPipeline.stop();
+	}
+}
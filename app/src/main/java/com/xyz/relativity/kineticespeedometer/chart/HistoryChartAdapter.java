@@ -0,0 +1,278 @@
+package com.xyz.relativity.kineticespeedometer.chart;
+
+import android.view.MotionEvent;
+
+import com.github.mikephil.charting.components.YAxis;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.listener.ChartTouchListener;
+import com.github.mikephil.charting.listener.OnChartGestureListener;
+import com.xyz.relativity.kineticespeedometer.core.HistoryPyramid;
+import com.xyz.relativity.kineticespeedometer.core.MinMaxDownsampler;
+import com.xyz.relativity.kineticespeedometer.core.SampleRing;
+import com.xyz.relativity.kineticespeedometer.core.SlidingMinMax;
+
+/**
+ * Feeds a {@link HistoryLineChart} from a {@link HistoryPyramid}.
+ * <p>
+ * Data set i of the chart shows series i of the pyramid and must be a {@link RingLineDataSet}. The
+ * visible x range gets the finest level that fits {@code maxVisibleBuckets}, the rest of the history a
+ * coarse overview, so the chart can be scrolled and zoomed over the whole drive while the number of
+ * points stays bounded. A {@link MinMaxDownsampler} then reduces every series to the min and max per
+ * horizontal pixel before it reaches the data set.
+ * <p>
+ * By default the chart follows the newest samples over a fixed window; touching the chart stops
+ * following, a double tap resumes it. While following, new samples are only appended to the
+ * downsampled output, and the whole output is rebuilt once the window moved by a quarter of its width.
+ * An append neither rescans the data sets nor rebuilds the chart's legend, see
+ * {@link HistoryLineChart#notifyDataAppended()}.
+ * <p>
+ * The y axes are scaled here instead of by the chart's auto scaling, which rescans every visible entry
+ * on each draw: while following, a {@link SlidingMinMax} per series tracks the live window for O(1) per
+ * sample, otherwise the downsampled output is scanned once per refresh. An axis minimum that was set
+ * before the adapter was created is kept.
+ */
+public class HistoryChartAdapter implements OnChartGestureListener {
+	private final HistoryLineChart chart;
+	private final HistoryPyramid pyramid;
+	private final int maxVisibleBuckets;
+	private final float liveWindowX;
+	private final float minVisibleX;
+	private final SampleRing scratch;
+	private final MinMaxDownsampler[] downsamplers;
+	private final SlidingMinMax[] windows;
+	private final boolean fixedLeftMinimum;
+	private final boolean fixedRightMinimum;
+	private long trackedSamples = 0;
+
+	private boolean following = true;
+	// incremental state, valid while following
+	private boolean incremental = false;
+	private float fedX;
+	private float rebuildAtX;
+
+	public HistoryChartAdapter(HistoryLineChart chart, HistoryPyramid pyramid, int maxVisibleBuckets, float liveWindowX, float minVisibleX) {
+		this.chart = chart;
+		this.pyramid = pyramid;
+		this.maxVisibleBuckets = maxVisibleBuckets;
+		this.liveWindowX = liveWindowX;
+		this.minVisibleX = minVisibleX;
+		this.scratch = new SampleRing(getDataSetCapacity(maxVisibleBuckets, pyramid.getLevelCount()));
+		this.downsamplers = new MinMaxDownsampler[pyramid.getSeriesCount()];
+		for (int i = 0; i < downsamplers.length; i++) {
+			downsamplers[i] = new MinMaxDownsampler();
+		}
+		this.windows = new SlidingMinMax[pyramid.getSeriesCount()];
+		for (int i = 0; i < windows.length; i++) {
+			windows[i] = new SlidingMinMax(pyramid.getLevelCapacity());
+		}
+		fixedLeftMinimum = chart.getAxisLeft().isAxisMinCustom();
+		fixedRightMinimum = chart.getAxisRight().isAxisMinCustom();
+
+		chart.setAutoScaleMinMaxEnabled(false);
+		chart.setDoubleTapToZoomEnabled(false);
+		chart.setOnChartGestureListener(this);
+	}
+
+	/**
+	 * @return data set capacity needed to hold the visible range, the overview and the samples appended
+	 * until the next rebuild
+	 */
+	public static int getDataSetCapacity(int maxVisibleBuckets, int levelCount) {
+		return 5 * maxVisibleBuckets + 2 * levelCount;
+	}
+
+	public boolean isFollowing() {
+		return following;
+	}
+
+	public void setFollowing(boolean following) {
+		this.following = following;
+		incremental = false;
+		if (!following) {
+			// let the user zoom out past the live window
+			chart.setVisibleXRangeMaximum(Float.MAX_VALUE);
+		}
+		refresh();
+	}
+
+	/**
+	 * Rebuild the chart data for the current view. Call after adding samples to the pyramid.
+	 */
+	public void refresh() {
+		LineData data = chart.getData();
+		if (data == null || pyramid.getSampleCount() == 0) {
+			return;
+		}
+
+		float from;
+		float to;
+		if (following) {
+			to = pyramid.getLastX();
+			from = Math.max(pyramid.getFirstX(), to - liveWindowX);
+		} else {
+			from = chart.getLowestVisibleX();
+			to = chart.getHighestVisibleX();
+		}
+
+		// one bucket, so at most two points, per horizontal pixel
+		float pixels = chart.getViewPortHandler().contentWidth();
+		int buckets = pixels >= 1 ? Math.min(maxVisibleBuckets, (int) pixels) : maxVisibleBuckets;
+		float bucketWidth = pixels >= 1 ? (to - from) / pixels : 0;
+
+		boolean append = following && incremental && pyramid.getLastX() < rebuildAtX;
+		int series = Math.min(data.getDataSetCount(), pyramid.getSeriesCount());
+		for (int i = 0; i < series; i++) {
+			RingLineDataSet dataSet = (RingLineDataSet) data.getDataSetByIndex(i);
+			SampleRing samples = dataSet.getSamples();
+			scratch.clear();
+			if (append) {
+				pyramid.emit(0, i, Math.nextAfter(fedX, Double.POSITIVE_INFINITY), Float.MAX_VALUE, true, scratch);
+			} else {
+				pyramid.fill(i, from, to, buckets, true, scratch);
+				downsamplers[i].reset(samples, from, bucketWidth);
+			}
+			// the downsampler rewrites at most the two points of its open bucket
+			int rewrittenFrom = samples.size() - 2;
+			boolean evicts = samples.size() + scratch.size() > samples.capacity();
+			downsamplers[i].addAll(scratch);
+			if (append && !evicts) {
+				dataSet.notifySamplesAppended(rewrittenFrom);
+			} else {
+				dataSet.notifyDataSetChanged();
+			}
+		}
+		fedX = pyramid.getLastX();
+		if (!append) {
+			incremental = following;
+			rebuildAtX = to + (to - from) / 4;
+		}
+		trackWindow(from);
+		scaleAxis(data, YAxis.AxisDependency.LEFT, from, to, fixedLeftMinimum);
+		scaleAxis(data, YAxis.AxisDependency.RIGHT, from, to, fixedRightMinimum);
+		if (append) {
+			// only the ranges moved, the data sets, legend and offsets are unchanged
+			chart.notifyDataAppended();
+		} else {
+			data.notifyDataChanged();
+			chart.notifyDataSetChanged();
+		}
+
+		if (pyramid.getLastX() - pyramid.getFirstX() > minVisibleX) {
+			chart.setVisibleXRangeMinimum(minVisibleX);
+		}
+		if (following) {
+			chart.setVisibleXRangeMaximum(liveWindowX);
+			chart.moveViewToX(from);
+		} else {
+			chart.invalidate();
+		}
+	}
+
+	/**
+	 * Feed the raw samples added since the last call to the sliding windows and slide them to {@code from}.
+	 */
+	private void trackWindow(float from) {
+		long samples = pyramid.getSampleCount();
+		if (samples < trackedSamples) {
+			// the pyramid was cleared or restored
+			for (SlidingMinMax window : windows) {
+				window.clear();
+			}
+			trackedSamples = 0;
+		}
+		int count = pyramid.getRawCount();
+		int start = (int) Math.max(0, count - (samples - trackedSamples));
+		for (int i = start; i < count; i++) {
+			float x = pyramid.getRawX(i);
+			for (int s = 0; s < windows.length; s++) {
+				windows[s].add(x, pyramid.getRawValue(s, i));
+			}
+		}
+		trackedSamples = samples;
+		for (SlidingMinMax window : windows) {
+			window.evictBefore(from);
+		}
+	}
+
+	private void scaleAxis(LineData data, YAxis.AxisDependency dependency, float from, float to, boolean fixedMinimum) {
+		float min = Float.MAX_VALUE;
+		float max = -Float.MAX_VALUE;
+		int series = Math.min(data.getDataSetCount(), pyramid.getSeriesCount());
+		for (int i = 0; i < series; i++) {
+			RingLineDataSet dataSet = (RingLineDataSet) data.getDataSetByIndex(i);
+			if (dataSet.getAxisDependency() != dependency) {
+				continue;
+			}
+			if (following) {
+				if (!windows[i].isEmpty()) {
+					min = Math.min(min, windows[i].getMin());
+					max = Math.max(max, windows[i].getMax());
+				}
+			} else {
+				SampleRing samples = dataSet.getSamples();
+				int j = samples.ceilIndex(from);
+				for (; j >= 0 && j < samples.size() && samples.getX(j) <= to; j++) {
+					min = Math.min(min, samples.getY(j));
+					max = Math.max(max, samples.getY(j));
+				}
+			}
+		}
+		if (min > max) {
+			return;
+		}
+
+		YAxis axis = chart.getAxis(dependency);
+		float range = max - min;
+		if (range == 0) {
+			range = max != 0 ? Math.abs(max) : 1;
+		}
+		if (!fixedMinimum) {
+			axis.setAxisMinimum(min - range * axis.getSpaceBottom() / 100f);
+		}
+		axis.setAxisMaximum(Math.max(max + range * axis.getSpaceTop() / 100f, axis.getAxisMinimum() + range));
+	}
+
+	@Override
+	public void onChartGestureStart(MotionEvent me, ChartTouchListener.ChartGesture lastPerformedGesture) {
+		if (following) {
+			following = false;
+			incremental = false;
+			chart.setVisibleXRangeMaximum(Float.MAX_VALUE);
+		}
+	}
+
+	@Override
+	public void onChartGestureEnd(MotionEvent me, ChartTouchListener.ChartGesture lastPerformedGesture) {
+		refresh();
+	}
+
+	@Override
+	public void onChartDoubleTapped(MotionEvent me) {
+		setFollowing(true);
+	}
+
+	@Override
+	public void onChartLongPressed(MotionEvent me) {
+
+	}
+
+	@Override
+	public void onChartSingleTapped(MotionEvent me) {
+
+	}
+
+	@Override
+	public void onChartFling(MotionEvent me1, MotionEvent me2, float velocityX, float velocityY) {
+
+	}
+
+	@Override
+	public void onChartScale(MotionEvent me, float scaleX, float scaleY) {
+
+	}
+
+	@Override
+	public void onChartTranslate(MotionEvent me, float dX, float dY) {
+
+	}
+}
@@ -0,0 +1,40 @@
+package com.xyz.relativity.kineticespeedometer.chart;
+
+import android.content.Context;
+import android.util.AttributeSet;
+
+import com.github.mikephil.charting.charts.LineChart;
+
+/**
+ * {@link LineChart} with a cheap update for appended samples.
+ * <p>
+ * {@link #notifyDataSetChanged()} also rebuilds the legend and the offsets, which allocates and is only
+ * needed when the data sets themselves change. {@link #notifyDataAppended()} only updates what appended
+ * samples change: the axis ranges and the value to pixel matrix.
+ */
+public class HistoryLineChart extends LineChart {
+	public HistoryLineChart(Context context) {
+		super(context);
+	}
+
+	public HistoryLineChart(Context context, AttributeSet attrs) {
+		super(context, attrs);
+	}
+
+	public HistoryLineChart(Context context, AttributeSet attrs, int defStyle) {
+		super(context, attrs, defStyle);
+	}
+
+	/**
+	 * Call instead of {@link #notifyDataSetChanged()} after samples were appended to the data sets and
+	 * their min and max were updated. O(data sets), allocates nothing.
+	 */
+	public void notifyDataAppended() {
+		if (mData == null) {
+			return;
+		}
+		mData.notifyDataChanged();
+		calcMinMax();
+		prepareValuePxMatrix();
+	}
+}
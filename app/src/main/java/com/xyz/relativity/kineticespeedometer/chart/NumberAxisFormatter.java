@@ -0,0 +1,42 @@
+package com.xyz.relativity.kineticespeedometer.chart;
+
+import com.github.mikephil.charting.formatter.ValueFormatter;
+
+import java.math.RoundingMode;
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Formats axis values with the default locale's {@link NumberFormat}, caching the labels by value.
+ * Axis label values only change when the axis range does, so a steady chart draws without allocating.
+ */
+public class NumberAxisFormatter extends ValueFormatter {
+	private static final int CACHE_SIZE = 32;
+
+	private final NumberFormat formatter = NumberFormat.getInstance(Locale.getDefault());
+	private final float[] cachedValues = new float[CACHE_SIZE];
+	private final String[] cachedLabels = new String[CACHE_SIZE];
+	private int nextSlot = 0;
+
+	public NumberAxisFormatter(int maximumFractionDigits) {
+		formatter.setMaximumFractionDigits(maximumFractionDigits);
+		formatter.setRoundingMode(RoundingMode.HALF_EVEN);
+		Arrays.fill(cachedValues, Float.NaN);
+	}
+
+	@Override
+	public String getFormattedValue(float value) {
+		for (int i = 0; i < CACHE_SIZE; i++) {
+			if (cachedValues[i] == value && cachedLabels[i] != null) {
+				return cachedLabels[i];
+			}
+		}
+
+		String label = formatter.format(value);
+		cachedValues[nextSlot] = value;
+		cachedLabels[nextSlot] = label;
+		nextSlot = (nextSlot + 1) % CACHE_SIZE;
+		return label;
+	}
+}
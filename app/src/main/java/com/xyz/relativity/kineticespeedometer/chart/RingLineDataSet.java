@@ -0,0 +1,369 @@
+package com.xyz.relativity.kineticespeedometer.chart;
+
+import com.github.mikephil.charting.data.DataSet;
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineDataSet;
+import com.xyz.relativity.kineticespeedometer.core.SampleRing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link LineDataSet} over a fixed capacity {@link SampleRing} instead of a list of {@link Entry}.
+ * <p>
+ * Appending and evicting are O(1) and allocate nothing. The renderer reads samples through a small
+ * pool of reused {@link Entry} views, so an entry returned by {@link #getEntryForIndex(int)} is only
+ * valid until a few more are requested. {@link #getEntriesForXValue(float)} and {@link #getEntries()}
+ * create real entries, for highlighting and other rare callers.
+ */
+public class RingLineDataSet extends LineDataSet {
+	// the cubic renderer holds up to four entries at once
+	private static final int ENTRY_VIEW_COUNT = 8;
+
+	private final SampleRing samples;
+	private final RingEntry[] entryViews = new RingEntry[ENTRY_VIEW_COUNT];
+	private int nextEntryView = 0;
+	private boolean minMaxValid = false;
+
+	public RingLineDataSet(int capacity, String label) {
+		super(new ArrayList<Entry>(0), label);
+		samples = new SampleRing(capacity);
+		for (int i = 0; i < ENTRY_VIEW_COUNT; i++) {
+			entryViews[i] = new RingEntry(this);
+		}
+		calcMinMax();
+	}
+
+	public int getCapacity() {
+		return samples.capacity();
+	}
+
+	/**
+	 * Direct read access to the samples, index 0 is the oldest.
+	 */
+	public SampleRing getSamples() {
+		return samples;
+	}
+
+	/**
+	 * Append a sample, evicting the oldest one if the data set is full. x must not decrease.
+	 */
+	public void add(float x, float y) {
+		boolean evicted = samples.add(x, y);
+		if (!minMaxValid) {
+			return;
+		}
+		if (evicted) {
+			// the evicted sample may have been the extreme, find out lazily
+			minMaxValid = false;
+			return;
+		}
+		if (y < mYMin) mYMin = y;
+		if (y > mYMax) mYMax = y;
+		if (x < mXMin) mXMin = x;
+		if (x > mXMax) mXMax = x;
+	}
+
+	/**
+	 * Extend the min and max over the samples from {@code from} on, after they were rewritten or appended
+	 * through {@link #getSamples()} without evicting any. Only the tail is scanned, unlike
+	 * {@link #notifyDataSetChanged()}. Rewritten samples must not shrink the range, as with a
+	 * {@link com.xyz.relativity.kineticespeedometer.core.MinMaxDownsampler} that rewrites its open bucket.
+	 */
+	public void notifySamplesAppended(int from) {
+		if (!minMaxValid) {
+			// the next getter rescans anyway
+			return;
+		}
+		int size = samples.size();
+		for (int i = Math.max(0, from); i < size; i++) {
+			float y = samples.getY(i);
+			if (y < mYMin) mYMin = y;
+			if (y > mYMax) mYMax = y;
+		}
+		if (size > 0) {
+			mXMin = samples.getX(0);
+			mXMax = samples.getX(size - 1);
+		}
+	}
+
+	@Override
+	public void calcMinMax() {
+		if (samples == null) {
+			// called by the super constructor
+			return;
+		}
+		mYMax = -Float.MAX_VALUE;
+		mYMin = Float.MAX_VALUE;
+		mXMax = -Float.MAX_VALUE;
+		mXMin = Float.MAX_VALUE;
+
+		int size = samples.size();
+		for (int i = 0; i < size; i++) {
+			float y = samples.getY(i);
+			if (y < mYMin) mYMin = y;
+			if (y > mYMax) mYMax = y;
+		}
+		if (size > 0) {
+			mXMin = samples.getX(0);
+			mXMax = samples.getX(size - 1);
+		}
+		minMaxValid = true;
+	}
+
+	@Override
+	public void calcMinMaxY(float fromX, float toX) {
+		mYMax = -Float.MAX_VALUE;
+		mYMin = Float.MAX_VALUE;
+		// only the y range is narrowed, the next full scan restores it
+		minMaxValid = false;
+
+		int from = samples.ceilIndex(fromX);
+		int to = samples.floorIndex(toX);
+		if (from < 0 || to < from) {
+			return;
+		}
+		for (int i = from; i <= to; i++) {
+			float y = samples.getY(i);
+			if (y < mYMin) mYMin = y;
+			if (y > mYMax) mYMax = y;
+		}
+	}
+
+	private void ensureMinMax() {
+		if (!minMaxValid) {
+			calcMinMax();
+		}
+	}
+
+	@Override
+	public float getYMin() {
+		ensureMinMax();
+		return mYMin;
+	}
+
+	@Override
+	public float getYMax() {
+		ensureMinMax();
+		return mYMax;
+	}
+
+	@Override
+	public float getXMin() {
+		ensureMinMax();
+		return mXMin;
+	}
+
+	@Override
+	public float getXMax() {
+		ensureMinMax();
+		return mXMax;
+	}
+
+	@Override
+	public int getEntryCount() {
+		return samples.size();
+	}
+
+	@Override
+	public Entry getEntryForIndex(int index) {
+		if (index < 0 || index >= samples.size()) {
+			return null;
+		}
+		RingEntry view = entryViews[nextEntryView];
+		nextEntryView = (nextEntryView + 1) % ENTRY_VIEW_COUNT;
+		view.index = index;
+		view.setX(samples.getX(index));
+		view.setY(samples.getY(index));
+		return view;
+	}
+
+	@Override
+	public int getEntryIndex(Entry e) {
+		if (e instanceof RingEntry && ((RingEntry) e).owner == this) {
+			return ((RingEntry) e).index;
+		}
+		int index = samples.floorIndex(e.getX());
+		while (index >= 0 && samples.getX(index) == e.getX()) {
+			if (samples.getY(index) == e.getY()) {
+				return index;
+			}
+			index--;
+		}
+		return -1;
+	}
+
+	@Override
+	public int getEntryIndex(float xValue, float closestToY, DataSet.Rounding rounding) {
+		int size = samples.size();
+		if (size == 0) {
+			return -1;
+		}
+
+		int closest;
+		int below = samples.floorIndex(xValue);
+		int above = samples.ceilIndex(xValue);
+		if (rounding == DataSet.Rounding.DOWN) {
+			closest = below >= 0 ? below : 0;
+		} else if (rounding == DataSet.Rounding.UP) {
+			closest = above >= 0 ? above : size - 1;
+		} else if (below < 0) {
+			closest = above;
+		} else if (above < 0) {
+			closest = below;
+		} else {
+			closest = xValue - samples.getX(below) <= samples.getX(above) - xValue ? below : above;
+		}
+
+		if (!Float.isNaN(closestToY)) {
+			// among samples with the same x, pick the one nearest to the wanted y
+			float closestX = samples.getX(closest);
+			while (closest > 0 && samples.getX(closest - 1) == closestX) {
+				closest--;
+			}
+			int best = closest;
+			for (int i = closest + 1; i < size && samples.getX(i) == closestX; i++) {
+				if (Math.abs(samples.getY(i) - closestToY) < Math.abs(samples.getY(best) - closestToY)) {
+					best = i;
+				}
+			}
+			closest = best;
+		}
+		return closest;
+	}
+
+	@Override
+	public Entry getEntryForXValue(float xValue, float closestToY, DataSet.Rounding rounding) {
+		int index = getEntryIndex(xValue, closestToY, rounding);
+		return index >= 0 ? getEntryForIndex(index) : null;
+	}
+
+	@Override
+	public Entry getEntryForXValue(float xValue, float closestToY) {
+		return getEntryForXValue(xValue, closestToY, DataSet.Rounding.CLOSEST);
+	}
+
+	@Override
+	public List<Entry> getEntriesForXValue(float xValue) {
+		List<Entry> entries = new ArrayList<>();
+		int index = samples.floorIndex(xValue);
+		while (index >= 0 && samples.getX(index) == xValue) {
+			entries.add(0, new Entry(xValue, samples.getY(index)));
+			index--;
+		}
+		return entries;
+	}
+
+	/**
+	 * @return a snapshot of the samples as new entries
+	 */
+	@Override
+	public List<Entry> getEntries() {
+		List<Entry> entries = new ArrayList<>(samples.size());
+		for (int i = 0; i < samples.size(); i++) {
+			entries.add(new Entry(samples.getX(i), samples.getY(i)));
+		}
+		return entries;
+	}
+
+	@Override
+	public void setEntries(List<Entry> entries) {
+		samples.clear();
+		if (entries != null) {
+			for (Entry e : entries) {
+				samples.add(e.getX(), e.getY());
+			}
+		}
+		notifyDataSetChanged();
+	}
+
+	@Override
+	public boolean addEntry(Entry e) {
+		if (e == null) {
+			return false;
+		}
+		add(e.getX(), e.getY());
+		return true;
+	}
+
+	@Override
+	public void addEntryOrdered(Entry e) {
+		addEntry(e);
+	}
+
+	@Override
+	public boolean removeEntry(Entry e) {
+		if (e == null) {
+			return false;
+		}
+		int index = getEntryIndex(e);
+		if (index < 0) {
+			return false;
+		}
+		samples.remove(index);
+		minMaxValid = false;
+		return true;
+	}
+
+	@Override
+	public boolean removeFirst() {
+		if (samples.isEmpty()) {
+			return false;
+		}
+		samples.removeFirst();
+		minMaxValid = false;
+		return true;
+	}
+
+	@Override
+	public boolean removeLast() {
+		if (samples.isEmpty()) {
+			return false;
+		}
+		samples.removeLast();
+		minMaxValid = false;
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		samples.clear();
+		notifyDataSetChanged();
+	}
+
+	@Override
+	public DataSet<Entry> copy() {
+		RingLineDataSet copied = new RingLineDataSet(samples.capacity(), getLabel());
+		copied.samples.copyFrom(samples);
+		copy(copied);
+		copied.calcMinMax();
+		return copied;
+	}
+
+	@Override
+	public String toSimpleString() {
+		return "DataSet, label: " + (getLabel() == null ? "" : getLabel()) + ", entries: " + samples.size() + "\n";
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder(toSimpleString());
+		for (int i = 0; i < samples.size(); i++) {
+			buffer.append("Entry, x: ").append(samples.getX(i)).append(" y: ").append(samples.getY(i)).append(' ');
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Reused view of one sample that remembers its index for {@link #getEntryIndex(Entry)}.
+	 */
+	private static final class RingEntry extends Entry {
+		private final RingLineDataSet owner;
+		private int index;
+
+		RingEntry(RingLineDataSet owner) {
+			super(0, 0);
+			this.owner = owner;
+		}
+	}
+}
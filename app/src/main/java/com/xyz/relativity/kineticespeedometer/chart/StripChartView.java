@@ -0,0 +1,353 @@
+package com.xyz.relativity.kineticespeedometer.chart;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+import com.xyz.relativity.kineticespeedometer.core.HistoryPyramid;
+import com.xyz.relativity.kineticespeedometer.core.SampleRing;
+import com.xyz.relativity.kineticespeedometer.core.SlidingMinMax;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal scrolling chart of a fixed x window, a cheap alternative to the history {@code LineChart}.
+ * <p>
+ * The window is cut into segments of fixed x width, each holding one {@link Path} per series in
+ * coordinates relative to the segment start. A new sample only extends the newest segment; scrolling
+ * just translates the segments, so the older paths stay unchanged and keep their cached rendering.
+ * Segments that left the window are rewound and reused.
+ * <p>
+ * Every series is scaled to the view height on its own, from the min and max of the window with some
+ * headroom. The paths are only rebuilt when a sample leaves that range or the window uses less than a
+ * third of it, when the size changes, or on {@link #loadFrom(HistoryPyramid)}.
+ */
+public class StripChartView extends View {
+	private static final int SEGMENTS = 8;
+	// the window plus a partially visible segment at both ends
+	private static final int MAX_SEGMENTS = SEGMENTS + 2;
+	private static final float HEADROOM = 0.25f;
+	private static final float SHRINK_RATIO = 3f;
+	private static final float LABEL_TEXT_SIZE_SP = 12;
+
+	private final List<Series> series = new ArrayList<>();
+	private final float[] segmentStartX = new float[MAX_SEGMENTS];
+	private int firstSegment = 0;
+	private int segmentCount = 0;
+
+	private float windowX = 4 * 60 * 1000f;
+	private int capacity = 2400;
+	private float segmentWidthX = windowX / SEGMENTS;
+	private float pxPerX = 0;
+	private float lastX = -Float.MAX_VALUE;
+
+	private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+	private final Paint borderPaint = new Paint();
+
+	private static class Series {
+		final String label;
+		final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		final boolean fromZero;
+		final Path[] paths = new Path[MAX_SEGMENTS];
+		SampleRing samples;
+		SlidingMinMax extremes;
+		float rangeMin = 0;
+		float rangeMax = 1;
+		boolean hasPoint = false;
+		float lastX;
+		float lastY;
+
+		Series(String label, int color, float lineWidthPx, boolean fromZero) {
+			this.label = label;
+			this.fromZero = fromZero;
+			paint.setColor(color);
+			paint.setStyle(Paint.Style.STROKE);
+			paint.setStrokeWidth(lineWidthPx);
+			paint.setStrokeJoin(Paint.Join.ROUND);
+			for (int i = 0; i < MAX_SEGMENTS; i++) {
+				paths[i] = new Path();
+			}
+		}
+	}
+
+	public StripChartView(Context context) {
+		super(context);
+		init();
+	}
+
+	public StripChartView(Context context, AttributeSet attrs) {
+		super(context, attrs);
+		init();
+	}
+
+	public StripChartView(Context context, AttributeSet attrs, int defStyleAttr) {
+		super(context, attrs, defStyleAttr);
+		init();
+	}
+
+	private void init() {
+		labelPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, LABEL_TEXT_SIZE_SP, getResources().getDisplayMetrics()));
+		borderPaint.setStyle(Paint.Style.STROKE);
+		borderPaint.setColor(0x44ffffff);
+	}
+
+	/**
+	 * @param windowX  visible x range
+	 * @param capacity samples kept per series, enough for the window at the highest sample rate
+	 */
+	public void setWindow(float windowX, int capacity) {
+		this.windowX = windowX;
+		this.capacity = capacity;
+		this.segmentWidthX = windowX / SEGMENTS;
+		for (Series s : series) {
+			s.samples = new SampleRing(capacity);
+			s.extremes = new SlidingMinMax(capacity);
+		}
+		clear();
+		updateScale();
+	}
+
+	/**
+	 * @param fromZero keep 0 as the bottom of the range instead of the window minimum
+	 * @return index of the series for {@link #append(float, float[])}
+	 */
+	public int addSeries(String label, int color, float lineWidthPx, boolean fromZero) {
+		Series s = new Series(label, color, lineWidthPx, fromZero);
+		s.samples = new SampleRing(capacity);
+		s.extremes = new SlidingMinMax(capacity);
+		series.add(s);
+		return series.size() - 1;
+	}
+
+	public void setBorderColor(int color) {
+		borderPaint.setColor(color);
+		invalidate();
+	}
+
+	/**
+	 * Append one sample of every series. x must not decrease, a smaller x restarts the chart.
+	 *
+	 * @param values one value per series, in {@link #addSeries} order
+	 */
+	public void append(float x, float[] values) {
+		if (x < lastX) {
+			clear();
+		}
+		lastX = x;
+
+		boolean rescale = false;
+		for (int i = 0; i < series.size(); i++) {
+			Series s = series.get(i);
+			s.samples.add(x, values[i]);
+			s.extremes.add(x, values[i]);
+			s.extremes.evictBefore(x - windowX);
+			rescale |= updateRange(s);
+		}
+
+		if (rescale) {
+			rebuild();
+		} else {
+			extendTo(x);
+			for (int i = 0; i < series.size(); i++) {
+				plot(series.get(i), x, values[i]);
+			}
+		}
+		invalidate();
+	}
+
+	/**
+	 * Replace the content with the newest window of raw samples of the pyramid, e.g. after the view was
+	 * recreated.
+	 */
+	public void loadFrom(HistoryPyramid pyramid) {
+		for (Series s : series) {
+			s.samples.clear();
+			s.extremes.clear();
+		}
+		int count = pyramid.getRawCount();
+		int seriesCount = Math.min(series.size(), pyramid.getSeriesCount());
+		float fromX = pyramid.getLastX() - windowX;
+		for (int i = 0; i < count; i++) {
+			float x = pyramid.getRawX(i);
+			if (x < fromX) {
+				continue;
+			}
+			for (int j = 0; j < seriesCount; j++) {
+				Series s = series.get(j);
+				s.samples.add(x, pyramid.getRawValue(j, i));
+				s.extremes.add(x, pyramid.getRawValue(j, i));
+			}
+			lastX = x;
+		}
+		for (Series s : series) {
+			updateRange(s);
+		}
+		rebuild();
+		invalidate();
+	}
+
+	public void clear() {
+		for (Series s : series) {
+			s.samples.clear();
+			s.extremes.clear();
+			s.hasPoint = false;
+		}
+		segmentCount = 0;
+		lastX = -Float.MAX_VALUE;
+		invalidate();
+	}
+
+	/**
+	 * Update the y range of the series if its window no longer fits it.
+	 *
+	 * @return true if the range changed
+	 */
+	private boolean updateRange(Series s) {
+		if (s.extremes.isEmpty()) {
+			return false;
+		}
+		float min = s.fromZero ? Math.min(0, s.extremes.getMin()) : s.extremes.getMin();
+		float max = s.extremes.getMax();
+		float span = max - min;
+		if (span <= 0) {
+			// flat window, e.g. standing still
+			span = max != 0 ? Math.abs(max) : 1;
+		}
+		if (min >= s.rangeMin && max <= s.rangeMax && span * SHRINK_RATIO >= s.rangeMax - s.rangeMin) {
+			return false;
+		}
+		s.rangeMax = max + span * HEADROOM;
+		s.rangeMin = s.fromZero && min >= 0 ? 0 : min - span * HEADROOM;
+		return true;
+	}
+
+	private void rebuild() {
+		segmentCount = 0;
+		for (int i = 0; i < series.size(); i++) {
+			series.get(i).hasPoint = false;
+		}
+		if (series.isEmpty()) {
+			return;
+		}
+		SampleRing xs = series.get(0).samples;
+		float fromX = lastX - windowX - segmentWidthX;
+		for (int i = xs.ceilIndex(fromX); i >= 0 && i < xs.size(); i++) {
+			float x = xs.getX(i);
+			extendTo(x);
+			for (int j = 0; j < series.size(); j++) {
+				Series s = series.get(j);
+				plot(s, x, s.samples.getY(i));
+			}
+		}
+	}
+
+	/**
+	 * Make the newest segment cover x, reusing the segments that left the window.
+	 */
+	private void extendTo(float x) {
+		float start;
+		if (segmentCount == 0) {
+			start = (float) Math.floor(x / segmentWidthX) * segmentWidthX;
+		} else {
+			float newest = segmentStartX[segmentIndex(segmentCount - 1)];
+			if (x < newest + segmentWidthX) {
+				return;
+			}
+			start = newest + (float) Math.floor((x - newest) / segmentWidthX) * segmentWidthX;
+		}
+
+		while (segmentCount > 0 && (segmentCount == MAX_SEGMENTS
+				|| segmentStartX[firstSegment] + segmentWidthX < x - windowX)) {
+			firstSegment = (firstSegment + 1) % MAX_SEGMENTS;
+			segmentCount--;
+		}
+		int index = segmentIndex(segmentCount);
+		segmentStartX[index] = start;
+		segmentCount++;
+
+		for (int i = 0; i < series.size(); i++) {
+			Series s = series.get(i);
+			Path path = s.paths[index];
+			path.rewind();
+			if (s.hasPoint) {
+				// continue the line from the last point of the previous segment
+				path.moveTo((s.lastX - start) * pxPerX, toPixelY(s, s.lastY));
+			}
+		}
+	}
+
+	private void plot(Series s, float x, float y) {
+		int index = segmentIndex(segmentCount - 1);
+		Path path = s.paths[index];
+		float px = (x - segmentStartX[index]) * pxPerX;
+		float py = toPixelY(s, y);
+		if (path.isEmpty()) {
+			path.moveTo(px, py);
+		} else {
+			path.lineTo(px, py);
+		}
+		s.hasPoint = true;
+		s.lastX = x;
+		s.lastY = y;
+	}
+
+	private int segmentIndex(int i) {
+		return (firstSegment + i) % MAX_SEGMENTS;
+	}
+
+	private float toPixelY(Series s, float y) {
+		float height = getHeight() - getPaddingTop() - getPaddingBottom();
+		return getPaddingTop() + height * (s.rangeMax - y) / (s.rangeMax - s.rangeMin);
+	}
+
+	private void updateScale() {
+		float width = getWidth() - getPaddingLeft() - getPaddingRight();
+		pxPerX = width > 0 ? width / windowX : 0;
+	}
+
+	@Override
+	protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+		super.onSizeChanged(w, h, oldw, oldh);
+		updateScale();
+		rebuild();
+	}
+
+	@Override
+	protected void onDraw(Canvas canvas) {
+		super.onDraw(canvas);
+		int left = getPaddingLeft();
+		int top = getPaddingTop();
+		int right = getWidth() - getPaddingRight();
+		int bottom = getHeight() - getPaddingBottom();
+		canvas.drawRect(left, top, right, bottom, borderPaint);
+
+		canvas.save();
+		canvas.clipRect(left, top, right, bottom);
+		float viewStartX = lastX - windowX;
+		for (int i = 0; i < segmentCount; i++) {
+			int index = segmentIndex(i);
+			canvas.save();
+			canvas.translate(left + (segmentStartX[index] - viewStartX) * pxPerX, 0);
+			for (int j = 0; j < series.size(); j++) {
+				Series s = series.get(j);
+				canvas.drawPath(s.paths[index], s.paint);
+			}
+			canvas.restore();
+		}
+		canvas.restore();
+
+		float labelX = left + labelPaint.getTextSize() / 2;
+		float labelY = top + labelPaint.getTextSize() * 1.5f;
+		for (int j = 0; j < series.size(); j++) {
+			Series s = series.get(j);
+			labelPaint.setColor(s.paint.getColor());
+			canvas.drawText(s.label, labelX, labelY, labelPaint);
+			labelY += labelPaint.getTextSize() * 1.2f;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.xyz.relativity.kineticespeedometer.chart;
+
+import com.github.mikephil.charting.formatter.ValueFormatter;
+import com.xyz.relativity.kineticespeedometer.core.FixedPointFormatter;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * Formats chart x values, milliseconds since an origin, as the local {@code HH:mm:ss} time.
+ * <p>
+ * The chart needs a String per label per draw. Labels are cached by second, so while the chart scrolls
+ * only a label that was not shown before allocates, instead of a {@code Date} and a String per label
+ * per draw.
+ */
+public class TimeAxisFormatter extends ValueFormatter {
+	private static final int CACHE_SIZE = 32;
+
+	private final TimeZone zone = TimeZone.getDefault();
+	private final FixedPointFormatter text = new FixedPointFormatter(8);
+	private final long[] cachedSeconds = new long[CACHE_SIZE];
+	private final String[] cachedLabels = new String[CACHE_SIZE];
+	private int nextSlot = 0;
+	private long originMillis;
+
+	/**
+	 * @param originMillis wall clock time of x 0
+	 */
+	public void setOriginMillis(long originMillis) {
+		if (this.originMillis != originMillis) {
+			this.originMillis = originMillis;
+			Arrays.fill(cachedLabels, null);
+		}
+	}
+
+	@Override
+	public String getFormattedValue(float value) {
+		long millis = originMillis + (long) value;
+		long localMillis = millis + zone.getOffset(millis);
+		long seconds = localMillis >= 0 ? localMillis / 1000 : (localMillis - 999) / 1000;
+		for (int i = 0; i < CACHE_SIZE; i++) {
+			if (cachedLabels[i] != null && cachedSeconds[i] == seconds) {
+				return cachedLabels[i];
+			}
+		}
+
+		String label = text.clear().appendTimeOfDay(localMillis).toString();
+		cachedSeconds[nextSlot] = seconds;
+		cachedLabels[nextSlot] = label;
+		nextSlot = (nextSlot + 1) % CACHE_SIZE;
+		return label;
+	}
+}
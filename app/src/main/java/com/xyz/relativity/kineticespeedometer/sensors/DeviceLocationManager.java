@@ -1,8 +1,11 @@
 package com.xyz.relativity.kineticespeedometer.sensors;
 
+import android.content.Context;
 import android.location.Location;
+import android.os.Looper;
 
-import androidx.appcompat.app.AppCompatActivity;
+
+import com.xyz.relativity.kineticespeedometer.core.LocationSample;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,15 +15,30 @@ import java.util.List;
  */
 
 public class DeviceLocationManager implements FuseLocationProvider.LocationEvent {
-	private AppCompatActivity parent;
+	private Context parent;
 	private final List<ILocationListener> eventsHandler = new ArrayList<>();
+	private final List<ILocationSampleListener> sampleHandler = new ArrayList<>();
 	private final FuseLocationProvider fusedLocationManager;
+	// reused for the ILocationListener compatibility path
+	private Location compatLocation;
 
-	public DeviceLocationManager(AppCompatActivity parent, int intervalMs, ILocationListener pEventsHandler) {
-		this.parent = parent;
+	public DeviceLocationManager(Context parent, int intervalMs, ILocationListener pEventsHandler) {
+		this(parent, intervalMs, pEventsHandler, Looper.getMainLooper());
+	}
+
+	public DeviceLocationManager(Context parent, int intervalMs, ILocationListener pEventsHandler, Looper looper) {
+		this(parent, intervalMs, looper);
 		addListener(pEventsHandler);
+	}
 
-		fusedLocationManager = new FuseLocationProvider(parent, intervalMs, this);
+	public DeviceLocationManager(Context parent, int intervalMs, ILocationSampleListener pSampleHandler, Looper looper) {
+		this(parent, intervalMs, looper);
+		addSampleListener(pSampleHandler);
+	}
+
+	private DeviceLocationManager(Context parent, int intervalMs, Looper looper) {
+		this.parent = parent;
+		fusedLocationManager = new FuseLocationProvider(parent, intervalMs, this, looper);
 	}
 
 	public void addListener(ILocationListener... pEventsHandler) {
@@ -32,6 +50,14 @@ public class DeviceLocationManager implements FuseLocationProvider.LocationEvent
 
 	}
 
+	public void addSampleListener(ILocationSampleListener... pSampleHandler) {
+		for (ILocationSampleListener i : pSampleHandler) {
+			if (!sampleHandler.contains(i)) {
+				sampleHandler.add(i);
+			}
+		}
+	}
+
 	public void onResume() {
 		fusedLocationManager.onResume();
 	}
@@ -40,10 +66,25 @@ public class DeviceLocationManager implements FuseLocationProvider.LocationEvent
 		fusedLocationManager.onPause();
 	}
 
+	public void setInterval(int intervalMs) {
+		fusedLocationManager.setInterval(intervalMs);
+	}
+
 	@Override
-	public void onLocationChanged(Location location) {
+	public void onLocationChanged(LocationSample sample) {
+		for (int i = 0; i < sampleHandler.size(); i++) {
+			sampleHandler.get(i).onLocationSample(sample);
+		}
+
+		if (eventsHandler.isEmpty()) {
+			return;
+		}
+		if (compatLocation == null) {
+			compatLocation = new Location(LocationSamples.providerName(sample.providerId));
+		}
+		LocationSamples.toLocation(sample, compatLocation);
 		for (ILocationListener client : eventsHandler) {
-			client.updatePosition(location);
+			client.updatePosition(compatLocation);
 		}
 	}
 }
@@ -7,32 +7,108 @@ import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.SystemClock;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
-import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 
-import java.util.concurrent.TimeUnit;
+import com.xyz.relativity.kineticespeedometer.core.LocationArbiter;
+import com.xyz.relativity.kineticespeedometer.core.LocationSample;
 
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Subscribes to the location providers and forwards the best fix as a pooled {@link LocationSample}.
+ * Fixes are copied field by field into a reused sample, so no fix is ever allocated.
+ * <p>
+ * A {@link LocationArbiter} decides which fixes improve the estimate; only those are forwarded.
+ * Providers that stop winning are unsubscribed and subscribed again when the arbiter wants them back.
+ * Every provider has its own listener, so one provider changes without touching the others.
+ */
 public class FuseLocationProvider implements LocationListener {
+	private static final String TAG = FuseLocationProvider.class.getSimpleName();
 	private static final float MINIMUM_DISTANCE_METERS = 0f;
+	private static final long SUBSCRIPTION_CHECK_INTERVAL_MS = 5000;
 
 	private final LocationEvent eventListener;
-	private final int intervalMs;
+	private int intervalMs;
+	private boolean resumed = false;
 
 	public interface LocationEvent {
-		void onLocationChanged(Location location);
+		/**
+		 * @param sample best fix so far, only valid during the call
+		 */
+		void onLocationChanged(LocationSample sample);
 	}
 
 	private final LocationManager locationManager;
-	private final AppCompatActivity parent;
-	private Location lastLocation;
+	private final Context parent;
+	private final Looper looper;
+	private final Handler handler;
+	private final LocationArbiter arbiter = new LocationArbiter();
+	private final LocationSample incomingSample = new LocationSample();
+	private final Map<String, ProviderListener> providerListeners = new HashMap<>();
+
+	/**
+	 * The subscription of one provider. {@link LocationManager#removeUpdates(LocationListener)} drops
+	 * every provider of a listener, hence one listener each.
+	 */
+	private final class ProviderListener implements LocationListener {
+		final int providerId;
+		boolean subscribed = false;
+
+		ProviderListener(String provider) {
+			this.providerId = LocationSamples.providerId(provider);
+		}
+
+		@Override
+		public void onLocationChanged(@NonNull Location location) {
+			FuseLocationProvider.this.onLocationChanged(location);
+		}
+
+		@Override
+		public void onStatusChanged(String provider, int status, Bundle extras) {
+
+		}
+
+		@Override
+		public void onProviderEnabled(@NonNull String provider) {
+
+		}
+
+		@Override
+		public void onProviderDisabled(@NonNull String provider) {
+
+		}
+	}
+
+	private final Runnable subscriptionCheck = new Runnable() {
+		@Override
+		public void run() {
+			if (resumed) {
+				updateSubscriptions(false);
+				handler.postDelayed(this, SUBSCRIPTION_CHECK_INTERVAL_MS);
+			}
+		}
+	};
 
-	public FuseLocationProvider(AppCompatActivity parent, int intervalMs, LocationEvent eventListener) {
+	public FuseLocationProvider(Context parent, int intervalMs, LocationEvent eventListener) {
+		this(parent, intervalMs, eventListener, Looper.getMainLooper());
+	}
+
+	/**
+	 * @param looper looper on which location updates are delivered
+	 */
+	public FuseLocationProvider(Context parent, int intervalMs, LocationEvent eventListener, Looper looper) {
 		this.parent = parent;
 		this.eventListener = eventListener;
 		this.intervalMs = intervalMs;
+		this.looper = looper;
+		this.handler = new Handler(looper);
 
 		this.locationManager = (LocationManager) parent
 				.getSystemService(Context.LOCATION_SERVICE);
@@ -43,13 +119,14 @@ public class FuseLocationProvider implements LocationListener {
 				&& ActivityCompat.checkSelfPermission(parent, Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
 			return;
 		}
-		lastLocation = locationManager.getLastKnownLocation(LocationManager.PASSIVE_PROVIDER);
+		Location lastKnown = locationManager.getLastKnownLocation(LocationManager.PASSIVE_PROVIDER);
 
-		if (lastLocation != null) {
-			updateListeners();
-		} else {
-			lastLocation = new Location(LocationManager.PASSIVE_PROVIDER);
-			lastLocation.setAccuracy(999);
+		if (lastKnown != null) {
+			LocationSamples.set(incomingSample, lastKnown);
+			// possibly from long before the app started, only used if it is as recent as a live fix
+			if (arbiter.offerLastKnown(incomingSample, SystemClock.elapsedRealtimeNanos())) {
+				eventListener.onLocationChanged(incomingSample);
+			}
 		}
 	}
 
@@ -60,35 +137,85 @@ public class FuseLocationProvider implements LocationListener {
 		}
 
 		initLocation();
+		updateSubscriptions(false);
+		resumed = true;
+		handler.postDelayed(subscriptionCheck, SUBSCRIPTION_CHECK_INTERVAL_MS);
+	}
+
+	/**
+	 * Subscribe the providers the arbiter wants and unsubscribe the others, leaving unchanged ones alone.
+	 *
+	 * @param renew request updates again for subscribed providers too, e.g. with a new interval
+	 */
+	private void updateSubscriptions(boolean renew) {
+		if (ActivityCompat.checkSelfPermission(parent, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED
+				&& ActivityCompat.checkSelfPermission(parent, Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+			return;
+		}
 
+		long now = SystemClock.elapsedRealtimeNanos();
 		for (String providerStr: locationManager.getAllProviders()) {
 			if (providerStr.equalsIgnoreCase(LocationManager.PASSIVE_PROVIDER)) {
 				continue;
 			}
+			ProviderListener listener = providerListeners.get(providerStr);
+			if (listener == null) {
+				listener = new ProviderListener(providerStr);
+				providerListeners.put(providerStr, listener);
+			}
 
-			locationManager.requestLocationUpdates(providerStr, intervalMs,
-					MINIMUM_DISTANCE_METERS, FuseLocationProvider.this);
+			if (arbiter.shouldSubscribe(listener.providerId, now)) {
+				if (!listener.subscribed || renew) {
+					locationManager.requestLocationUpdates(providerStr, intervalMs,
+							MINIMUM_DISTANCE_METERS, listener, looper);
+					listener.subscribed = true;
+				}
+				arbiter.onSubscribed(listener.providerId, now);
+			} else {
+				if (listener.subscribed) {
+					Log.i(TAG, "Unsubscribing " + providerStr + ", " + arbiter.getStatistics(listener.providerId));
+					locationManager.removeUpdates(listener);
+					listener.subscribed = false;
+				}
+				arbiter.onUnsubscribed(listener.providerId, now);
+			}
 		}
 	}
 
 	public void onPause() {
-		locationManager.removeUpdates(this);
+		resumed = false;
+		handler.removeCallbacks(subscriptionCheck);
+		for (ProviderListener listener : providerListeners.values()) {
+			if (listener.subscribed) {
+				locationManager.removeUpdates(listener);
+				listener.subscribed = false;
+			}
+		}
+		Log.i(TAG, "Location providers:\n" + arbiter);
 	}
 
-	private void updateListeners() {
-		eventListener.onLocationChanged(lastLocation);
+	/**
+	 * Change the update interval, re-subscribing the providers if updates are running.
+	 *
+	 * @param intervalMs Interval (ms)
+	 */
+	public void setInterval(int intervalMs) {
+		if (this.intervalMs == intervalMs) {
+			return;
+		}
+		this.intervalMs = intervalMs;
+		if (resumed) {
+			updateSubscriptions(true);
+		}
 	}
 
 	@Override
 	public void onLocationChanged(@NonNull Location location) {
-		long compareTime = SystemClock.elapsedRealtimeNanos();
-		float oldLocationAccuracy = Math.max(0, lastLocation.getAccuracy() + TimeUnit.NANOSECONDS.toSeconds(compareTime - lastLocation.getElapsedRealtimeNanos()));
-		float newLocationAccuracy = Math.max(0, location.getAccuracy() + TimeUnit.NANOSECONDS.toSeconds(compareTime - location.getElapsedRealtimeNanos()));
+		LocationSamples.set(incomingSample, location);
 
-		if (newLocationAccuracy <= oldLocationAccuracy) {
-			lastLocation = new Location(location);
+		if (arbiter.offer(incomingSample, SystemClock.elapsedRealtimeNanos())) {
+			eventListener.onLocationChanged(incomingSample);
 		}
-		updateListeners();
 	}
 
 	@Override
@@ -0,0 +1,585 @@
+package com.xyz.relativity.kineticespeedometer.sensors;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.xyz.relativity.kineticespeedometer.core.BatchStatistics;
+import com.xyz.relativity.kineticespeedometer.core.EstimatorMode;
+import com.xyz.relativity.kineticespeedometer.core.FusionState;
+import com.xyz.relativity.kineticespeedometer.core.FusionStatePublisher;
+import com.xyz.relativity.kineticespeedometer.core.LocationSample;
+import com.xyz.relativity.kineticespeedometer.core.MotionState;
+import com.xyz.relativity.kineticespeedometer.core.MotionStateDetector;
+import com.xyz.relativity.kineticespeedometer.core.OdometerJournal;
+import com.xyz.relativity.kineticespeedometer.core.SensorBatch;
+import com.xyz.relativity.kineticespeedometer.core.SensorLogWriter;
+import com.xyz.relativity.kineticespeedometer.core.SpeedFusionEngine;
+
+/**
+ * Owns the sensor thread: sensor and location callbacks are delivered on a dedicated
+ * {@link HandlerThread}, fed to the {@link SpeedFusionEngine} and the result is published lock-free
+ * for the UI. The engine is only ever touched from the sensor thread.
+ * <p>
+ * In batched mode the sensors report from their hardware FIFO. Events of one delivery are collected in
+ * a {@link SensorBatch} and integrated in one pass once the delivery is complete.
+ * <p>
+ * With adaptive rates the {@link MotionStateDetector} picks the sensor and location rates: low while
+ * standing still or cruising, full rate as soon as the speed starts changing.
+ * <p>
+ * Optionally every raw sample is appended to a {@link SensorLogWriter} log for later replay.
+ * <p>
+ * Distance is integrated by the engine at sensor and GPS timestamps. Only the total is handed to a
+ * background thread that opens and writes the {@link OdometerJournal}, so file syncs never delay
+ * sensor events or the UI.
+ * While paused both sensors and location are unregistered and no distance is integrated: without a
+ * foreground service the platform throttles background location to a few fixes an hour, too sparse to
+ * integrate, and dead reckoning alone only drifts. On resume the engine restarts integration from the
+ * next samples instead of integrating across the pause.
+ */
+public class FusionSensorPipeline implements SensorEventListener, ILocationSampleListener {
+	public interface MotionStateListener {
+		/**
+		 * Called on the sensor thread.
+		 */
+		void onMotionStateChanged(MotionState state);
+	}
+
+	/**
+	 * Where the odometer total is kept. Called on the journal thread.
+	 */
+	public interface OdometerStore {
+		/**
+		 * @return the journal to continue from, with any older total already moved into it
+		 */
+		OdometerJournal openJournal() throws IOException;
+
+		/**
+		 * @return the total to continue from when the journal can't be opened
+		 */
+		double readFallbackMeters();
+
+		/**
+		 * Keep the total while the journal can't be opened, called when the pipeline pauses or stops.
+		 */
+		void writeFallbackMeters(double meters);
+	}
+
+	private static final String TAG = FusionSensorPipeline.class.getSimpleName();
+	private static final String THREAD_NAME = "SensorFusion";
+	private static final String JOURNAL_THREAD_NAME = "OdometerJournal";
+	private static final int BATCH_CAPACITY = 512;
+	private static final long STATISTICS_LOG_INTERVAL_NS = 60_000_000_000L;
+
+	private final SensorManager sensorManager;
+	private final HandlerThread sensorThread;
+	private final Handler sensorHandler;
+	private final DeviceLocationManager locationManager;
+
+	private final SpeedFusionEngine fusionEngine = new SpeedFusionEngine();
+	private final FusionStatePublisher statePublisher = new FusionStatePublisher();
+
+	// --- Rates ---
+	private int samplingPeriodUs;
+	private int maxReportLatencyUs;
+	private volatile boolean adaptiveRates = false;
+	private final MotionStateDetector motionDetector = new MotionStateDetector();
+	private volatile MotionState motionState = MotionState.MOVING;
+	private volatile MotionStateListener motionStateListener;
+
+	// --- Lifecycle, sensor thread only ---
+	private boolean started = false;
+	// until the first onResume(), the owner may outlive its UI
+	private boolean paused = true;
+	private boolean sensorsRegistered = false;
+
+	// --- Batching, sensor thread only ---
+	private volatile boolean batching = false;
+	private final SensorBatch sensorBatch = new SensorBatch(BATCH_CAPACITY);
+	private final BatchStatistics batchStatistics = new BatchStatistics();
+	private boolean flushPosted = false;
+	private long lastStatisticsLogNs = 0;
+
+	// --- Odometer ---
+	private final HandlerThread journalThread;
+	private final Handler journalHandler;
+	// sensor thread only: set once the engine continues from the journal
+	private boolean journaling = false;
+	// the latest total, handed from the sensor thread to the journal thread
+	private volatile double journalMeters;
+	private final AtomicBoolean journalUpdatePosted = new AtomicBoolean(false);
+	// journal thread only
+	private OdometerJournal odometerJournal;
+	// set instead of the journal when it can't be opened
+	private OdometerStore odometerFallback;
+
+	private final Runnable updateOdometerJournal = new Runnable() {
+		@Override
+		public void run() {
+			journalUpdatePosted.set(false);
+			if (odometerJournal != null) {
+				try {
+					odometerJournal.update(journalMeters, SystemClock.elapsedRealtime());
+				} catch (IOException e) {
+					Log.w(TAG, "Odometer journal write failed", e);
+				}
+			}
+		}
+	};
+
+	private final Runnable syncOdometerJournal = new Runnable() {
+		@Override
+		public void run() {
+			if (odometerJournal != null) {
+				try {
+					odometerJournal.update(journalMeters, SystemClock.elapsedRealtime());
+					odometerJournal.sync();
+				} catch (IOException e) {
+					Log.w(TAG, "Odometer journal sync failed", e);
+				}
+			} else if (odometerFallback != null) {
+				odometerFallback.writeFallbackMeters(journalMeters);
+			}
+		}
+	};
+
+	private final Runnable closeOdometerJournal = new Runnable() {
+		@Override
+		public void run() {
+			if (odometerJournal != null) {
+				try {
+					odometerJournal.update(journalMeters, SystemClock.elapsedRealtime());
+					odometerJournal.close();
+				} catch (IOException e) {
+					Log.w(TAG, "Failed to close odometer journal", e);
+				}
+				odometerJournal = null;
+			} else if (odometerFallback != null) {
+				odometerFallback.writeFallbackMeters(journalMeters);
+				odometerFallback = null;
+			}
+		}
+	};
+
+	// --- Recording, sensor thread only ---
+	private SensorLogWriter sensorLog;
+
+	private final Runnable closeSensorLog = new Runnable() {
+		@Override
+		public void run() {
+			if (sensorLog != null) {
+				try {
+					sensorLog.close();
+				} catch (IOException e) {
+					Log.w(TAG, "Failed to close sensor log", e);
+				}
+				sensorLog = null;
+			}
+		}
+	};
+
+	private final Runnable flushBatch = new Runnable() {
+		@Override
+		public void run() {
+			flushPosted = false;
+			flushBatch();
+		}
+	};
+
+	private final Runnable startSensors = new Runnable() {
+		@Override
+		public void run() {
+			started = true;
+			if (!paused && !sensorsRegistered) {
+				registerSensors(currentSamplingPeriodUs());
+			}
+		}
+	};
+
+	private final Runnable resumeInputs = new Runnable() {
+		@Override
+		public void run() {
+			paused = false;
+			// the time spent paused is not a step to integrate
+			fusionEngine.resumeAfterGap();
+			if (started && !sensorsRegistered) {
+				registerSensors(currentSamplingPeriodUs());
+			}
+			locationManager.onResume();
+		}
+	};
+
+	private final Runnable pauseInputs = new Runnable() {
+		@Override
+		public void run() {
+			paused = true;
+			// no dead reckoning without the UI: with no GPS fix the estimate would only drift
+			unregisterSensors();
+			locationManager.onPause();
+			if (batching) {
+				flushBatch();
+				Log.i(TAG, batchStatistics.toString());
+			}
+			if (sensorLog != null) {
+				try {
+					sensorLog.flush();
+				} catch (IOException e) {
+					onSensorLogFailed(e);
+				}
+			}
+			if (journaling) {
+				Log.i(TAG, "Distance fused: " + fusionEngine.getDistanceMeters() + " m, GPS track (diagnostic): " + fusionEngine.getGpsDistanceMeters() + " m");
+				journalMeters = fusionEngine.getDistanceMeters();
+				journalHandler.post(syncOdometerJournal);
+			}
+		}
+	};
+
+	public FusionSensorPipeline(Context parent, int gpsIntervalMs) {
+		sensorManager = (SensorManager) parent.getSystemService(Context.SENSOR_SERVICE);
+
+		sensorThread = new HandlerThread(THREAD_NAME, Process.THREAD_PRIORITY_URGENT_DISPLAY);
+		sensorThread.start();
+		sensorHandler = new Handler(sensorThread.getLooper());
+
+		journalThread = new HandlerThread(JOURNAL_THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+		journalThread.start();
+		journalHandler = new Handler(journalThread.getLooper());
+
+		locationManager = new DeviceLocationManager(parent, gpsIntervalMs, this, sensorThread.getLooper());
+	}
+
+	public void start(int samplingPeriodUs) {
+		start(samplingPeriodUs, 0);
+	}
+
+	/**
+	 * Register the sensors, once the pipeline is resumed.
+	 *
+	 * @param samplingPeriodUs   sensor sampling period
+	 * @param maxReportLatencyUs 0 to deliver every event as it happens. Otherwise the time events may
+	 *                           wait in the hardware FIFO: longer latency means fewer wake ups per second
+	 *                           but a more delayed display. Ignored if the sensor has no FIFO.
+	 */
+	public void start(int samplingPeriodUs, int maxReportLatencyUs) {
+		this.samplingPeriodUs = samplingPeriodUs;
+		this.maxReportLatencyUs = maxReportLatencyUs;
+		sensorHandler.post(startSensors);
+	}
+
+	private int currentSamplingPeriodUs() {
+		return adaptiveRates ? motionState.sensorPeriodUs : samplingPeriodUs;
+	}
+
+	/**
+	 * Let the detected {@link MotionState} drive the sensor and location rates. Call before {@link #start(int, int)}.
+	 */
+	public void setAdaptiveRates(boolean adaptiveRates) {
+		this.adaptiveRates = adaptiveRates;
+	}
+
+	/**
+	 * @param listener called on the sensor thread, null to detach, e.g. when the activity is recreated
+	 */
+	public void setMotionStateListener(MotionStateListener listener) {
+		this.motionStateListener = listener;
+	}
+
+	/**
+	 * @return the current motion state, always {@link MotionState#MOVING} without adaptive rates
+	 */
+	public MotionState getMotionState() {
+		return motionState;
+	}
+
+	private void registerSensors(int samplingPeriodUs) {
+		Sensor accel = sensorManager.getDefaultSensor(Sensor.TYPE_LINEAR_ACCELERATION);
+		Sensor rotation = sensorManager.getDefaultSensor(Sensor.TYPE_ROTATION_VECTOR);
+
+		batching = maxReportLatencyUs > 0 && accel != null && accel.getFifoMaxEventCount() > 0;
+		if (batching) {
+			sensorManager.registerListener(this, accel, samplingPeriodUs, maxReportLatencyUs, sensorHandler);
+			sensorManager.registerListener(this, rotation, samplingPeriodUs, maxReportLatencyUs, sensorHandler);
+		} else {
+			sensorManager.registerListener(this, accel, samplingPeriodUs, sensorHandler);
+			sensorManager.registerListener(this, rotation, samplingPeriodUs, sensorHandler);
+		}
+		sensorsRegistered = true;
+	}
+
+	private void unregisterSensors() {
+		sensorManager.unregisterListener(this);
+		sensorsRegistered = false;
+	}
+
+	public void stop() {
+		sensorManager.unregisterListener(this);
+		sensorHandler.removeCallbacksAndMessages(null);
+		// location callbacks arrive on the sensor thread, unsubscribe there like onPause()
+		sensorHandler.post(pauseInputs);
+		sensorHandler.post(closeSensorLog);
+		sensorHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				// after the final total of pauseInputs
+				journalHandler.post(closeOdometerJournal);
+				journalThread.quitSafely();
+			}
+		});
+		sensorThread.quitSafely();
+	}
+
+	/**
+	 * Continue the odometer from the store's journal and keep it up to date. The journal is opened,
+	 * written and closed on a background thread; if it can't be opened the fallback of the store is
+	 * used instead.
+	 */
+	public void setOdometerStore(final OdometerStore store) {
+		journalHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				double meters;
+				try {
+					odometerJournal = store.openJournal();
+					meters = odometerJournal.getMeters();
+				} catch (IOException e) {
+					Log.w(TAG, "Odometer journal unavailable", e);
+					odometerFallback = store;
+					meters = store.readFallbackMeters();
+				}
+				// what the journal thread writes until the sensor thread hands over a newer total
+				journalMeters = meters;
+				final double storedMeters = meters;
+				sensorHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						// keep what was integrated while the journal was opened
+						fusionEngine.setDistanceMeters(storedMeters + fusionEngine.getDistanceMeters());
+						journaling = true;
+						publish(0);
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Record every raw sensor and location sample to a binary log, replacing any running recording.
+	 *
+	 * @param file log file, overwritten
+	 */
+	public void startRecording(final File file) {
+		sensorHandler.post(closeSensorLog);
+		sensorHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					sensorLog = new SensorLogWriter(file);
+					Log.i(TAG, "Recording sensors to " + file);
+				} catch (IOException e) {
+					Log.w(TAG, "Failed to create sensor log " + file, e);
+				}
+			}
+		});
+	}
+
+	public void stopRecording() {
+		sensorHandler.post(closeSensorLog);
+	}
+
+	/**
+	 * Register sensors and location again after {@link #onPause()}.
+	 */
+	public void onResume() {
+		sensorHandler.removeCallbacks(pauseInputs);
+		sensorHandler.post(resumeInputs);
+	}
+
+	/**
+	 * Unregister sensors and location, the fusion state is kept.
+	 */
+	public void onPause() {
+		sensorHandler.removeCallbacks(resumeInputs);
+		sensorHandler.post(pauseInputs);
+	}
+
+	public void setEstimatorMode(final EstimatorMode mode) {
+		sensorHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				fusionEngine.setEstimatorMode(mode);
+			}
+		});
+	}
+
+	/**
+	 * Copy the latest fused state. Safe to call from any thread.
+	 */
+	public void readState(FusionState out) {
+		statePublisher.read(out);
+	}
+
+	@Override
+	public void onLocationSample(LocationSample sample) {
+		if (sensorLog != null) {
+			try {
+				sensorLog.writeGps(sample.elapsedRealtimeNanos, sample.latitude, sample.longitude,
+						sample.hasSpeed, sample.speedMps, sample.hasBearing, sample.bearingDegrees,
+						sample.accuracyMeters);
+			} catch (IOException e) {
+				onSensorLogFailed(e);
+			}
+		}
+
+		if (batching) {
+			// older sensor events must be integrated before the fix corrects the estimate
+			flushBatch();
+		}
+		fusionEngine.onGpsFix(sample.elapsedRealtimeNanos,
+				sample.latitude, sample.longitude,
+				sample.hasSpeed, sample.speedMps,
+				sample.hasBearing, sample.bearingDegrees,
+				sample.accuracyMeters);
+		publish(sample.elapsedRealtimeNanos);
+
+		if (adaptiveRates && sample.hasSpeed
+				&& motionDetector.onGpsSpeed(sample.elapsedRealtimeNanos, sample.speedMps)) {
+			applyMotionState();
+		}
+	}
+
+	@Override
+	public void onSensorChanged(SensorEvent event) {
+		if (sensorLog != null) {
+			record(event);
+		}
+
+		if (batching) {
+			enqueue(event);
+			return;
+		}
+
+		if (event.sensor.getType() == Sensor.TYPE_ROTATION_VECTOR) {
+			fusionEngine.onRotationVector(event.values[0], event.values[1], event.values[2],
+					event.values.length > 3 ? event.values[3] : SpeedFusionEngine.NO_SCALAR);
+			return;
+		}
+
+		if (event.sensor.getType() == Sensor.TYPE_LINEAR_ACCELERATION) {
+			fusionEngine.onLinearAcceleration(event.timestamp, event.values[0], event.values[1], event.values[2]);
+			publish(event.timestamp);
+			detectMotion(event);
+		}
+	}
+
+	@Override
+	public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+
+	private void record(SensorEvent event) {
+		try {
+			if (event.sensor.getType() == Sensor.TYPE_ROTATION_VECTOR) {
+				sensorLog.writeRotationVector(event.timestamp, event.values[0], event.values[1], event.values[2],
+						event.values.length > 3 ? event.values[3] : SpeedFusionEngine.NO_SCALAR);
+			} else if (event.sensor.getType() == Sensor.TYPE_LINEAR_ACCELERATION) {
+				sensorLog.writeLinearAcceleration(event.timestamp, event.values[0], event.values[1], event.values[2]);
+			}
+		} catch (IOException e) {
+			onSensorLogFailed(e);
+		}
+	}
+
+	private void onSensorLogFailed(IOException e) {
+		Log.w(TAG, "Sensor log write failed, recording stopped", e);
+		closeSensorLog.run();
+	}
+
+	private void enqueue(SensorEvent event) {
+		int type;
+		float w = 0;
+		if (event.sensor.getType() == Sensor.TYPE_ROTATION_VECTOR) {
+			type = SensorBatch.TYPE_ROTATION_VECTOR;
+			w = event.values.length > 3 ? event.values[3] : SpeedFusionEngine.NO_SCALAR;
+		} else if (event.sensor.getType() == Sensor.TYPE_LINEAR_ACCELERATION) {
+			type = SensorBatch.TYPE_LINEAR_ACCELERATION;
+			detectMotion(event);
+		} else {
+			return;
+		}
+
+		if (sensorBatch.isFull()) {
+			flushBatch();
+		}
+		sensorBatch.add(type, event.timestamp, event.values[0], event.values[1], event.values[2], w);
+
+		// a FIFO delivery is dispatched within one looper message, the posted flush runs right after it
+		if (!flushPosted) {
+			flushPosted = true;
+			sensorHandler.post(flushBatch);
+		}
+	}
+
+	private void detectMotion(SensorEvent event) {
+		if (adaptiveRates && motionDetector.onLinearAcceleration(event.timestamp, event.values[0], event.values[1], event.values[2])) {
+			applyMotionState();
+		}
+	}
+
+	private void applyMotionState() {
+		MotionState state = motionDetector.getState();
+		motionState = state;
+
+		if (sensorsRegistered) {
+			unregisterSensors();
+			registerSensors(state.sensorPeriodUs);
+		}
+		locationManager.setInterval(state.gpsIntervalMs);
+
+		MotionStateListener listener = motionStateListener;
+		if (listener != null) {
+			listener.onMotionStateChanged(state);
+		}
+	}
+
+	private void flushBatch() {
+		int size = sensorBatch.size();
+		if (size == 0) {
+			return;
+		}
+
+		fusionEngine.processBatch(sensorBatch);
+		long lastTimestampNs = sensorBatch.getLastTimestamp();
+		sensorBatch.clear();
+		publish(lastTimestampNs);
+
+		long now = SystemClock.elapsedRealtimeNanos();
+		batchStatistics.record(size, now);
+		if (now - lastStatisticsLogNs > STATISTICS_LOG_INTERVAL_NS) {
+			lastStatisticsLogNs = now;
+			Log.d(TAG, batchStatistics.toString());
+		}
+	}
+
+	private void publish(long timestampNs) {
+		double distanceMeters = fusionEngine.getDistanceMeters();
+		statePublisher.publish(timestampNs, fusionEngine.getSpeedMps(), fusionEngine.getAccelerationMps2(), distanceMeters);
+
+		if (journaling && timestampNs != 0) {
+			// the journal thread picks up the latest total, at most one update is queued
+			journalMeters = distanceMeters;
+			if (journalUpdatePosted.compareAndSet(false, true)) {
+				journalHandler.post(updateOdometerJournal);
+			}
+		}
+	}
+}
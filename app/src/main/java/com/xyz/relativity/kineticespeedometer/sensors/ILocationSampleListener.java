@@ -0,0 +1,10 @@
+package com.xyz.relativity.kineticespeedometer.sensors;
+
+import com.xyz.relativity.kineticespeedometer.core.LocationSample;
+
+/**
+ * Allocation free alternative to {@link ILocationListener}. The sample is reused after the call returns.
+ */
+public interface ILocationSampleListener {
+	void onLocationSample(LocationSample sample);
+}
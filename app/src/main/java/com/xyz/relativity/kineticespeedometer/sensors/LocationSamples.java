@@ -0,0 +1,76 @@
+package com.xyz.relativity.kineticespeedometer.sensors;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import com.xyz.relativity.kineticespeedometer.core.LocationSample;
+
+/**
+ * Conversions between {@link Location} and {@link LocationSample}.
+ */
+public final class LocationSamples {
+	private static final String FUSED_PROVIDER = "fused";
+
+	private LocationSamples() {
+	}
+
+	public static int providerId(String provider) {
+		if (LocationManager.GPS_PROVIDER.equals(provider)) {
+			return LocationSample.PROVIDER_GPS;
+		}
+		if (LocationManager.NETWORK_PROVIDER.equals(provider)) {
+			return LocationSample.PROVIDER_NETWORK;
+		}
+		if (FUSED_PROVIDER.equals(provider)) {
+			return LocationSample.PROVIDER_FUSED;
+		}
+		if (LocationManager.PASSIVE_PROVIDER.equals(provider)) {
+			return LocationSample.PROVIDER_PASSIVE;
+		}
+		return LocationSample.PROVIDER_UNKNOWN;
+	}
+
+	public static String providerName(int providerId) {
+		switch (providerId) {
+			case LocationSample.PROVIDER_GPS:
+				return LocationManager.GPS_PROVIDER;
+			case LocationSample.PROVIDER_NETWORK:
+				return LocationManager.NETWORK_PROVIDER;
+			case LocationSample.PROVIDER_FUSED:
+				return FUSED_PROVIDER;
+			case LocationSample.PROVIDER_PASSIVE:
+				return LocationManager.PASSIVE_PROVIDER;
+			default:
+				return "unknown";
+		}
+	}
+
+	/**
+	 * Copy a framework fix into a pooled sample without allocating.
+	 */
+	public static void set(LocationSample out, Location location) {
+		out.set(providerId(location.getProvider()), location.getElapsedRealtimeNanos(),
+				location.getLatitude(), location.getLongitude(),
+				location.hasSpeed(), location.getSpeed(),
+				location.hasBearing(), location.getBearing(),
+				location.getAccuracy());
+	}
+
+	/**
+	 * Fill a reused {@link Location} for listeners that still use the framework type.
+	 */
+	public static void toLocation(LocationSample sample, Location out) {
+		out.reset();
+		out.setProvider(providerName(sample.providerId));
+		out.setElapsedRealtimeNanos(sample.elapsedRealtimeNanos);
+		out.setLatitude(sample.latitude);
+		out.setLongitude(sample.longitude);
+		if (sample.hasSpeed) {
+			out.setSpeed(sample.speedMps);
+		}
+		if (sample.hasBearing) {
+			out.setBearing(sample.bearingDegrees);
+		}
+		out.setAccuracy(sample.accuracyMeters);
+	}
+}
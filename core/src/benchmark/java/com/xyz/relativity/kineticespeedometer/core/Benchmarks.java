@@ -0,0 +1,33 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Throughput benchmarks of the core module, run with {@code ./gradlew :core:benchmark}.
+ * <p>
+ * They only report, nothing is asserted: timings depend on the machine, the unit tests check behavior.
+ */
+public final class Benchmarks {
+	private Benchmarks() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		FusionBenchmark.run();
+		EstimatorBenchmark.run();
+		ReplayBenchmark.run();
+	}
+
+	/**
+	 * @return nanoseconds per operation of the fastest of a few timed rounds, after warming up
+	 */
+	static double nanosPerOperation(Runnable round, long operationsPerRound) {
+		for (int i = 0; i < 20; i++) {
+			round.run();
+		}
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < 10; i++) {
+			long start = System.nanoTime();
+			round.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best / (double) operationsPerRound;
+	}
+}
@@ -0,0 +1,47 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Cost per sensor update of each estimator, on two minutes of noisy acceleration at game rate with
+ * 1 Hz GPS. Their accuracy is checked by {@code EstimatorAccuracyTest}.
+ */
+final class EstimatorBenchmark {
+	private static final long SENSOR_PERIOD_NS = 20_000_000L;
+	private static final int SENSOR_PER_GPS = 50;
+	private static final int SAMPLES = 50 * 120;
+
+	private EstimatorBenchmark() {
+	}
+
+	static void run() {
+		final float[] accel = new float[SAMPLES];
+		final float[] gpsSpeed = new float[SAMPLES];
+		Random random = new Random(42);
+		for (int i = 0; i < SAMPLES; i++) {
+			float phase = i * 0.01f;
+			accel[i] = 0.5f * (float) Math.sin(phase) + 0.15f + 0.3f * (float) random.nextGaussian();
+			gpsSpeed[i] = Math.max(0, 15f + 5f * (float) Math.sin(phase) + 0.3f * (float) random.nextGaussian());
+		}
+
+		for (EstimatorMode mode : EstimatorMode.values()) {
+			final SpeedFusionEngine engine = new SpeedFusionEngine(mode);
+			double nanos = Benchmarks.nanosPerOperation(new Runnable() {
+				@Override
+				public void run() {
+					engine.reset();
+					engine.onRotationVector(0f, 0f, 0f, 1f);
+					long t = SENSOR_PERIOD_NS;
+					for (int i = 0; i < SAMPLES; i++, t += SENSOR_PERIOD_NS) {
+						if (i % SENSOR_PER_GPS == 0) {
+							engine.onGpsFix(t, 0, 0, true, gpsSpeed[i], true, 0f, 4f);
+						}
+						engine.onLinearAcceleration(t, 0f, accel[i], 0f);
+					}
+				}
+			}, SAMPLES);
+			System.out.printf(Locale.US, "%s estimator: %.1f ns/update%n", mode, nanos);
+		}
+	}
+}
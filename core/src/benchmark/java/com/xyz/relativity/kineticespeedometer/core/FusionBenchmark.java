@@ -0,0 +1,76 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import java.util.Locale;
+
+/**
+ * Raw engine throughput in events per second, event by event and in sensor batches, on a synthetic
+ * drive: rotation vector and linear acceleration at game rate, GPS at 4 Hz.
+ */
+final class FusionBenchmark {
+	private static final long SENSOR_PERIOD_NS = 20_000_000L;
+	private static final long GPS_PERIOD_NS = 250_000_000L;
+	private static final int EVENTS = 1_000_000;
+	private static final int BATCH_CAPACITY = 512;
+
+	private FusionBenchmark() {
+	}
+
+	static void run() {
+		for (EstimatorMode mode : EstimatorMode.values()) {
+			final SpeedFusionEngine engine = new SpeedFusionEngine(mode);
+			double direct = Benchmarks.nanosPerOperation(new Runnable() {
+				@Override
+				public void run() {
+					engine.reset();
+					drive(engine, null);
+				}
+			}, EVENTS);
+			final SensorBatch batch = new SensorBatch(BATCH_CAPACITY);
+			double batched = Benchmarks.nanosPerOperation(new Runnable() {
+				@Override
+				public void run() {
+					engine.reset();
+					drive(engine, batch);
+				}
+			}, EVENTS);
+			System.out.printf(Locale.US, "%s engine: %.0f events/s, batched %.0f events/s%n",
+					mode, 1e9 / direct, 1e9 / batched);
+		}
+	}
+
+	/**
+	 * @param batch collects the sensor events when not null, GPS fixes go to the engine directly
+	 */
+	private static void drive(SpeedFusionEngine engine, SensorBatch batch) {
+		long t = 1;
+		long nextGps = 0;
+		for (int i = 0; i < EVENTS; i++, t += SENSOR_PERIOD_NS) {
+			float phase = i * 0.01f;
+			boolean rotation = (i & 1) == 0;
+			float z = rotation ? 0.1f * (float) Math.sin(phase) : 0.05f;
+			float y = rotation ? 0f : (float) Math.sin(phase);
+			if (batch == null) {
+				if (rotation) {
+					engine.onRotationVector(0f, 0f, z, SpeedFusionEngine.NO_SCALAR);
+				} else {
+					engine.onLinearAcceleration(t, 0.2f, y, z);
+				}
+			} else {
+				batch.add(rotation ? SensorBatch.TYPE_ROTATION_VECTOR : SensorBatch.TYPE_LINEAR_ACCELERATION, t,
+						rotation ? 0f : 0.2f, y, z, SpeedFusionEngine.NO_SCALAR);
+				if (batch.isFull()) {
+					engine.processBatch(batch);
+					batch.clear();
+				}
+			}
+			if (t >= nextGps) {
+				engine.onGpsFix(t, 0, 0, true, 15f + 5f * (float) Math.sin(phase), true, 10f, 4f);
+				nextGps += GPS_PERIOD_NS;
+			}
+		}
+		if (batch != null) {
+			engine.processBatch(batch);
+			batch.clear();
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Replay throughput of a recorded log, file reading included, for each estimator. The determinism of
+ * the replay is checked by {@code SensorLogReplayTest}.
+ */
+final class ReplayBenchmark {
+	private static final long SENSOR_PERIOD_NS = 20_000_000L;
+	private static final int SENSOR_PERIODS = 1_000_000;
+	private static final int ROUNDS = 5;
+
+	private ReplayBenchmark() {
+	}
+
+	static void run() throws IOException {
+		File log = File.createTempFile("benchmark", ".kesl");
+		try {
+			record(log);
+			for (EstimatorMode mode : EstimatorMode.values()) {
+				SensorLogReplay replay = new SensorLogReplay(new SpeedFusionEngine(mode));
+				// warm up, then report the fastest round
+				SensorLogReplay.Result best = replay.replay(log);
+				for (int i = 0; i < ROUNDS; i++) {
+					SensorLogReplay.Result result = replay.replay(log);
+					if (result.elapsedNs < best.elapsedNs) {
+						best = result;
+					}
+				}
+				System.out.println(mode + " replay: " + best);
+			}
+		} finally {
+			log.delete();
+		}
+	}
+
+	private static void record(File log) throws IOException {
+		try (SensorLogWriter writer = new SensorLogWriter(log)) {
+			long t = SENSOR_PERIOD_NS;
+			for (int i = 0; i < SENSOR_PERIODS; i++, t += SENSOR_PERIOD_NS) {
+				float phase = i * 0.001f;
+				writer.writeRotationVector(t - 1, 0f, 0f, 0.05f * (float) Math.sin(phase), SpeedFusionEngine.NO_SCALAR);
+				writer.writeLinearAcceleration(t, 0.1f, 1.5f * (float) Math.sin(phase * 3), 0.02f);
+				if (i % 50 == 0) {
+					writer.writeGps(t, 47 + i * 1e-6, 8 + i * 1e-6, true, 15f + 10f * (float) Math.sin(phase * 3), true, 5f, 4f);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Counters of achieved sensor batch sizes and delivery rate. Written by the sensor thread only.
+ */
+public class BatchStatistics {
+	private long batches = 0;
+	private long events = 0;
+	private int minBatchSize = Integer.MAX_VALUE;
+	private int maxBatchSize = 0;
+	private int lastBatchSize = 0;
+	private long firstBatchNs = 0;
+	private long lastBatchNs = 0;
+
+	/**
+	 * @param batchSize number of events delivered together
+	 * @param nowNs     delivery time (elapsed realtime nanoseconds)
+	 */
+	public void record(int batchSize, long nowNs) {
+		if (batches == 0) {
+			firstBatchNs = nowNs;
+		}
+		batches++;
+		events += batchSize;
+		lastBatchSize = batchSize;
+		lastBatchNs = nowNs;
+		if (batchSize < minBatchSize) minBatchSize = batchSize;
+		if (batchSize > maxBatchSize) maxBatchSize = batchSize;
+	}
+
+	public void reset() {
+		batches = 0;
+		events = 0;
+		minBatchSize = Integer.MAX_VALUE;
+		maxBatchSize = 0;
+		lastBatchSize = 0;
+		firstBatchNs = 0;
+		lastBatchNs = 0;
+	}
+
+	public long getBatchCount() {
+		return batches;
+	}
+
+	public long getEventCount() {
+		return events;
+	}
+
+	public int getMinBatchSize() {
+		return batches == 0 ? 0 : minBatchSize;
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	public int getLastBatchSize() {
+		return lastBatchSize;
+	}
+
+	public float getAverageBatchSize() {
+		return batches == 0 ? 0 : (float) events / batches;
+	}
+
+	/**
+	 * @return batch deliveries (CPU wake ups) per second since the first recorded batch
+	 */
+	public float getBatchesPerSecond() {
+		long elapsedNs = lastBatchNs - firstBatchNs;
+		return elapsedNs <= 0 ? 0 : (batches - 1) * 1e9f / elapsedNs;
+	}
+
+	@Override
+	public String toString() {
+		return "batches: " + batches
+				+ " events: " + events
+				+ " size min/avg/max: " + getMinBatchSize() + "/" + getAverageBatchSize() + "/" + maxBatchSize
+				+ " batches/s: " + getBatchesPerSecond();
+	}
+}
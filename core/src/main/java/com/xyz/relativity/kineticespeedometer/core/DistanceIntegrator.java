@@ -0,0 +1,121 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Integrates travelled distance from speed samples at their own timestamps.
+ * <p>
+ * Trapezoidal integration, accumulated with Kahan compensated summation so that millions of tiny steps
+ * added to a large odometer total lose no precision. Independently, the great-circle distance between
+ * consecutive GPS positions is accumulated for diagnostics; it never corrects the integrated distance.
+ */
+public class DistanceIntegrator {
+	private static final double NANOS_PER_SECOND = 1e9;
+	private static final long MAX_GAP_NS = 2_000_000_000L;
+	private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+	/**
+	 * GPS positions closer than their accuracy are jitter, not movement.
+	 */
+	private static final double MIN_GPS_STEP_ACCURACY_RATIO = 1.0;
+
+	private double meters = 0;
+	private double compensation = 0;
+	private long lastTimestampNs = 0;
+	private float lastSpeedMps = 0;
+
+	private double gpsMeters = 0;
+	private double gpsCompensation = 0;
+	private boolean hasGpsPosition = false;
+	private double lastLatitude;
+	private double lastLongitude;
+
+	/**
+	 * Add the distance since the previous speed sample. Samples older than the previous one and gaps
+	 * longer than two seconds are not integrated.
+	 */
+	public void onSpeed(long timestampNs, float speedMps) {
+		if (timestampNs <= lastTimestampNs) {
+			return;
+		}
+		long dtNs = timestampNs - lastTimestampNs;
+		if (lastTimestampNs != 0 && dtNs < MAX_GAP_NS) {
+			double step = (lastSpeedMps + speedMps) * 0.5 * (dtNs / NANOS_PER_SECOND);
+			double y = step - compensation;
+			double t = meters + y;
+			compensation = (t - meters) - y;
+			meters = t;
+		}
+		lastTimestampNs = timestampNs;
+		lastSpeedMps = speedMps;
+	}
+
+	/**
+	 * Add the great-circle distance from the previous accepted GPS position.
+	 */
+	public void onGpsPosition(double latitude, double longitude, float accuracyMeters) {
+		if (!hasGpsPosition) {
+			hasGpsPosition = true;
+			lastLatitude = latitude;
+			lastLongitude = longitude;
+			return;
+		}
+
+		double step = greatCircleMeters(lastLatitude, lastLongitude, latitude, longitude);
+		if (step < accuracyMeters * MIN_GPS_STEP_ACCURACY_RATIO) {
+			return;
+		}
+		double y = step - gpsCompensation;
+		double t = gpsMeters + y;
+		gpsCompensation = (t - gpsMeters) - y;
+		gpsMeters = t;
+		lastLatitude = latitude;
+		lastLongitude = longitude;
+	}
+
+	/**
+	 * Start from a known total, e.g. a stored odometer.
+	 */
+	public void setMeters(double meters) {
+		this.meters = meters;
+		this.compensation = 0;
+	}
+
+	public double getMeters() {
+		return meters;
+	}
+
+	/**
+	 * @return distance along the GPS positions since the last {@link #reset()}
+	 */
+	public double getGpsMeters() {
+		return gpsMeters;
+	}
+
+	/**
+	 * Do not integrate up to the next speed sample, keeping the totals.
+	 */
+	public void restart() {
+		lastTimestampNs = 0;
+		lastSpeedMps = 0;
+	}
+
+	public void reset() {
+		meters = 0;
+		compensation = 0;
+		lastTimestampNs = 0;
+		lastSpeedMps = 0;
+		gpsMeters = 0;
+		gpsCompensation = 0;
+		hasGpsPosition = false;
+	}
+
+	/**
+	 * Haversine distance.
+	 */
+	public static double greatCircleMeters(double latitude1, double longitude1, double latitude2, double longitude2) {
+		double phi1 = Math.toRadians(latitude1);
+		double phi2 = Math.toRadians(latitude2);
+		double sinHalfDPhi = Math.sin((phi2 - phi1) * 0.5);
+		double sinHalfDLambda = Math.sin(Math.toRadians(longitude2 - longitude1) * 0.5);
+		double a = sinHalfDPhi * sinHalfDPhi + Math.cos(phi1) * Math.cos(phi2) * sinHalfDLambda * sinHalfDLambda;
+		return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+	}
+}
@@ -0,0 +1,15 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Speed estimator used by {@link SpeedFusionEngine}.
+ */
+public enum EstimatorMode {
+	/**
+	 * Exponential blend towards the GPS speed with raw dead reckoning in between fixes.
+	 */
+	COMPLEMENTARY,
+	/**
+	 * {@link KalmanSpeedFilter} over speed and accelerometer bias with GPS outlier gating.
+	 */
+	KALMAN
+}
@@ -0,0 +1,181 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Formats numbers and times into a preallocated char buffer, the allocation free counterpart of
+ * {@code String.format("%.1f")}, {@code "%011.2f"} and {@code "HH:mm:ss"} for per frame UI text.
+ * <p>
+ * The formatter is itself the {@link CharSequence} of its content, valid until the next {@link #clear()}.
+ * Only {@link #toString()} and {@link #subSequence(int, int)} allocate.
+ * <p>
+ * Values are rounded half up from their binary value, so a tie like 1.005 may round differently than
+ * {@code String.format}, and a negative value that rounds to zero loses its sign. The magnitude must
+ * stay below 1e18 / 10^decimals.
+ */
+public final class FixedPointFormatter implements CharSequence {
+	public static final int MAX_DECIMALS = 9;
+	private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+	private static final String NAN = "NaN";
+	private static final String INFINITY = "Infinity";
+	private static final long[] POW10 = new long[19];
+
+	static {
+		POW10[0] = 1;
+		for (int i = 1; i < POW10.length; i++) {
+			POW10[i] = POW10[i - 1] * 10;
+		}
+	}
+
+	private final char[] chars;
+	private final char decimalSeparator;
+	private int length = 0;
+
+	public FixedPointFormatter(int capacity) {
+		this(capacity, '.');
+	}
+
+	/**
+	 * @param decimalSeparator e.g. {@code DecimalFormatSymbols.getInstance().getDecimalSeparator()}
+	 */
+	public FixedPointFormatter(int capacity, char decimalSeparator) {
+		chars = new char[capacity];
+		this.decimalSeparator = decimalSeparator;
+	}
+
+	public FixedPointFormatter clear() {
+		length = 0;
+		return this;
+	}
+
+	/**
+	 * Like {@code %.<decimals>f}.
+	 */
+	public FixedPointFormatter append(double value, int decimals) {
+		return append(value, 0, decimals);
+	}
+
+	/**
+	 * Like {@code %0<width>.<decimals>f}: the integer digits are zero padded until the whole number,
+	 * sign and separator included, is {@code width} chars long.
+	 */
+	public FixedPointFormatter append(double value, int width, int decimals) {
+		if (decimals < 0 || decimals > MAX_DECIMALS) {
+			throw new IllegalArgumentException("decimals out of range: " + decimals);
+		}
+		if (Double.isNaN(value)) {
+			return append(NAN);
+		}
+		if (Double.isInfinite(value)) {
+			if (value < 0) {
+				append('-');
+			}
+			return append(INFINITY);
+		}
+
+		long scaled = Math.round(Math.abs(value) * POW10[decimals]);
+		long integer = scaled / POW10[decimals];
+		long fraction = scaled % POW10[decimals];
+		boolean negative = value < 0 && scaled != 0;
+
+		int integerDigits = digits(integer);
+		int numberLength = (negative ? 1 : 0) + integerDigits + (decimals > 0 ? decimals + 1 : 0);
+		int padding = Math.max(0, width - numberLength);
+		ensure(numberLength + padding);
+
+		if (negative) {
+			chars[length++] = '-';
+		}
+		for (int i = 0; i < padding; i++) {
+			chars[length++] = '0';
+		}
+		writeDigits(integer, integerDigits);
+		if (decimals > 0) {
+			chars[length++] = decimalSeparator;
+			writeDigits(fraction, decimals);
+		}
+		return this;
+	}
+
+	/**
+	 * Append the time of day as {@code HH:mm:ss}.
+	 *
+	 * @param localMillis epoch milliseconds plus the offset of the time zone
+	 */
+	public FixedPointFormatter appendTimeOfDay(long localMillis) {
+		long millisOfDay = localMillis % DAY_MS;
+		long seconds = (millisOfDay < 0 ? millisOfDay + DAY_MS : millisOfDay) / 1000;
+		ensure(8);
+		writeDigits(seconds / 3600, 2);
+		chars[length++] = ':';
+		writeDigits(seconds / 60 % 60, 2);
+		chars[length++] = ':';
+		writeDigits(seconds % 60, 2);
+		return this;
+	}
+
+	public FixedPointFormatter append(char c) {
+		ensure(1);
+		chars[length++] = c;
+		return this;
+	}
+
+	public FixedPointFormatter append(CharSequence text) {
+		int count = text.length();
+		ensure(count);
+		for (int i = 0; i < count; i++) {
+			chars[length++] = text.charAt(i);
+		}
+		return this;
+	}
+
+	/**
+	 * @return the backing buffer, valid from 0 to {@link #length()}
+	 */
+	public char[] getChars() {
+		return chars;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+		}
+		return chars[index];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return new String(chars, start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		return new String(chars, 0, length);
+	}
+
+	private static int digits(long value) {
+		int digits = 1;
+		while (digits < POW10.length && value >= POW10[digits]) {
+			digits++;
+		}
+		return digits;
+	}
+
+	private void writeDigits(long value, int count) {
+		for (int i = length + count - 1; i >= length; i--) {
+			chars[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+		length += count;
+	}
+
+	private void ensure(int count) {
+		if (length + count > chars.length) {
+			throw new IndexOutOfBoundsException("capacity " + chars.length + " exceeded");
+		}
+	}
+}
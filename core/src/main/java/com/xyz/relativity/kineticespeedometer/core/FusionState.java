@@ -0,0 +1,19 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Plain copy of the fused values, filled by {@link FusionStatePublisher#read(FusionState)}.
+ * Reused by the reader, so it is mutable and not thread safe.
+ */
+public final class FusionState {
+	public long timestampNs;
+	public float speedMps;
+	public float accelerationMps2;
+	public double distanceMeters;
+
+	void set(long timestampNs, float speedMps, float accelerationMps2, double distanceMeters) {
+		this.timestampNs = timestampNs;
+		this.speedMps = speedMps;
+		this.accelerationMps2 = accelerationMps2;
+		this.distanceMeters = distanceMeters;
+	}
+}
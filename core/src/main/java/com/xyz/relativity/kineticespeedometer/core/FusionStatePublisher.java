@@ -0,0 +1,44 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Lock-free hand off of the fused state from the single sensor thread to any number of readers.
+ * <p>
+ * Sequence lock: the writer makes the sequence odd while it updates the values and even again when
+ * done, a reader retries until it saw the same even sequence before and after copying the values.
+ * The writer never waits and neither side allocates.
+ */
+public class FusionStatePublisher {
+	private volatile int sequence = 0;
+	private volatile long timestampNs;
+	private volatile float speedMps;
+	private volatile float accelerationMps2;
+	private volatile double distanceMeters;
+
+	/**
+	 * Publish new values. Must only be called from one thread.
+	 */
+	public void publish(long timestampNs, float speedMps, float accelerationMps2, double distanceMeters) {
+		int seq = sequence;
+		sequence = seq + 1;
+		this.timestampNs = timestampNs;
+		this.speedMps = speedMps;
+		this.accelerationMps2 = accelerationMps2;
+		this.distanceMeters = distanceMeters;
+		sequence = seq + 2;
+	}
+
+	/**
+	 * Copy a consistent set of the latest published values.
+	 *
+	 * @param out destination
+	 */
+	public void read(FusionState out) {
+		int before;
+		int after;
+		do {
+			before = sequence;
+			out.set(timestampNs, speedMps, accelerationMps2, distanceMeters);
+			after = sequence;
+		} while ((before & 1) != 0 || before != after);
+	}
+}
@@ -0,0 +1,355 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Multi resolution history of several series sharing one x axis.
+ * <p>
+ * Level 0 holds the raw samples. Every bucket of level k + 1 summarizes {@code fanout} buckets of level
+ * k with the minimum and maximum (each with its own x) and the average of every series. Every level is
+ * a ring of {@code levelCapacity} buckets, so memory is fixed while coarse levels reach back
+ * {@code levelCapacity * fanout^k} samples. For a visible x range, {@link #selectLevel} picks the
+ * finest level that still covers it with a bounded number of buckets, so the number of points handed
+ * to the chart does not grow with the length of the history.
+ */
+public class HistoryPyramid {
+	public static final int DEFAULT_FANOUT = 4;
+
+	private final int seriesCount;
+	private final int levelCapacity;
+	private final int levelCount;
+	private final int fanout;
+
+	// rings, indexed [level][slot] and [level][series * levelCapacity + slot]
+	private final float[][] bucketX;
+	private final float[][] min;
+	private final float[][] max;
+	private final float[][] minX;
+	private final float[][] maxX;
+	private final float[][] average;
+	private final int[] head;
+	private final int[] size;
+	private final boolean[] evicted;
+
+	// partial bucket being built for each level, indexed [level] and [level][series]
+	private final int[] partialCount;
+	private final float[] partialX;
+	private final float[][] partialMin;
+	private final float[][] partialMax;
+	private final float[][] partialMinX;
+	private final float[][] partialMaxX;
+	private final double[][] partialSum;
+
+	private long sampleCount = 0;
+	private float firstX;
+	private float lastX;
+
+	public HistoryPyramid(int seriesCount, int levelCapacity, int levelCount) {
+		this(seriesCount, levelCapacity, levelCount, DEFAULT_FANOUT);
+	}
+
+	public HistoryPyramid(int seriesCount, int levelCapacity, int levelCount, int fanout) {
+		if (seriesCount <= 0 || levelCapacity <= 0 || levelCount <= 0 || fanout < 2) {
+			throw new IllegalArgumentException("invalid pyramid shape");
+		}
+		this.seriesCount = seriesCount;
+		this.levelCapacity = levelCapacity;
+		this.levelCount = levelCount;
+		this.fanout = fanout;
+
+		bucketX = new float[levelCount][levelCapacity];
+		min = new float[levelCount][seriesCount * levelCapacity];
+		max = new float[levelCount][seriesCount * levelCapacity];
+		minX = new float[levelCount][seriesCount * levelCapacity];
+		maxX = new float[levelCount][seriesCount * levelCapacity];
+		average = new float[levelCount][seriesCount * levelCapacity];
+		head = new int[levelCount];
+		size = new int[levelCount];
+		evicted = new boolean[levelCount];
+
+		partialCount = new int[levelCount];
+		partialX = new float[levelCount];
+		partialMin = new float[levelCount][seriesCount];
+		partialMax = new float[levelCount][seriesCount];
+		partialMinX = new float[levelCount][seriesCount];
+		partialMaxX = new float[levelCount][seriesCount];
+		partialSum = new double[levelCount][seriesCount];
+	}
+
+	public int getSeriesCount() {
+		return seriesCount;
+	}
+
+	public int getLevelCount() {
+		return levelCount;
+	}
+
+	public int getLevelCapacity() {
+		return levelCapacity;
+	}
+
+	/**
+	 * @return number of raw samples summarized by one bucket of the level
+	 */
+	public long getSamplesPerBucket(int level) {
+		long samples = 1;
+		for (int i = 0; i < level; i++) {
+			samples *= fanout;
+		}
+		return samples;
+	}
+
+	public long getSampleCount() {
+		return sampleCount;
+	}
+
+	public float getFirstX() {
+		return firstX;
+	}
+
+	public float getLastX() {
+		return lastX;
+	}
+
+	/**
+	 * @return number of raw samples still held by level 0, the newest {@code levelCapacity} at most
+	 */
+	public int getRawCount() {
+		return size[0];
+	}
+
+	/**
+	 * @param index 0 for the oldest raw sample still held
+	 */
+	public float getRawX(int index) {
+		return bucketX[0][slot(0, index)];
+	}
+
+	public float getRawValue(int series, int index) {
+		return average[0][series * levelCapacity + slot(0, index)];
+	}
+
+	/**
+	 * Append one sample of every series. x must not decrease.
+	 *
+	 * @param values one value per series, not kept
+	 */
+	public void add(float x, float[] values) {
+		if (sampleCount == 0) {
+			firstX = x;
+		}
+		lastX = x;
+		sampleCount++;
+
+		int slot = push(0, x);
+		for (int s = 0; s < seriesCount; s++) {
+			int i = s * levelCapacity + slot;
+			min[0][i] = values[s];
+			max[0][i] = values[s];
+			minX[0][i] = x;
+			maxX[0][i] = x;
+			average[0][i] = values[s];
+		}
+		propagate(0, slot);
+	}
+
+	/**
+	 * Fold a completed bucket of a level into the partial bucket of the next one.
+	 */
+	private void propagate(int level, int slot) {
+		int parent = level + 1;
+		if (parent >= levelCount) {
+			return;
+		}
+
+		boolean first = partialCount[parent] == 0;
+		if (first) {
+			partialX[parent] = bucketX[level][slot];
+		}
+		for (int s = 0; s < seriesCount; s++) {
+			int i = s * levelCapacity + slot;
+			if (first || min[level][i] < partialMin[parent][s]) {
+				partialMin[parent][s] = min[level][i];
+				partialMinX[parent][s] = minX[level][i];
+			}
+			if (first || max[level][i] > partialMax[parent][s]) {
+				partialMax[parent][s] = max[level][i];
+				partialMaxX[parent][s] = maxX[level][i];
+			}
+			partialSum[parent][s] = first ? average[level][i] : partialSum[parent][s] + average[level][i];
+		}
+
+		if (++partialCount[parent] < fanout) {
+			return;
+		}
+		int parentSlot = push(parent, partialX[parent]);
+		for (int s = 0; s < seriesCount; s++) {
+			int i = s * levelCapacity + parentSlot;
+			min[parent][i] = partialMin[parent][s];
+			max[parent][i] = partialMax[parent][s];
+			minX[parent][i] = partialMinX[parent][s];
+			maxX[parent][i] = partialMaxX[parent][s];
+			average[parent][i] = (float) (partialSum[parent][s] / fanout);
+		}
+		partialCount[parent] = 0;
+		propagate(parent, parentSlot);
+	}
+
+	private int push(int level, float x) {
+		int slot = head[level] + size[level];
+		if (slot >= levelCapacity) {
+			slot -= levelCapacity;
+		}
+		if (size[level] < levelCapacity) {
+			size[level]++;
+		} else {
+			head[level] = head[level] + 1 == levelCapacity ? 0 : head[level] + 1;
+			evicted[level] = true;
+		}
+		bucketX[level][slot] = x;
+		return slot;
+	}
+
+	private int slot(int level, int index) {
+		int slot = head[level] + index;
+		return slot >= levelCapacity ? slot - levelCapacity : slot;
+	}
+
+	/**
+	 * @return index of the last complete bucket of the level starting at or before x, -1 if none
+	 */
+	private int floorBucket(int level, float x) {
+		int low = 0;
+		int high = size[level] - 1;
+		int result = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (bucketX[level][slot(level, mid)] <= x) {
+				result = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return true if the level still holds the data from the given x onwards
+	 */
+	private boolean covers(int level, float fromX) {
+		if (!evicted[level]) {
+			return true;
+		}
+		return size[level] > 0 && bucketX[level][head[level]] <= fromX;
+	}
+
+	/**
+	 * Number of buckets of the level in the range, including the partial one.
+	 */
+	private int countBuckets(int level, float fromX, float toX) {
+		int from = Math.max(0, floorBucket(level, fromX));
+		int to = floorBucket(level, toX);
+		int count = to < from ? 0 : to - from + 1;
+		if (partialCount[level] > 0 && partialX[level] <= toX) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @return the finest level that covers the range with at most maxBuckets buckets, or the coarsest
+	 */
+	public int selectLevel(float fromX, float toX, int maxBuckets) {
+		for (int level = 0; level < levelCount; level++) {
+			if (covers(level, fromX) && countBuckets(level, fromX, toX) <= maxBuckets) {
+				return level;
+			}
+		}
+		return levelCount - 1;
+	}
+
+	/**
+	 * Append the points of a series at one level whose x lies in [fromX, toX] to the output, in x order.
+	 *
+	 * @param extremes true for the minimum and the maximum of each bucket at their own x, false for the
+	 *                 bucket average at the bucket start
+	 */
+	public void emit(int level, int series, float fromX, float toX, boolean extremes, SampleRing out) {
+		int start = Math.max(0, floorBucket(level, fromX));
+		for (int index = start; index < size[level]; index++) {
+			int slot = slot(level, index);
+			if (bucketX[level][slot] > toX) {
+				return;
+			}
+			int i = series * levelCapacity + slot;
+			if (extremes) {
+				emitExtremes(minX[level][i], min[level][i], maxX[level][i], max[level][i], fromX, toX, out);
+			} else {
+				emitPoint(bucketX[level][slot], average[level][i], fromX, toX, out);
+			}
+		}
+
+		// the newest samples are still in the partial buckets, each one newer than the coarser one
+		for (int partial = level; partial > 0; partial--) {
+			int count = partialCount[partial];
+			if (count == 0) {
+				continue;
+			}
+			if (extremes) {
+				emitExtremes(partialMinX[partial][series], partialMin[partial][series],
+						partialMaxX[partial][series], partialMax[partial][series], fromX, toX, out);
+			} else {
+				emitPoint(partialX[partial], (float) (partialSum[partial][series] / count), fromX, toX, out);
+			}
+		}
+	}
+
+	private static void emitExtremes(float x1, float y1, float x2, float y2, float fromX, float toX, SampleRing out) {
+		if (x1 == x2) {
+			emitPoint(x1, y1, fromX, toX, out);
+		} else if (x1 < x2) {
+			emitPoint(x1, y1, fromX, toX, out);
+			emitPoint(x2, y2, fromX, toX, out);
+		} else {
+			emitPoint(x2, y2, fromX, toX, out);
+			emitPoint(x1, y1, fromX, toX, out);
+		}
+	}
+
+	private static void emitPoint(float x, float y, float fromX, float toX, SampleRing out) {
+		if (x >= fromX && x <= toX) {
+			out.add(x, y);
+		}
+	}
+
+	/**
+	 * Fill the output with a series for a chart showing [fromX, toX]: the visible range at the level
+	 * chosen by {@link #selectLevel}, the rest of the history at the level that fits the whole history
+	 * into maxBuckets. The output needs room for about {@code 4 * maxBuckets} points.
+	 */
+	public void fill(int series, float fromX, float toX, int maxBuckets, boolean extremes, SampleRing out) {
+		out.clear();
+		if (sampleCount == 0) {
+			return;
+		}
+		int visibleLevel = selectLevel(fromX, toX, maxBuckets);
+		int overviewLevel = Math.max(visibleLevel, selectLevel(firstX, lastX, maxBuckets));
+
+		float beforeFrom = Math.nextAfter(fromX, Double.NEGATIVE_INFINITY);
+		float afterTo = Math.nextAfter(toX, Double.POSITIVE_INFINITY);
+		emit(overviewLevel, series, -Float.MAX_VALUE, beforeFrom, extremes, out);
+		emit(visibleLevel, series, fromX, toX, extremes, out);
+		emit(overviewLevel, series, afterTo, Float.MAX_VALUE, extremes, out);
+	}
+
+	public void clear() {
+		for (int level = 0; level < levelCount; level++) {
+			head[level] = 0;
+			size[level] = 0;
+			evicted[level] = false;
+			partialCount[level] = 0;
+		}
+		sampleCount = 0;
+		firstX = 0;
+		lastX = 0;
+	}
+}
@@ -0,0 +1,77 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Compact binary snapshot of the raw samples of a {@link HistoryPyramid}, e.g. for the saved instance
+ * state.
+ * <p>
+ * Little endian: magic, version, series count, sample count (all int), then the x values and the
+ * values of every series as float arrays. Only level 0 is stored; restoring re-adds the samples in one
+ * pass, which rebuilds the coarser levels for the restored range.
+ */
+public final class HistorySnapshot {
+	public static final int MAGIC = 0x5348454B; // "KEHS" little endian
+	public static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+
+	private HistorySnapshot() {
+	}
+
+	public static byte[] write(HistoryPyramid pyramid) {
+		int series = pyramid.getSeriesCount();
+		int count = pyramid.getRawCount();
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 * count * (series + 1)).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putInt(series);
+		buffer.putInt(count);
+		for (int i = 0; i < count; i++) {
+			buffer.putFloat(pyramid.getRawX(i));
+		}
+		for (int s = 0; s < series; s++) {
+			for (int i = 0; i < count; i++) {
+				buffer.putFloat(pyramid.getRawValue(s, i));
+			}
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Replace the content of the pyramid with a snapshot.
+	 *
+	 * @return false if the snapshot is not readable by this version or does not match the pyramid,
+	 * the pyramid is left untouched then
+	 */
+	public static boolean read(byte[] snapshot, HistoryPyramid pyramid) {
+		if (snapshot == null) {
+			return false;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(snapshot).order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				return false;
+			}
+			int series = buffer.getInt();
+			int count = buffer.getInt();
+			if (series != pyramid.getSeriesCount() || count < 0 || buffer.remaining() != 4L * count * (series + 1)) {
+				return false;
+			}
+
+			int xOffset = buffer.position();
+			float[] values = new float[series];
+			pyramid.clear();
+			for (int i = 0; i < count; i++) {
+				for (int s = 0; s < series; s++) {
+					values[s] = buffer.getFloat(xOffset + 4 * (count * (s + 1) + i));
+				}
+				pyramid.add(buffer.getFloat(xOffset + 4 * i), values);
+			}
+			return true;
+		} catch (BufferUnderflowException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Two state Kalman filter for along-track speed.
+ * <p>
+ * State is {speed, accelerometer bias}. The prediction integrates the measured acceleration minus the
+ * estimated bias, the correction uses GPS speed. Measurements whose normalized innovation exceeds the
+ * gate are rejected as outliers. The state vector and the covariance matrix are preallocated primitive
+ * arrays and are updated in closed form, so neither step allocates.
+ */
+public class KalmanSpeedFilter {
+	private static final int SPEED = 0;
+	private static final int BIAS = 1;
+	// row-major 2x2 covariance indices
+	private static final int P00 = 0;
+	private static final int P01 = 1;
+	private static final int P10 = 2;
+	private static final int P11 = 3;
+
+	private static final double INITIAL_BIAS_VARIANCE = 0.25; // (m/s^2)^2
+	private static final int MAX_CONSECUTIVE_REJECTS = 5;
+
+	private final double accelNoiseVariance;
+	private final double biasDriftVariance;
+	private final double gateSigma;
+
+	private final double[] state = new double[2];
+	private final double[] covariance = new double[4];
+
+	private boolean initialized = false;
+	private int consecutiveRejects = 0;
+	private long rejectedCount = 0;
+
+	/**
+	 * @param accelNoiseSigma accelerometer white noise (m/s^2)
+	 * @param biasDriftSigma  bias random walk (m/s^2 per sqrt(s))
+	 * @param gateSigma       innovation gate, in standard deviations
+	 */
+	public KalmanSpeedFilter(double accelNoiseSigma, double biasDriftSigma, double gateSigma) {
+		this.accelNoiseVariance = accelNoiseSigma * accelNoiseSigma;
+		this.biasDriftVariance = biasDriftSigma * biasDriftSigma;
+		this.gateSigma = gateSigma;
+	}
+
+	/**
+	 * Start over from a measured speed, keeping no history.
+	 */
+	public void reset(double speed, double speedVariance) {
+		state[SPEED] = speed;
+		state[BIAS] = 0;
+		covariance[P00] = speedVariance;
+		covariance[P01] = 0;
+		covariance[P10] = 0;
+		covariance[P11] = INITIAL_BIAS_VARIANCE;
+		consecutiveRejects = 0;
+		initialized = true;
+	}
+
+	public void clear() {
+		state[SPEED] = 0;
+		state[BIAS] = 0;
+		for (int i = 0; i < covariance.length; i++) {
+			covariance[i] = 0;
+		}
+		consecutiveRejects = 0;
+		rejectedCount = 0;
+		initialized = false;
+	}
+
+	/**
+	 * Time update: x = F x + B a, P = F P F' + Q with F = [[1, -dt], [0, 1]].
+	 */
+	public void predict(double acceleration, double dt) {
+		if (!initialized || dt <= 0) {
+			return;
+		}
+
+		state[SPEED] += (acceleration - state[BIAS]) * dt;
+
+		double p00 = covariance[P00];
+		double p01 = covariance[P01];
+		double p10 = covariance[P10];
+		double p11 = covariance[P11];
+
+		covariance[P00] = p00 - dt * (p01 + p10) + dt * dt * p11 + accelNoiseVariance * dt * dt;
+		covariance[P01] = p01 - dt * p11;
+		covariance[P10] = p10 - dt * p11;
+		covariance[P11] = p11 + biasDriftVariance * dt;
+	}
+
+	/**
+	 * Measurement update with a speed observation.
+	 *
+	 * @return false if the measurement was rejected by the innovation gate
+	 */
+	public boolean update(double speed, double speedVariance) {
+		if (!initialized) {
+			reset(speed, speedVariance);
+			return true;
+		}
+
+		double innovation = speed - state[SPEED];
+		double innovationVariance = covariance[P00] + speedVariance;
+
+		if (innovation * innovation > gateSigma * gateSigma * innovationVariance) {
+			rejectedCount++;
+			if (++consecutiveRejects < MAX_CONSECUTIVE_REJECTS) {
+				return false;
+			}
+			// the estimate is lost rather than the measurements being outliers
+			reset(speed, speedVariance);
+			return true;
+		}
+		consecutiveRejects = 0;
+
+		double p00 = covariance[P00];
+		double p01 = covariance[P01];
+		double gainSpeed = p00 / innovationVariance;
+		double gainBias = covariance[P10] / innovationVariance;
+
+		state[SPEED] += gainSpeed * innovation;
+		state[BIAS] += gainBias * innovation;
+
+		covariance[P00] = p00 - gainSpeed * p00;
+		covariance[P01] = p01 - gainSpeed * p01;
+		covariance[P10] -= gainBias * p00;
+		covariance[P11] -= gainBias * p01;
+		return true;
+	}
+
+	public boolean isInitialized() {
+		return initialized;
+	}
+
+	public double getSpeed() {
+		return state[SPEED];
+	}
+
+	public double getBias() {
+		return state[BIAS];
+	}
+
+	public double getSpeedVariance() {
+		return covariance[P00];
+	}
+
+	public long getRejectedCount() {
+		return rejectedCount;
+	}
+}
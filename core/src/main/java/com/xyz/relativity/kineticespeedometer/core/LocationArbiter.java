@@ -0,0 +1,175 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Chooses between the fixes of several location providers.
+ * <p>
+ * A fix is forwarded only if it improves the current estimate: it must be newer than the best fix,
+ * and either come from the same provider, replace a stale best fix, or be at least as accurate once
+ * the best fix's accuracy is degraded by its age. A fix without speed never replaces a fresh one
+ * with speed, since speed is what the fusion needs.
+ * <p>
+ * Providers whose fixes have not won for {@link #EVALUATION_NS} are reported as not worth a
+ * subscription. They are wanted again when there is no fresh usable fix, or after {@link #RETRY_NS}
+ * to re-evaluate them. A fix is usable only if {@link SpeedFusionEngine} would accept it, that is it has
+ * a speed and is accurate enough; coarse fixes alone never get another provider dropped. A provider is
+ * not evaluated before its first fix since it was subscribed, so a slow GPS cold start is waited for.
+ */
+public class LocationArbiter {
+	/**
+	 * How fast the uncertainty of a fix grows with its age.
+	 */
+	static final float ACCURACY_GROWTH_MPS = 1f;
+	static final long STALE_NS = 10_000_000_000L;
+	static final long EVALUATION_NS = 30_000_000_000L;
+	static final long RETRY_NS = 300_000_000_000L;
+
+	private final ProviderStatistics[] statistics = new ProviderStatistics[LocationSample.PROVIDER_COUNT];
+	private final LocationSample best = new LocationSample();
+	private boolean hasBest = false;
+	private boolean hasUsable = false;
+	private long lastUsableNs = 0;
+
+	public LocationArbiter() {
+		for (int i = 0; i < statistics.length; i++) {
+			statistics[i] = new ProviderStatistics(i);
+		}
+	}
+
+	/**
+	 * Record a fix and decide whether it is forwarded.
+	 *
+	 * @param nowNs arrival time (elapsed realtime nanoseconds)
+	 * @return true if the fix became the new best estimate
+	 */
+	public boolean offer(LocationSample sample, long nowNs) {
+		ProviderStatistics stats = getStatistics(sample.providerId);
+		stats.recordFix(sample, nowNs);
+
+		if (!improves(sample, nowNs)) {
+			return false;
+		}
+		best.copyFrom(sample);
+		hasBest = true;
+		if (isUsable(sample)) {
+			hasUsable = true;
+			lastUsableNs = sample.elapsedRealtimeNanos;
+		}
+		stats.recordWin(nowNs);
+		return true;
+	}
+
+	/**
+	 * Like {@link #offer(LocationSample, long)} for a cached fix such as the last known location, which
+	 * is dropped instead of counted as live if it is older than {@link #STALE_NS}.
+	 */
+	public boolean offerLastKnown(LocationSample sample, long nowNs) {
+		if (nowNs - sample.elapsedRealtimeNanos >= STALE_NS) {
+			return false;
+		}
+		return offer(sample, nowNs);
+	}
+
+	private boolean improves(LocationSample sample, long nowNs) {
+		if (!hasBest) {
+			return true;
+		}
+		if (sample.elapsedRealtimeNanos <= best.elapsedRealtimeNanos) {
+			// older than or the same as what was already delivered
+			return false;
+		}
+		if (sample.providerId == best.providerId || !hasFreshFix(nowNs)) {
+			return true;
+		}
+		if (best.hasSpeed && !sample.hasSpeed) {
+			return false;
+		}
+		return effectiveAccuracy(sample, nowNs) <= effectiveAccuracy(best, nowNs);
+	}
+
+	private static float effectiveAccuracy(LocationSample sample, long nowNs) {
+		float ageSeconds = Math.max(0, (nowNs - sample.elapsedRealtimeNanos) / 1e9f);
+		return sample.accuracyMeters + ageSeconds * ACCURACY_GROWTH_MPS;
+	}
+
+	/**
+	 * @return true if a fix was accepted less than {@link #STALE_NS} ago
+	 */
+	public boolean hasFreshFix(long nowNs) {
+		return hasBest && nowNs - best.elapsedRealtimeNanos < STALE_NS;
+	}
+
+	/**
+	 * @return true if a fix that {@link SpeedFusionEngine} accepts was forwarded less than
+	 * {@link #STALE_NS} ago
+	 */
+	public boolean hasFreshUsableFix(long nowNs) {
+		return hasUsable && nowNs - lastUsableNs < STALE_NS;
+	}
+
+	private static boolean isUsable(LocationSample sample) {
+		return sample.hasSpeed && sample.accuracyMeters < SpeedFusionEngine.GPS_MAX_ACCURACY_METERS;
+	}
+
+	/**
+	 * @return the best fix so far, only meaningful once a fix was accepted
+	 */
+	public LocationSample getBest() {
+		return best;
+	}
+
+	/**
+	 * @return whether the provider is worth its power: it is new, has not delivered a fix yet, is still
+	 * being evaluated, recently won, or there is no fresh usable fix from anyone
+	 */
+	public boolean shouldSubscribe(int providerId, long nowNs) {
+		ProviderStatistics stats = getStatistics(providerId);
+		if (!hasFreshUsableFix(nowNs) || (hasBest && best.providerId == providerId)) {
+			return true;
+		}
+		if (!stats.subscribed) {
+			return stats.unsubscribedAtNs == 0 || nowNs - stats.unsubscribedAtNs >= RETRY_NS;
+		}
+		if (stats.fixesSinceSubscribed == 0) {
+			return true;
+		}
+		return nowNs - Math.max(stats.subscribedAtNs, stats.lastWinNs) < EVALUATION_NS;
+	}
+
+	public void onSubscribed(int providerId, long nowNs) {
+		ProviderStatistics stats = getStatistics(providerId);
+		if (!stats.subscribed) {
+			stats.subscribed = true;
+			stats.subscribedAtNs = nowNs;
+			stats.fixesSinceSubscribed = 0;
+		}
+	}
+
+	public void onUnsubscribed(int providerId, long nowNs) {
+		ProviderStatistics stats = getStatistics(providerId);
+		if (stats.subscribed) {
+			stats.subscribed = false;
+			stats.unsubscribedAtNs = nowNs;
+		}
+	}
+
+	public ProviderStatistics getStatistics(int providerId) {
+		if (providerId < 0 || providerId >= statistics.length) {
+			providerId = LocationSample.PROVIDER_UNKNOWN;
+		}
+		return statistics[providerId];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		for (ProviderStatistics stats : statistics) {
+			if (stats.getFixCount() > 0 || stats.isSubscribed()) {
+				if (result.length() > 0) {
+					result.append('\n');
+				}
+				result.append(stats);
+			}
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,43 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Primitive copy of a location fix. Instances are pooled and reused by the producer, so a listener
+ * may only read a sample for the duration of the callback and must {@link #copyFrom(LocationSample)}
+ * it to keep the values.
+ */
+public final class LocationSample {
+	public static final int PROVIDER_UNKNOWN = 0;
+	public static final int PROVIDER_GPS = 1;
+	public static final int PROVIDER_NETWORK = 2;
+	public static final int PROVIDER_FUSED = 3;
+	public static final int PROVIDER_PASSIVE = 4;
+	public static final int PROVIDER_COUNT = 5;
+
+	public int providerId;
+	public long elapsedRealtimeNanos;
+	public double latitude;
+	public double longitude;
+	public boolean hasSpeed;
+	public float speedMps;
+	public boolean hasBearing;
+	public float bearingDegrees;
+	public float accuracyMeters;
+
+	public void set(int providerId, long elapsedRealtimeNanos, double latitude, double longitude,
+			boolean hasSpeed, float speedMps, boolean hasBearing, float bearingDegrees, float accuracyMeters) {
+		this.providerId = providerId;
+		this.elapsedRealtimeNanos = elapsedRealtimeNanos;
+		this.latitude = latitude;
+		this.longitude = longitude;
+		this.hasSpeed = hasSpeed;
+		this.speedMps = speedMps;
+		this.hasBearing = hasBearing;
+		this.bearingDegrees = bearingDegrees;
+		this.accuracyMeters = accuracyMeters;
+	}
+
+	public void copyFrom(LocationSample other) {
+		set(other.providerId, other.elapsedRealtimeNanos, other.latitude, other.longitude,
+				other.hasSpeed, other.speedMps, other.hasBearing, other.bearingDegrees, other.accuracyMeters);
+	}
+}
@@ -0,0 +1,98 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Reduces a series to the minimum and maximum of each x bucket, at their own x.
+ * <p>
+ * With one bucket per horizontal pixel this draws the same envelope as the full series, peaks and
+ * drops included, with at most two points per pixel. Buckets are aligned to a fixed grid, so samples
+ * appended later only ever change the last bucket and the output is maintained in O(1) per sample.
+ */
+public class MinMaxDownsampler {
+	private SampleRing out;
+	private float originX;
+	private float bucketWidth;
+
+	private long bucket;
+	private int emitted;
+	private float minX;
+	private float minY;
+	private float maxX;
+	private float maxY;
+
+	/**
+	 * Start a new output.
+	 *
+	 * @param out         cleared, then filled in x order
+	 * @param originX     start of the bucket grid
+	 * @param bucketWidth x width of one bucket, 0 or less passes every sample through
+	 */
+	public void reset(SampleRing out, float originX, float bucketWidth) {
+		this.out = out;
+		this.originX = originX;
+		this.bucketWidth = bucketWidth;
+		out.clear();
+		emitted = 0;
+		bucket = Long.MIN_VALUE;
+	}
+
+	public float getBucketWidth() {
+		return bucketWidth;
+	}
+
+	/**
+	 * Add a sample. x must not decrease.
+	 */
+	public void add(float x, float y) {
+		if (bucketWidth <= 0) {
+			out.add(x, y);
+			return;
+		}
+
+		long index = (long) Math.floor((x - originX) / bucketWidth);
+		if (index != bucket) {
+			bucket = index;
+			minX = maxX = x;
+			minY = maxY = y;
+			out.add(x, y);
+			emitted = 1;
+			return;
+		}
+
+		boolean changed = false;
+		if (y < minY) {
+			minY = y;
+			minX = x;
+			changed = true;
+		}
+		if (y > maxY) {
+			maxY = y;
+			maxX = x;
+			changed = true;
+		}
+		if (!changed) {
+			return;
+		}
+
+		// rewrite the points of the open bucket at the end of the output
+		for (; emitted > 0; emitted--) {
+			out.removeLast();
+		}
+		if (minX < maxX) {
+			out.add(minX, minY);
+			out.add(maxX, maxY);
+		} else {
+			out.add(maxX, maxY);
+			out.add(minX, minY);
+		}
+		emitted = 2;
+	}
+
+	/**
+	 * Add all samples of a ring.
+	 */
+	public void addAll(SampleRing samples) {
+		for (int i = 0; i < samples.size(); i++) {
+			add(samples.getX(i), samples.getY(i));
+		}
+	}
+}
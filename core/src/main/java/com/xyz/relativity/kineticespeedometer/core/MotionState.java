@@ -0,0 +1,29 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Coarse motion state with the sensor, location and render rates to use in that state.
+ */
+public enum MotionState {
+	/**
+	 * Standing still: sample slowly, just fast enough to catch the onset of motion.
+	 */
+	STATIONARY(66_667, 1000, 500),
+	/**
+	 * Speed is changing: full rates.
+	 */
+	MOVING(20_000, 250, 100),
+	/**
+	 * Steady speed: the GPS alone tracks the speed well.
+	 */
+	CRUISING(66_667, 500, 200);
+
+	public final int sensorPeriodUs;
+	public final int gpsIntervalMs;
+	public final int uiIntervalMs;
+
+	MotionState(int sensorPeriodUs, int gpsIntervalMs, int uiIntervalMs) {
+		this.sensorPeriodUs = sensorPeriodUs;
+		this.gpsIntervalMs = gpsIntervalMs;
+		this.uiIntervalMs = uiIntervalMs;
+	}
+}
@@ -0,0 +1,128 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Classifies the motion as {@link MotionState#STATIONARY}, {@link MotionState#MOVING} or
+ * {@link MotionState#CRUISING} from the linear acceleration variance and the GPS speed.
+ * <p>
+ * Moving up to {@link MotionState#MOVING} happens on the first sample that shows motion, moving down
+ * requires the calm condition to hold for a while, so the rates never lag behind an acceleration.
+ */
+public class MotionStateDetector {
+	private static final float NANOS_PER_SECOND = 1_000_000_000.0f;
+
+	// --- Tuning Constants ---
+	private static final float VARIANCE_TIME_CONSTANT_SEC = 1.0f;
+	private static final float ONSET_ACCELERATION = 0.6f; // m/s^2, single sample
+	private static final float STATIONARY_VARIANCE = 0.01f; // (m/s^2)^2
+	private static final float CRUISING_VARIANCE = 0.05f;
+	private static final float MOVING_VARIANCE = 0.15f;
+	private static final float STATIONARY_SPEED_MPS = 0.5f;
+	private static final float MOVING_SPEED_MPS = 1.5f;
+	private static final float CRUISING_MIN_SPEED_MPS = 5.0f;
+	private static final long STATIONARY_HOLD_NS = 10_000_000_000L;
+	private static final long CRUISING_HOLD_NS = 5_000_000_000L;
+	private static final long GPS_SPEED_TIMEOUT_NS = 5_000_000_000L;
+
+	private MotionState state;
+	private float mean = 0;
+	private float variance = 0;
+	private long lastAccelerationNs = 0;
+	private float gpsSpeedMps = 0;
+	private long lastGpsNs = 0;
+	private long calmSinceNs = 0;
+
+	public MotionStateDetector() {
+		this(MotionState.MOVING);
+	}
+
+	public MotionStateDetector(MotionState initialState) {
+		this.state = initialState;
+	}
+
+	/**
+	 * @return true if the state changed
+	 */
+	public boolean onLinearAcceleration(long timestampNs, float x, float y, float z) {
+		float magnitude = (float) Math.sqrt(x * x + y * y + z * z);
+
+		if (lastAccelerationNs == 0) {
+			lastAccelerationNs = timestampNs;
+			mean = magnitude;
+			return false;
+		}
+		float dt = (timestampNs - lastAccelerationNs) / NANOS_PER_SECOND;
+		lastAccelerationNs = timestampNs;
+		if (dt <= 0) {
+			return false;
+		}
+
+		float alpha = Math.min(1.0f, dt / VARIANCE_TIME_CONSTANT_SEC);
+		float delta = magnitude - mean;
+		mean += alpha * delta;
+		variance = (1.0f - alpha) * (variance + alpha * delta * delta);
+
+		return evaluate(timestampNs, magnitude);
+	}
+
+	/**
+	 * @return true if the state changed
+	 */
+	public boolean onGpsSpeed(long timestampNs, float speedMps) {
+		gpsSpeedMps = speedMps;
+		lastGpsNs = timestampNs;
+		return evaluate(timestampNs, 0);
+	}
+
+	private boolean evaluate(long nowNs, float magnitude) {
+		boolean gpsValid = lastGpsNs != 0 && nowNs - lastGpsNs < GPS_SPEED_TIMEOUT_NS;
+		float speed = gpsValid ? gpsSpeedMps : 0;
+		boolean onset = magnitude > ONSET_ACCELERATION || variance > MOVING_VARIANCE;
+
+		MotionState next = state;
+		switch (state) {
+			case STATIONARY:
+				if (onset || speed > MOVING_SPEED_MPS) {
+					next = MotionState.MOVING;
+				}
+				break;
+			case CRUISING:
+				if (onset || variance > CRUISING_VARIANCE || speed < CRUISING_MIN_SPEED_MPS) {
+					next = MotionState.MOVING;
+				}
+				break;
+			case MOVING:
+				if (onset) {
+					calmSinceNs = 0;
+				} else if (variance < STATIONARY_VARIANCE && speed < STATIONARY_SPEED_MPS) {
+					next = holdFor(nowNs, STATIONARY_HOLD_NS) ? MotionState.STATIONARY : state;
+				} else if (variance < CRUISING_VARIANCE && gpsValid && speed >= CRUISING_MIN_SPEED_MPS) {
+					next = holdFor(nowNs, CRUISING_HOLD_NS) ? MotionState.CRUISING : state;
+				} else {
+					calmSinceNs = 0;
+				}
+				break;
+		}
+
+		if (next == state) {
+			return false;
+		}
+		state = next;
+		calmSinceNs = 0;
+		return true;
+	}
+
+	private boolean holdFor(long nowNs, long holdNs) {
+		if (calmSinceNs == 0) {
+			calmSinceNs = nowNs;
+		}
+		return nowNs - calmSinceNs >= holdNs;
+	}
+
+	public MotionState getState() {
+		return state;
+	}
+
+	public float getVariance() {
+		return variance;
+	}
+}
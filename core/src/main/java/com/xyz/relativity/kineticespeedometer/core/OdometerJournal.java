@@ -0,0 +1,203 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Durable, full precision odometer stored as an append-only journal.
+ * <p>
+ * Every record holds the total distance as a double plus a check word, so a torn last record is
+ * detected and ignored when the journal is opened. A record is appended at most once per append
+ * interval and the file is synced at most once per sync interval. A killed process therefore loses
+ * no more than one append interval of distance, and a power loss no more than one sync interval.
+ * When the journal grows too long it is compacted to a single record through an atomic rename.
+ */
+public class OdometerJournal implements Closeable {
+	private static final int RECORD_SIZE = 16;
+	private static final long CHECK_MASK = 0x4F444F4D45544552L; // "ODOMETER"
+	private static final int COMPACT_AFTER_RECORDS = 4096;
+	private static final String COMPACT_SUFFIX = ".tmp";
+
+	public static final long DEFAULT_APPEND_INTERVAL_MS = 1000;
+	public static final long DEFAULT_SYNC_INTERVAL_MS = 5000;
+
+	private final File file;
+	private final long appendIntervalMs;
+	private final long syncIntervalMs;
+	private final ByteBuffer record = ByteBuffer.allocateDirect(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+	private FileChannel channel;
+	private int recordCount = 0;
+	private int compactAfterRecords = COMPACT_AFTER_RECORDS;
+	private double meters = 0;
+	private double writtenMeters = 0;
+	private long lastAppendMs = 0;
+	private long lastSyncMs = 0;
+	private boolean dirty = false;
+
+	public OdometerJournal(File file) throws IOException {
+		this(file, DEFAULT_APPEND_INTERVAL_MS, DEFAULT_SYNC_INTERVAL_MS);
+	}
+
+	public OdometerJournal(File file, long appendIntervalMs, long syncIntervalMs) throws IOException {
+		this.file = file;
+		this.appendIntervalMs = appendIntervalMs;
+		this.syncIntervalMs = syncIntervalMs;
+
+		File compacted = new File(file.getPath() + COMPACT_SUFFIX);
+		if (!file.exists() && compacted.exists()) {
+			// the journal itself is gone, the compacted copy is the newest total there is
+			compacted.renameTo(file);
+		}
+		// left over by a compaction that died before its rename, the journal is still complete
+		compacted.delete();
+
+		channel = new RandomAccessFile(file, "rw").getChannel();
+		load();
+	}
+
+	private void load() throws IOException {
+		long validLength = 0;
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), Integer.MAX_VALUE)).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+			// read all
+		}
+		((Buffer) buffer).flip();
+
+		while (buffer.remaining() >= RECORD_SIZE) {
+			long bits = buffer.getLong();
+			long check = buffer.getLong();
+			if ((bits ^ CHECK_MASK) != check) {
+				break;
+			}
+			meters = Double.longBitsToDouble(bits);
+			validLength += RECORD_SIZE;
+			recordCount++;
+		}
+		writtenMeters = meters;
+
+		if (validLength != channel.size()) {
+			channel.truncate(validLength);
+		}
+		channel.position(validLength);
+	}
+
+	/**
+	 * @return true if the journal holds no distance yet
+	 */
+	public boolean isEmpty() {
+		return recordCount == 0;
+	}
+
+	public double getMeters() {
+		return meters;
+	}
+
+	/**
+	 * Set the total distance. Written to the file only if the append interval has elapsed.
+	 *
+	 * @param meters total distance
+	 * @param nowMs  monotonic time, only used to pace appends and syncs
+	 */
+	public void update(double meters, long nowMs) throws IOException {
+		this.meters = meters;
+		if (nowMs - lastAppendMs >= appendIntervalMs) {
+			lastAppendMs = nowMs;
+			append();
+		}
+		if (dirty && nowMs - lastSyncMs >= syncIntervalMs) {
+			lastSyncMs = nowMs;
+			channel.force(false);
+			dirty = false;
+		}
+	}
+
+	/**
+	 * Write the current distance and sync the file.
+	 */
+	public void sync() throws IOException {
+		append();
+		if (dirty) {
+			channel.force(false);
+			dirty = false;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			sync();
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void append() throws IOException {
+		if (meters == writtenMeters && recordCount > 0) {
+			return;
+		}
+		if (recordCount >= compactAfterRecords) {
+			// a failed compaction is retried only after as many records again
+			compactAfterRecords = recordCount + COMPACT_AFTER_RECORDS;
+			if (compact()) {
+				return;
+			}
+		}
+
+		writeRecord(channel);
+		writtenMeters = meters;
+		recordCount++;
+		dirty = true;
+	}
+
+	/**
+	 * Replace the journal by a single record, renamed over it.
+	 *
+	 * @return false if the rename failed and the old journal is still in use
+	 */
+	private boolean compact() throws IOException {
+		File compacted = new File(file.getPath() + COMPACT_SUFFIX);
+		FileOutputStream out = new FileOutputStream(compacted);
+		try {
+			writeRecord(out.getChannel());
+			out.getChannel().force(true);
+		} finally {
+			out.close();
+		}
+
+		channel.close();
+		if (!compacted.renameTo(file)) {
+			// keep working on the old journal
+			compacted.delete();
+			channel = new RandomAccessFile(file, "rw").getChannel();
+			channel.position(channel.size());
+			return false;
+		}
+		channel = new RandomAccessFile(file, "rw").getChannel();
+		channel.position(RECORD_SIZE);
+
+		writtenMeters = meters;
+		recordCount = 1;
+		compactAfterRecords = COMPACT_AFTER_RECORDS;
+		dirty = false;
+		return true;
+	}
+
+	private void writeRecord(FileChannel target) throws IOException {
+		long bits = Double.doubleToLongBits(meters);
+		((Buffer) record).clear();
+		record.putLong(bits);
+		record.putLong(bits ^ CHECK_MASK);
+		((Buffer) record).flip();
+		while (record.hasRemaining()) {
+			target.write(record);
+		}
+	}
+}
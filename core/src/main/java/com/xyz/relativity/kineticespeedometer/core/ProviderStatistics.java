@@ -0,0 +1,114 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Rolling quality statistics of one location provider, kept by {@link LocationArbiter}.
+ * Averages are exponentially weighted so they follow changing reception.
+ */
+public class ProviderStatistics {
+	private static final float SMOOTHING = 0.2f;
+
+	private final int providerId;
+
+	private long fixes = 0;
+	private long wins = 0;
+	private long lastFixNs = 0;
+	private float latencyMs = 0;
+	private float accuracyMeters = 0;
+	private float intervalMs = 0;
+	private float speedAvailability = 0;
+
+	// subscription bookkeeping
+	boolean subscribed = false;
+	long subscribedAtNs = 0;
+	long unsubscribedAtNs = 0;
+	long lastWinNs = 0;
+	long fixesSinceSubscribed = 0;
+
+	ProviderStatistics(int providerId) {
+		this.providerId = providerId;
+	}
+
+	void recordFix(LocationSample sample, long nowNs) {
+		float latency = Math.max(0, (nowNs - sample.elapsedRealtimeNanos) / 1e6f);
+		float speed = sample.hasSpeed ? 1f : 0f;
+		if (fixes == 0) {
+			latencyMs = latency;
+			accuracyMeters = sample.accuracyMeters;
+			speedAvailability = speed;
+		} else {
+			latencyMs += SMOOTHING * (latency - latencyMs);
+			accuracyMeters += SMOOTHING * (sample.accuracyMeters - accuracyMeters);
+			speedAvailability += SMOOTHING * (speed - speedAvailability);
+			if (sample.elapsedRealtimeNanos > lastFixNs) {
+				float interval = (sample.elapsedRealtimeNanos - lastFixNs) / 1e6f;
+				intervalMs = intervalMs == 0 ? interval : intervalMs + SMOOTHING * (interval - intervalMs);
+			}
+		}
+		if (sample.elapsedRealtimeNanos > lastFixNs) {
+			lastFixNs = sample.elapsedRealtimeNanos;
+		}
+		fixes++;
+		fixesSinceSubscribed++;
+	}
+
+	void recordWin(long nowNs) {
+		wins++;
+		lastWinNs = nowNs;
+	}
+
+	public int getProviderId() {
+		return providerId;
+	}
+
+	public long getFixCount() {
+		return fixes;
+	}
+
+	/**
+	 * @return number of fixes that improved the estimate and were forwarded
+	 */
+	public long getWinCount() {
+		return wins;
+	}
+
+	/**
+	 * @return average delay between the fix time and its delivery
+	 */
+	public float getLatencyMs() {
+		return latencyMs;
+	}
+
+	public float getAccuracyMeters() {
+		return accuracyMeters;
+	}
+
+	/**
+	 * @return fixes per second, 0 until two fixes were seen
+	 */
+	public float getFixRateHz() {
+		return intervalMs <= 0 ? 0 : 1000f / intervalMs;
+	}
+
+	/**
+	 * @return share of recent fixes that carried a speed, 0 to 1
+	 */
+	public float getSpeedAvailability() {
+		return speedAvailability;
+	}
+
+	public boolean isSubscribed() {
+		return subscribed;
+	}
+
+	@Override
+	public String toString() {
+		return "provider: " + providerId
+				+ (subscribed ? "" : " (unsubscribed)")
+				+ " fixes: " + fixes
+				+ " wins: " + wins
+				+ " latency ms: " + latencyMs
+				+ " accuracy m: " + accuracyMeters
+				+ " rate Hz: " + getFixRateHz()
+				+ " speed: " + speedAvailability;
+	}
+}
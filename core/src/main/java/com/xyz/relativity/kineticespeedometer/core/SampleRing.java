@@ -0,0 +1,154 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Fixed capacity ring of (x, y) samples in two primitive arrays. Samples are expected in increasing x
+ * order. Appending to a full ring evicts the oldest sample, both in O(1) and without allocation.
+ * Index 0 is always the oldest sample.
+ */
+public class SampleRing {
+	private final float[] xs;
+	private final float[] ys;
+	private int head = 0;
+	private int size = 0;
+
+	public SampleRing(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+		xs = new float[capacity];
+		ys = new float[capacity];
+	}
+
+	public int capacity() {
+		return xs.length;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean isFull() {
+		return size == xs.length;
+	}
+
+	/**
+	 * Append a sample, evicting the oldest one if the ring is full.
+	 *
+	 * @return true if a sample was evicted
+	 */
+	public boolean add(float x, float y) {
+		int tail = head + size;
+		if (tail >= xs.length) {
+			tail -= xs.length;
+		}
+		xs[tail] = x;
+		ys[tail] = y;
+		if (size < xs.length) {
+			size++;
+			return false;
+		}
+		head = head + 1 == xs.length ? 0 : head + 1;
+		return true;
+	}
+
+	private int slot(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+		}
+		int slot = head + index;
+		return slot >= xs.length ? slot - xs.length : slot;
+	}
+
+	public float getX(int index) {
+		return xs[slot(index)];
+	}
+
+	public float getY(int index) {
+		return ys[slot(index)];
+	}
+
+	public void removeFirst() {
+		if (size == 0) {
+			return;
+		}
+		head = head + 1 == xs.length ? 0 : head + 1;
+		size--;
+	}
+
+	public void removeLast() {
+		if (size > 0) {
+			size--;
+		}
+	}
+
+	/**
+	 * Remove an arbitrary sample, shifting the newer ones down. O(n), meant for rare edits only.
+	 */
+	public void remove(int index) {
+		slot(index);
+		for (int i = index; i < size - 1; i++) {
+			int to = slot(i);
+			int from = slot(i + 1);
+			xs[to] = xs[from];
+			ys[to] = ys[from];
+		}
+		size--;
+	}
+
+	public void clear() {
+		head = 0;
+		size = 0;
+	}
+
+	/**
+	 * @return index of the last sample with x at most the given value, -1 if there is none
+	 */
+	public int floorIndex(float x) {
+		int low = 0;
+		int high = size - 1;
+		int result = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (getX(mid) <= x) {
+				result = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return index of the first sample with x at least the given value, -1 if there is none
+	 */
+	public int ceilIndex(float x) {
+		int low = 0;
+		int high = size - 1;
+		int result = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (getX(mid) >= x) {
+				result = mid;
+				high = mid - 1;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Replace the content with a copy of another ring, keeping only the newest samples that fit.
+	 */
+	public void copyFrom(SampleRing other) {
+		clear();
+		for (int i = Math.max(0, other.size - xs.length); i < other.size; i++) {
+			add(other.getX(i), other.getY(i));
+		}
+	}
+}
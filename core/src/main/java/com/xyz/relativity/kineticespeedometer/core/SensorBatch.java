@@ -0,0 +1,137 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Fixed capacity buffer of raw sensor events, stored as parallel primitive arrays.
+ * <p>
+ * Used when the sensors report from their hardware FIFO: the events of one delivery are appended here
+ * and handed to {@link SpeedFusionEngine#processBatch(SensorBatch)} in one go.
+ */
+public class SensorBatch {
+	public static final int TYPE_ROTATION_VECTOR = 0;
+	public static final int TYPE_LINEAR_ACCELERATION = 1;
+
+	final int[] types;
+	final long[] timestamps;
+	final float[] x;
+	final float[] y;
+	final float[] z;
+	final float[] w;
+	private int size = 0;
+
+	// merge source of sortByTimestamp
+	private final int[] mergeTypes;
+	private final long[] mergeTimestamps;
+	private final float[] mergeX;
+	private final float[] mergeY;
+	private final float[] mergeZ;
+	private final float[] mergeW;
+
+	public SensorBatch(int capacity) {
+		types = new int[capacity];
+		timestamps = new long[capacity];
+		x = new float[capacity];
+		y = new float[capacity];
+		z = new float[capacity];
+		w = new float[capacity];
+		mergeTypes = new int[capacity];
+		mergeTimestamps = new long[capacity];
+		mergeX = new float[capacity];
+		mergeY = new float[capacity];
+		mergeZ = new float[capacity];
+		mergeW = new float[capacity];
+	}
+
+	/**
+	 * Append an event.
+	 *
+	 * @return false if the batch is full and the event was not added
+	 */
+	public boolean add(int type, long timestampNs, float x, float y, float z, float w) {
+		if (size == types.length) {
+			return false;
+		}
+		types[size] = type;
+		timestamps[size] = timestampNs;
+		this.x[size] = x;
+		this.y[size] = y;
+		this.z[size] = z;
+		this.w[size] = w;
+		size++;
+		return true;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return timestamp of the last event, or 0 for an empty batch
+	 */
+	public long getLastTimestamp() {
+		return size == 0 ? 0 : timestamps[size - 1];
+	}
+
+	public boolean isFull() {
+		return size == types.length;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Stable in-place sort by timestamp. Each sensor reports in order, so the batch holds two sorted runs
+	 * interleaved in any way, typically all accelerometer events of a FIFO delivery before all rotation
+	 * events. The runs are merged in linear time.
+	 */
+	void sortByTimestamp() {
+		if (isSorted()) {
+			return;
+		}
+		System.arraycopy(types, 0, mergeTypes, 0, size);
+		System.arraycopy(timestamps, 0, mergeTimestamps, 0, size);
+		System.arraycopy(x, 0, mergeX, 0, size);
+		System.arraycopy(y, 0, mergeY, 0, size);
+		System.arraycopy(z, 0, mergeZ, 0, size);
+		System.arraycopy(w, 0, mergeW, 0, size);
+
+		int rotation = nextOfRun(0, true);
+		int other = nextOfRun(0, false);
+		for (int i = 0; i < size; i++) {
+			int from;
+			if (other == size || (rotation < size && (mergeTimestamps[rotation] < mergeTimestamps[other]
+					|| (mergeTimestamps[rotation] == mergeTimestamps[other] && rotation < other)))) {
+				from = rotation;
+				rotation = nextOfRun(rotation + 1, true);
+			} else {
+				from = other;
+				other = nextOfRun(other + 1, false);
+			}
+			types[i] = mergeTypes[from];
+			timestamps[i] = mergeTimestamps[from];
+			x[i] = mergeX[from];
+			y[i] = mergeY[from];
+			z[i] = mergeZ[from];
+			w[i] = mergeW[from];
+		}
+	}
+
+	private boolean isSorted() {
+		for (int i = 1; i < size; i++) {
+			if (timestamps[i - 1] > timestamps[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return index of the next event at or after from in the rotation run or the other run, size if none
+	 */
+	private int nextOfRun(int from, boolean rotation) {
+		while (from < size && (mergeTypes[from] == TYPE_ROTATION_VECTOR) != rotation) {
+			from++;
+		}
+		return from;
+	}
+}
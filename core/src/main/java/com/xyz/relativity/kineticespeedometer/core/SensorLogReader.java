@@ -0,0 +1,93 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a log written by {@link SensorLogWriter}. A truncated last record is ignored.
+ */
+public class SensorLogReader implements Closeable {
+	private static final int BUFFER_RECORDS = 4096;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * SensorLogRecord.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private boolean endOfFile = false;
+
+	public SensorLogReader(File file) throws IOException {
+		channel = new FileInputStream(file).getChannel();
+		((Buffer) buffer).limit(0);
+
+		if (!fill(SensorLogWriter.FILE_HEADER_SIZE)
+				|| buffer.getInt() != SensorLogWriter.MAGIC) {
+			channel.close();
+			throw new IOException("Not a sensor log: " + file);
+		}
+		int version = buffer.getInt();
+		if (version != SensorLogWriter.VERSION) {
+			channel.close();
+			throw new IOException("Unsupported sensor log version " + version);
+		}
+	}
+
+	/**
+	 * Read the next record.
+	 *
+	 * @param record destination, reused
+	 * @return false at the end of the log
+	 */
+	public boolean next(SensorLogRecord record) throws IOException {
+		if (!fill(SensorLogRecord.SIZE)) {
+			return false;
+		}
+
+		record.type = buffer.get();
+		record.flags = buffer.get();
+		buffer.getShort();
+		record.timestampNs = buffer.getLong();
+
+		if (record.type == SensorLogRecord.TYPE_GPS) {
+			record.latitude = buffer.getDouble();
+			record.longitude = buffer.getDouble();
+			record.speedMps = buffer.getFloat();
+			record.bearingDegrees = buffer.getFloat();
+			record.accuracyMeters = buffer.getFloat();
+		} else {
+			int start = buffer.position();
+			record.x = buffer.getFloat();
+			record.y = buffer.getFloat();
+			record.z = buffer.getFloat();
+			record.w = buffer.getFloat();
+			((Buffer) buffer).position(start + SensorLogRecord.PAYLOAD_SIZE);
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private boolean fill(int bytes) throws IOException {
+		if (buffer.remaining() >= bytes) {
+			return true;
+		}
+		if (endOfFile) {
+			return false;
+		}
+		buffer.compact();
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				endOfFile = true;
+				break;
+			}
+		}
+		((Buffer) buffer).flip();
+		return buffer.remaining() >= bytes;
+	}
+}
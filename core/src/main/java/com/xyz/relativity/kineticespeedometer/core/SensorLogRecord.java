@@ -0,0 +1,50 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * One raw sample of a sensor log, reused by {@link SensorLogReader#next(SensorLogRecord)}.
+ * <p>
+ * On disk every record is {@link #SIZE} bytes, little endian: type (1), flags (1), reserved (2),
+ * timestamp ns (8), then a 28 byte payload:
+ * <ul>
+ * <li>rotation vector: x, y, z, scalar as float</li>
+ * <li>linear acceleration: x, y, z as float</li>
+ * <li>GPS: latitude, longitude as double, speed, bearing, accuracy as float</li>
+ * </ul>
+ */
+public final class SensorLogRecord {
+	public static final int TYPE_ROTATION_VECTOR = SensorBatch.TYPE_ROTATION_VECTOR;
+	public static final int TYPE_LINEAR_ACCELERATION = SensorBatch.TYPE_LINEAR_ACCELERATION;
+	public static final int TYPE_GPS = 2;
+
+	public static final int FLAG_HAS_SPEED = 1;
+	public static final int FLAG_HAS_BEARING = 1 << 1;
+
+	static final int HEADER_SIZE = 12;
+	static final int PAYLOAD_SIZE = 28;
+	public static final int SIZE = HEADER_SIZE + PAYLOAD_SIZE;
+
+	public int type;
+	public int flags;
+	public long timestampNs;
+
+	// sensor values
+	public float x;
+	public float y;
+	public float z;
+	public float w;
+
+	// GPS values
+	public double latitude;
+	public double longitude;
+	public float speedMps;
+	public float bearingDegrees;
+	public float accuracyMeters;
+
+	public boolean hasSpeed() {
+		return (flags & FLAG_HAS_SPEED) != 0;
+	}
+
+	public boolean hasBearing() {
+		return (flags & FLAG_HAS_BEARING) != 0;
+	}
+}
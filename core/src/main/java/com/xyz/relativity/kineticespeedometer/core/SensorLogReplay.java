@@ -0,0 +1,97 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Feeds a recorded sensor log through a {@link SpeedFusionEngine} as fast as possible.
+ * <p>
+ * The engine only sees the recorded values and timestamps, so replaying the same log through an engine
+ * in the same configuration always produces the same {@link Result}.
+ */
+public class SensorLogReplay {
+	private static final double NANOS_PER_SECOND = 1e9;
+
+	public static final class Result {
+		public long events;
+		public long elapsedNs;
+		public float finalSpeedMps;
+		public float maxSpeedMps;
+		/**
+		 * Final kinetic energy per kg of mass (J/kg).
+		 */
+		public double specificEnergy;
+		public double distanceMeters;
+		public double gpsDistanceMeters;
+		/**
+		 * Order dependent digest of the fused speed after every event, equal digests mean equal outputs.
+		 */
+		public long speedDigest;
+
+		public double getEventsPerSecond() {
+			return elapsedNs <= 0 ? 0 : events * NANOS_PER_SECOND / elapsedNs;
+		}
+
+		@Override
+		public String toString() {
+			return "events: " + events
+					+ " events/s: " + Math.round(getEventsPerSecond())
+					+ " speed: " + finalSpeedMps
+					+ " max speed: " + maxSpeedMps
+					+ " energy: " + specificEnergy
+					+ " distance: " + distanceMeters
+					+ " GPS distance: " + gpsDistanceMeters
+					+ " digest: " + Long.toHexString(speedDigest);
+		}
+	}
+
+	private final SpeedFusionEngine engine;
+	private final SensorLogRecord record = new SensorLogRecord();
+
+	public SensorLogReplay(SpeedFusionEngine engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * Reset the engine and replay the whole log through it.
+	 */
+	public Result replay(File log) throws IOException {
+		Result result = new Result();
+		engine.reset();
+
+		long digest = 1125899906842597L;
+		long start = System.nanoTime();
+
+		try (SensorLogReader reader = new SensorLogReader(log)) {
+			while (reader.next(record)) {
+				switch (record.type) {
+					case SensorLogRecord.TYPE_ROTATION_VECTOR:
+						engine.onRotationVector(record.x, record.y, record.z, record.w);
+						break;
+					case SensorLogRecord.TYPE_LINEAR_ACCELERATION:
+						engine.onLinearAcceleration(record.timestampNs, record.x, record.y, record.z);
+						break;
+					case SensorLogRecord.TYPE_GPS:
+						engine.onGpsFix(record.timestampNs, record.latitude, record.longitude, record.hasSpeed(), record.speedMps,
+								record.hasBearing(), record.bearingDegrees, record.accuracyMeters);
+						break;
+					default:
+						continue;
+				}
+				result.events++;
+
+				float speed = engine.getSpeedMps();
+				result.maxSpeedMps = Math.max(result.maxSpeedMps, speed);
+				digest = 31 * digest + Float.floatToIntBits(speed);
+			}
+		}
+
+		result.elapsedNs = System.nanoTime() - start;
+		result.finalSpeedMps = engine.getSpeedMps();
+		result.specificEnergy = 0.5 * result.finalSpeedMps * result.finalSpeedMps;
+		result.distanceMeters = engine.getDistanceMeters();
+		result.gpsDistanceMeters = engine.getGpsDistanceMeters();
+		result.speedDigest = digest;
+		return result;
+	}
+}
@@ -0,0 +1,99 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Appends raw sensor and GPS samples to a binary log of fixed width {@link SensorLogRecord records}.
+ * <p>
+ * Records are collected in a direct buffer and written to the channel when it fills up, on
+ * {@link #flush()} and on {@link #close()}. Appending does not allocate. Not thread safe.
+ */
+public class SensorLogWriter implements Closeable {
+	public static final int MAGIC = 0x4C53454B; // "KESL" little endian
+	public static final int VERSION = 1;
+	public static final int FILE_HEADER_SIZE = 8;
+
+	private static final int DEFAULT_BUFFER_RECORDS = 1024;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+
+	public SensorLogWriter(File file) throws IOException {
+		this(file, DEFAULT_BUFFER_RECORDS);
+	}
+
+	public SensorLogWriter(File file, int bufferRecords) throws IOException {
+		channel = new FileOutputStream(file).getChannel();
+		buffer = ByteBuffer.allocateDirect(Math.max(1, bufferRecords) * SensorLogRecord.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+	}
+
+	public void writeRotationVector(long timestampNs, float x, float y, float z, float scalar) throws IOException {
+		putHeader(SensorLogRecord.TYPE_ROTATION_VECTOR, 0, timestampNs);
+		buffer.putFloat(x);
+		buffer.putFloat(y);
+		buffer.putFloat(z);
+		buffer.putFloat(scalar);
+		buffer.putLong(0);
+		buffer.putInt(0);
+	}
+
+	public void writeLinearAcceleration(long timestampNs, float x, float y, float z) throws IOException {
+		putHeader(SensorLogRecord.TYPE_LINEAR_ACCELERATION, 0, timestampNs);
+		buffer.putFloat(x);
+		buffer.putFloat(y);
+		buffer.putFloat(z);
+		buffer.putLong(0);
+		buffer.putLong(0);
+	}
+
+	public void writeGps(long timestampNs, double latitude, double longitude,
+	                     boolean hasSpeed, float speedMps, boolean hasBearing, float bearingDegrees,
+	                     float accuracyMeters) throws IOException {
+		int flags = (hasSpeed ? SensorLogRecord.FLAG_HAS_SPEED : 0) | (hasBearing ? SensorLogRecord.FLAG_HAS_BEARING : 0);
+		putHeader(SensorLogRecord.TYPE_GPS, flags, timestampNs);
+		buffer.putDouble(latitude);
+		buffer.putDouble(longitude);
+		buffer.putFloat(speedMps);
+		buffer.putFloat(bearingDegrees);
+		buffer.putFloat(accuracyMeters);
+	}
+
+	/**
+	 * Write the buffered records to the file.
+	 */
+	public void flush() throws IOException {
+		((Buffer) buffer).flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		((Buffer) buffer).clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void putHeader(int type, int flags, long timestampNs) throws IOException {
+		if (buffer.remaining() < SensorLogRecord.SIZE) {
+			flush();
+		}
+		buffer.put((byte) type);
+		buffer.put((byte) flags);
+		buffer.putShort((short) 0);
+		buffer.putLong(timestampNs);
+	}
+}
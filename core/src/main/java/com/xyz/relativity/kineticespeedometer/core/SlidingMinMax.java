@@ -0,0 +1,68 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Minimum and maximum of the samples in a sliding x window, O(1) amortized per sample.
+ * <p>
+ * Two monotonic deques over {@link SampleRing}s: the max deque only keeps samples that are larger than
+ * every later sample, the min deque those smaller than every later one, so the extremes are always at
+ * the front. Samples are expected in increasing x order.
+ * <p>
+ * A deque holds at most as many samples as the window, if the window has more samples than the
+ * capacity the oldest candidates are dropped early.
+ */
+public class SlidingMinMax {
+	private final SampleRing maxima;
+	private final SampleRing minima;
+
+	public SlidingMinMax(int capacity) {
+		maxima = new SampleRing(capacity);
+		minima = new SampleRing(capacity);
+	}
+
+	public void add(float x, float y) {
+		while (!maxima.isEmpty() && maxima.getY(maxima.size() - 1) <= y) {
+			maxima.removeLast();
+		}
+		maxima.add(x, y);
+
+		while (!minima.isEmpty() && minima.getY(minima.size() - 1) >= y) {
+			minima.removeLast();
+		}
+		minima.add(x, y);
+	}
+
+	/**
+	 * Slide the window start, dropping the samples before {@code x}.
+	 */
+	public void evictBefore(float x) {
+		while (!maxima.isEmpty() && maxima.getX(0) < x) {
+			maxima.removeFirst();
+		}
+		while (!minima.isEmpty() && minima.getX(0) < x) {
+			minima.removeFirst();
+		}
+	}
+
+	public boolean isEmpty() {
+		return maxima.isEmpty();
+	}
+
+	/**
+	 * @return minimum of the window, undefined if empty
+	 */
+	public float getMin() {
+		return minima.getY(0);
+	}
+
+	/**
+	 * @return maximum of the window, undefined if empty
+	 */
+	public float getMax() {
+		return maxima.getY(0);
+	}
+
+	public void clear() {
+		maxima.clear();
+		minima.clear();
+	}
+}
@@ -0,0 +1,328 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+/**
+ * Platform independent speed fusion: dead reckoning on the linear acceleration sensor, corrected
+ * by GPS speed fixes.
+ * <p>
+ * All inputs are primitives and no memory is allocated per event, so the engine can be driven
+ * from Android sensor callbacks as well as from plain JVM tests and load generators.
+ * The engine is not thread safe, every method must be called from the same thread.
+ */
+public class SpeedFusionEngine {
+	/**
+	 * Pass as the rotation vector scalar component when the sensor did not report it.
+	 */
+	public static final float NO_SCALAR = Float.NaN;
+
+	private static final float NANOS_PER_SECOND = 1_000_000_000.0f;
+	/**
+	 * Longer gaps between acceleration samples are a restart, e.g. after the sensors were unregistered,
+	 * not a step to integrate.
+	 */
+	private static final long MAX_SENSOR_GAP_NS = 500_000_000L;
+
+	// --- Tuning Constants ---
+	// fixes at least this inaccurate are ignored, LocationArbiter relies on it too
+	static final float GPS_MAX_ACCURACY_METERS = 12.0f;
+	private static final float GPS_MIN_BEARING_SPEED_MPS = 1.0f;
+	private static final float FILTER_TIME_CONSTANT_SEC = 0.20f;
+	private static final float ACCEL_NOISE_DEADZONE = 0.10f;
+	private static final float ACCEL_SMOOTHING_ALPHA = 0.1f;
+	private static final float STANDSTILL_SPEED_MPS = 0.1f;
+
+	private static final double KALMAN_ACCEL_NOISE_SIGMA = 0.5; // m/s^2
+	private static final double KALMAN_BIAS_DRIFT_SIGMA = 0.02; // m/s^2 per sqrt(s)
+	private static final double KALMAN_GATE_SIGMA = 4.0;
+	private static final double GPS_SPEED_SIGMA_MPS = 0.3;
+	private static final double GPS_SPEED_SIGMA_PER_ACCURACY_METER = 0.05;
+
+	private final DistanceIntegrator distanceIntegrator = new DistanceIntegrator();
+	private final KalmanSpeedFilter kalmanFilter = new KalmanSpeedFilter(KALMAN_ACCEL_NOISE_SIGMA, KALMAN_BIAS_DRIFT_SIGMA, KALMAN_GATE_SIGMA);
+	private EstimatorMode estimatorMode;
+
+	// --- State Variables ---
+	private float fusedSpeedMps = 0.0f;
+	private float smoothedAcceleration = 0.01f;
+	private long lastSensorTimestampNs = 0;
+	private long lastGpsTimestampNs = 0;
+	private boolean hasFirstGpsFix = false;
+
+	// --- Rotation and Orientation Matrices ---
+	private final float[] rotationMatrix = new float[9];
+	private final float[] worldAcceleration = new float[3];
+
+	private float gpsDirectionX = 0.0f;
+	private float gpsDirectionY = 0.0f;
+	private boolean hasMovementDirection = false;
+
+	public SpeedFusionEngine() {
+		this(EstimatorMode.COMPLEMENTARY);
+	}
+
+	public SpeedFusionEngine(EstimatorMode estimatorMode) {
+		this.estimatorMode = estimatorMode;
+	}
+
+	/**
+	 * Switch estimator. The new estimator starts from the current fused speed.
+	 */
+	public void setEstimatorMode(EstimatorMode mode) {
+		if (mode == estimatorMode) {
+			return;
+		}
+		estimatorMode = mode;
+		if (mode == EstimatorMode.KALMAN && hasFirstGpsFix) {
+			kalmanFilter.reset(fusedSpeedMps, GPS_SPEED_SIGMA_MPS * GPS_SPEED_SIGMA_MPS);
+		}
+	}
+
+	public EstimatorMode getEstimatorMode() {
+		return estimatorMode;
+	}
+
+	/**
+	 * Update the device orientation from a rotation vector sample (unit quaternion).
+	 *
+	 * @param x      x * sin(theta/2)
+	 * @param y      y * sin(theta/2)
+	 * @param z      z * sin(theta/2)
+	 * @param scalar cos(theta/2), or {@link #NO_SCALAR} to derive it from the other components
+	 */
+	public void onRotationVector(float x, float y, float z, float scalar) {
+		float w = scalar;
+		if (Float.isNaN(w)) {
+			w = 1 - x * x - y * y - z * z;
+			w = (w > 0) ? (float) Math.sqrt(w) : 0;
+		}
+
+		float sqX = 2 * x * x;
+		float sqY = 2 * y * y;
+		float sqZ = 2 * z * z;
+		float xy = 2 * x * y;
+		float zw = 2 * z * w;
+		float xz = 2 * x * z;
+		float yw = 2 * y * w;
+		float yz = 2 * y * z;
+		float xw = 2 * x * w;
+
+		rotationMatrix[0] = 1 - sqY - sqZ;
+		rotationMatrix[1] = xy - zw;
+		rotationMatrix[2] = xz + yw;
+
+		rotationMatrix[3] = xy + zw;
+		rotationMatrix[4] = 1 - sqX - sqZ;
+		rotationMatrix[5] = yz - xw;
+
+		rotationMatrix[6] = xz - yw;
+		rotationMatrix[7] = yz + xw;
+		rotationMatrix[8] = 1 - sqX - sqY;
+	}
+
+	/**
+	 * Integrate one linear acceleration sample given in device coordinates.
+	 *
+	 * @param timestampNs sensor timestamp (elapsed realtime nanoseconds)
+	 */
+	public void onLinearAcceleration(long timestampNs, float x, float y, float z) {
+		if (lastSensorTimestampNs == 0 || timestampNs - lastSensorTimestampNs > MAX_SENSOR_GAP_NS) {
+			lastSensorTimestampNs = timestampNs;
+			return;
+		}
+
+		float dt = (timestampNs - lastSensorTimestampNs) / NANOS_PER_SECOND;
+		lastSensorTimestampNs = timestampNs;
+
+		multiplyMatrixVector(rotationMatrix, x, y, z, worldAcceleration);
+
+		float stepAcceleration;
+		if (hasMovementDirection) {
+			stepAcceleration = (worldAcceleration[0] * gpsDirectionX) + (worldAcceleration[1] * gpsDirectionY);
+		} else {
+			stepAcceleration = (float) Math.sqrt((worldAcceleration[0] * worldAcceleration[0]) + (worldAcceleration[1] * worldAcceleration[1]));
+		}
+
+		if (estimatorMode == EstimatorMode.KALMAN) {
+			// the filter estimates the bias itself, feed it the raw projection
+			kalmanFilter.predict(stepAcceleration, dt);
+		}
+
+		if (Math.abs(stepAcceleration) < ACCEL_NOISE_DEADZONE) {
+			stepAcceleration = 0.0f;
+		}
+
+		smoothedAcceleration = (ACCEL_SMOOTHING_ALPHA * stepAcceleration) +
+				((1.0f - ACCEL_SMOOTHING_ALPHA) * smoothedAcceleration);
+
+		if (estimatorMode == EstimatorMode.KALMAN) {
+			fusedSpeedMps = (float) kalmanFilter.getSpeed();
+		} else {
+			fusedSpeedMps += smoothedAcceleration * dt;
+		}
+
+		if (fusedSpeedMps < STANDSTILL_SPEED_MPS) {
+			fusedSpeedMps = 0.0f;
+		}
+
+		distanceIntegrator.onSpeed(timestampNs, fusedSpeedMps);
+	}
+
+	/**
+	 * Integrate a batch of sensor events in timestamp order. The batch is sorted in place but not cleared.
+	 */
+	public void processBatch(SensorBatch batch) {
+		batch.sortByTimestamp();
+
+		int[] types = batch.types;
+		long[] timestamps = batch.timestamps;
+		float[] x = batch.x;
+		float[] y = batch.y;
+		float[] z = batch.z;
+		float[] w = batch.w;
+		for (int i = 0, size = batch.size(); i < size; i++) {
+			if (types[i] == SensorBatch.TYPE_ROTATION_VECTOR) {
+				onRotationVector(x[i], y[i], z[i], w[i]);
+			} else {
+				onLinearAcceleration(timestamps[i], x[i], y[i], z[i]);
+			}
+		}
+	}
+
+	/**
+	 * Correct the estimate with a GPS fix.
+	 *
+	 * @param timestampNs    fix time (elapsed realtime nanoseconds)
+	 * @param latitude       latitude in degrees
+	 * @param longitude      longitude in degrees
+	 * @param hasSpeed       true if the fix carries a speed
+	 * @param speedMps       ground speed
+	 * @param hasBearing     true if the fix carries a bearing
+	 * @param bearingDegrees bearing, clockwise from north
+	 * @param accuracyMeters horizontal accuracy
+	 */
+	public void onGpsFix(long timestampNs, double latitude, double longitude, boolean hasSpeed, float speedMps,
+	                     boolean hasBearing, float bearingDegrees, float accuracyMeters) {
+		if (accuracyMeters >= GPS_MAX_ACCURACY_METERS) {
+			return;
+		}
+		distanceIntegrator.onGpsPosition(latitude, longitude, accuracyMeters);
+
+		if (!hasSpeed) {
+			return;
+		}
+		correctSpeed(timestampNs, speedMps, hasBearing, bearingDegrees, accuracyMeters);
+		distanceIntegrator.onSpeed(timestampNs, fusedSpeedMps);
+	}
+
+	private void correctSpeed(long timestampNs, float speedMps, boolean hasBearing, float bearingDegrees, float accuracyMeters) {
+
+		if (speedMps > GPS_MIN_BEARING_SPEED_MPS && hasBearing) {
+			double bearingRad = Math.toRadians(bearingDegrees);
+			gpsDirectionX = (float) Math.sin(bearingRad);
+			gpsDirectionY = (float) Math.cos(bearingRad);
+			hasMovementDirection = true;
+		}
+
+		if (estimatorMode == EstimatorMode.KALMAN) {
+			double sigma = GPS_SPEED_SIGMA_MPS + GPS_SPEED_SIGMA_PER_ACCURACY_METER * accuracyMeters;
+			kalmanFilter.update(speedMps, sigma * sigma);
+			fusedSpeedMps = Math.max(0.0f, (float) kalmanFilter.getSpeed());
+			hasFirstGpsFix = true;
+			lastGpsTimestampNs = timestampNs;
+			return;
+		}
+
+		if (!hasFirstGpsFix || lastGpsTimestampNs == 0) {
+			fusedSpeedMps = speedMps;
+			hasFirstGpsFix = true;
+			lastGpsTimestampNs = timestampNs;
+			return;
+		}
+
+		float dt = (timestampNs - lastGpsTimestampNs) / NANOS_PER_SECOND;
+		lastGpsTimestampNs = timestampNs;
+
+		if (dt <= 0.0f) dt = 0.01f;
+		if (dt > 2.0f) dt = 0.25f;
+
+		float dynamicAlpha = (float) Math.exp(-dt / FILTER_TIME_CONSTANT_SEC);
+		fusedSpeedMps = (dynamicAlpha * fusedSpeedMps) +
+				((1.0f - dynamicAlpha) * speedMps);
+	}
+
+	/**
+	 * Start integrating afresh after the inputs were paused. The speed estimate is kept, but the time
+	 * since the last samples is neither integrated into the speed nor into the distance.
+	 */
+	public void resumeAfterGap() {
+		lastSensorTimestampNs = 0;
+		smoothedAcceleration = 0.01f;
+		distanceIntegrator.restart();
+	}
+
+	/**
+	 * Forget all fused state, as if the engine was just created.
+	 */
+	public void reset() {
+		fusedSpeedMps = 0.0f;
+		smoothedAcceleration = 0.01f;
+		lastSensorTimestampNs = 0;
+		lastGpsTimestampNs = 0;
+		hasFirstGpsFix = false;
+		gpsDirectionX = 0.0f;
+		gpsDirectionY = 0.0f;
+		hasMovementDirection = false;
+		kalmanFilter.clear();
+		distanceIntegrator.reset();
+		for (int i = 0; i < rotationMatrix.length; i++) {
+			rotationMatrix[i] = 0.0f;
+		}
+	}
+
+	public float getSpeedMps() {
+		return fusedSpeedMps;
+	}
+
+	public float getAccelerationMps2() {
+		return smoothedAcceleration;
+	}
+
+	public boolean hasGpsFix() {
+		return hasFirstGpsFix;
+	}
+
+	/**
+	 * @return distance integrated from the fused speed at sensor and GPS timestamps, including the
+	 * starting value given to {@link #setDistanceMeters(double)}
+	 */
+	public double getDistanceMeters() {
+		return distanceIntegrator.getMeters();
+	}
+
+	/**
+	 * Continue integrating from a known total, e.g. a stored odometer.
+	 */
+	public void setDistanceMeters(double meters) {
+		distanceIntegrator.setMeters(meters);
+	}
+
+	/**
+	 * @return great-circle distance along the accepted GPS positions, for diagnostics only, it does not
+	 * correct {@link #getDistanceMeters()}
+	 */
+	public double getGpsDistanceMeters() {
+		return distanceIntegrator.getGpsMeters();
+	}
+
+	/**
+	 * @return number of GPS fixes discarded by the Kalman innovation gate
+	 */
+	public long getRejectedGpsFixCount() {
+		return kalmanFilter.getRejectedCount();
+	}
+
+	private static void multiplyMatrixVector(float[] matrix, float x, float y, float z, float[] result) {
+		result[0] = matrix[0] * x + matrix[1] * y + matrix[2] * z;
+		result[1] = matrix[3] * x + matrix[4] * y + matrix[5] * z;
+		result[2] = matrix[6] * x + matrix[7] * y + matrix[8] * z;
+	}
+}
@@ -0,0 +1,54 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DistanceIntegratorTest {
+	@Test
+	public void trapezoidalIntegration() {
+		DistanceIntegrator integrator = new DistanceIntegrator();
+		// linear ramp 0 -> 10 m/s over 1 s, trapezoids are exact
+		for (int i = 0; i <= 100; i++) {
+			integrator.onSpeed(1 + i * 10_000_000L, i * 0.1f);
+		}
+		assertEquals(5.0, integrator.getMeters(), 1e-4);
+	}
+
+	@Test
+	public void outOfOrderAndGapsAreSkipped() {
+		DistanceIntegrator integrator = new DistanceIntegrator();
+		integrator.onSpeed(1_000_000_000L, 10f);
+		integrator.onSpeed(2_000_000_000L, 10f);
+		integrator.onSpeed(1_500_000_000L, 10f); // late GPS fix
+		integrator.onSpeed(9_000_000_000L, 10f); // gap
+		integrator.onSpeed(9_500_000_000L, 10f);
+		assertEquals(15.0, integrator.getMeters(), 1e-9);
+	}
+
+	@Test
+	public void compensatedSumKeepsSmallSteps() {
+		DistanceIntegrator integrator = new DistanceIntegrator();
+		integrator.setMeters(100_000_000.0); // 100 000 km
+		long t = 1;
+		integrator.onSpeed(t, 0.01f);
+		for (int i = 0; i < 1_000_000; i++) {
+			t += 1_000_000L; // 1 ms
+			integrator.onSpeed(t, 0.01f);
+		}
+		// 1000 s at 1 cm/s
+		assertEquals(100_000_010.0, integrator.getMeters(), 1e-6);
+	}
+
+	@Test
+	public void greatCircleDistance() {
+		assertEquals(111_195, DistanceIntegrator.greatCircleMeters(0, 0, 1, 0), 1);
+		assertEquals(0, DistanceIntegrator.greatCircleMeters(47.5, 8.5, 47.5, 8.5), 0);
+
+		DistanceIntegrator integrator = new DistanceIntegrator();
+		integrator.onGpsPosition(47.0, 8.0, 5f);
+		integrator.onGpsPosition(47.00001, 8.0, 5f); // ~1 m, jitter
+		integrator.onGpsPosition(47.001, 8.0, 5f);
+		assertEquals(111.2, integrator.getGpsMeters(), 0.1);
+	}
+}
@@ -0,0 +1,89 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Accuracy of the complementary filter versus the Kalman estimator on a synthetic drive with
+ * accelerometer bias and noise, 1 Hz noisy GPS and occasional GPS outliers. The drive is seeded, so the
+ * errors are the same on every run. The cost per update is measured by {@code EstimatorBenchmark} in
+ * the benchmark source set.
+ */
+public class EstimatorAccuracyTest {
+	private static final long SENSOR_PERIOD_NS = 20_000_000L;
+	private static final int SENSOR_PER_GPS = 50; // 1 Hz GPS
+	private static final int SAMPLES = 50 * 120; // two minutes
+	private static final float ACCEL_BIAS = 0.15f;
+	private static final float ACCEL_NOISE = 0.3f;
+	private static final float GPS_NOISE = 0.3f;
+	private static final int GPS_OUTLIER_PERIOD = 17;
+	private static final float GPS_OUTLIER = 8f;
+
+	private final float[] trueSpeed = new float[SAMPLES];
+	private final float[] measuredAccel = new float[SAMPLES];
+	private final float[] measuredGpsSpeed = new float[SAMPLES];
+
+	public EstimatorAccuracyTest() {
+		Random random = new Random(42);
+		float dt = SENSOR_PERIOD_NS / 1e9f;
+		float speed = 0;
+		for (int i = 0; i < SAMPLES; i++) {
+			float t = i * dt;
+			float accel;
+			if (t < 10) accel = 2.0f;
+			else if (t < 40) accel = 0.3f * (float) Math.sin(t * 0.5);
+			else if (t < 46) accel = -3.0f;
+			else if (t < 70) accel = 1.0f;
+			else if (t < 90) accel = 0;
+			else accel = -1.2f;
+			if (speed + accel * dt < 0) accel = -speed / dt;
+
+			speed += accel * dt;
+			trueSpeed[i] = speed;
+			measuredAccel[i] = accel + ACCEL_BIAS + ACCEL_NOISE * (float) random.nextGaussian();
+
+			int fix = i / SENSOR_PER_GPS;
+			float gpsError = (fix % GPS_OUTLIER_PERIOD == GPS_OUTLIER_PERIOD - 1) ? GPS_OUTLIER : GPS_NOISE * (float) random.nextGaussian();
+			measuredGpsSpeed[i] = Math.max(0, speed + gpsError);
+		}
+	}
+
+	@Test
+	public void kalmanIsMoreAccurateThanComplementary() {
+		double complementary = rmse(new SpeedFusionEngine(EstimatorMode.COMPLEMENTARY));
+		double kalman = rmse(new SpeedFusionEngine(EstimatorMode.KALMAN));
+
+		assertTrue("kalman RMSE " + kalman + " m/s", kalman < 0.5);
+		assertTrue("complementary RMSE " + complementary + " m/s, kalman " + kalman + " m/s", kalman * 4 < complementary);
+	}
+
+	@Test
+	public void kalmanRejectsTheOutliers() {
+		SpeedFusionEngine engine = new SpeedFusionEngine(EstimatorMode.KALMAN);
+		rmse(engine);
+
+		int outliers = (SAMPLES / SENSOR_PER_GPS) / GPS_OUTLIER_PERIOD;
+		assertEquals(outliers, engine.getRejectedGpsFixCount());
+	}
+
+	private double rmse(SpeedFusionEngine engine) {
+		engine.onRotationVector(0f, 0f, 0f, 1f);
+
+		double sumSquares = 0;
+		long t = SENSOR_PERIOD_NS;
+		for (int i = 0; i < SAMPLES; i++, t += SENSOR_PERIOD_NS) {
+			if (i % SENSOR_PER_GPS == 0) {
+				engine.onGpsFix(t, 0, 0, true, measuredGpsSpeed[i], true, 0f, 4f);
+			}
+			engine.onLinearAcceleration(t, 0f, measuredAccel[i], 0f);
+
+			double error = engine.getSpeedMps() - trueSpeed[i];
+			sumSquares += error * error;
+		}
+		return Math.sqrt(sumSquares / SAMPLES);
+	}
+}
@@ -0,0 +1,79 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FixedPointFormatterTest {
+	@Test
+	public void matchesStringFormat() {
+		FixedPointFormatter formatter = new FixedPointFormatter(32);
+		assertEquals(String.format(Locale.US, "%011.2f", 1234.5678), formatter.clear().append(1234.5678, 11, 2).toString());
+		assertEquals(String.format(Locale.US, "%.1f", 0.96), formatter.clear().append(0.96, 1).toString());
+		assertEquals(String.format(Locale.US, "%.1f", -12.34), formatter.clear().append(-12.34, 1).toString());
+		assertEquals(String.format(Locale.US, "%.0f", 99.7), formatter.clear().append(99.7, 0).toString());
+		assertEquals(String.format(Locale.US, "%06.1f", -3.14), formatter.clear().append(-3.14, 6, 1).toString());
+		assertEquals("0.0", formatter.clear().append(-0.01, 1).toString());
+		assertEquals("NaN", formatter.clear().append(Double.NaN, 2).toString());
+		assertEquals("-Infinity", formatter.clear().append(Double.NEGATIVE_INFINITY, 2).toString());
+	}
+
+	@Test
+	public void roundsHalfUp() {
+		Random random = new Random(11);
+		FixedPointFormatter formatter = new FixedPointFormatter(32, ',');
+		for (int i = 0; i < 100_000; i++) {
+			double value = (random.nextDouble() - 0.2) * Math.pow(10, random.nextInt(8));
+			int decimals = random.nextInt(4);
+			String expected = new BigDecimal(value).setScale(decimals, RoundingMode.HALF_UP).toPlainString().replace('.', ',');
+			if (expected.matches("-0(,0*)?")) {
+				expected = expected.substring(1);
+			}
+			assertEquals(expected, formatter.clear().append(value, decimals).toString());
+		}
+	}
+
+	@Test
+	public void formatsTimeOfDay() {
+		FixedPointFormatter formatter = new FixedPointFormatter(8);
+		assertEquals("00:00:00", formatter.clear().appendTimeOfDay(0).toString());
+		assertEquals("13:05:09", formatter.clear().appendTimeOfDay(((13 * 60 + 5) * 60 + 9) * 1000L + 999).toString());
+		assertEquals("23:59:59", formatter.clear().appendTimeOfDay(-1).toString());
+	}
+
+	@Test
+	public void formatterDoesNotAllocate() throws Exception {
+		ThreadAllocations allocations = new ThreadAllocations();
+
+		FixedPointFormatter odometer = new FixedPointFormatter(32);
+		FixedPointFormatter speed = new FixedPointFormatter(16);
+		FixedPointFormatter energy = new FixedPointFormatter(16);
+		FixedPointFormatter time = new FixedPointFormatter(8);
+		for (int i = 0; i < 100_000; i++) {
+			format(i, odometer, speed, energy, time);
+		}
+
+		long before = allocations.get();
+		for (int i = 100_000; i < 1_100_000; i++) {
+			format(i, odometer, speed, energy, time);
+		}
+		long allocated = allocations.get() - before;
+
+		assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+	}
+
+	private static void format(int i, FixedPointFormatter odometer, FixedPointFormatter speed, FixedPointFormatter energy,
+							   FixedPointFormatter time) {
+		double speedKph = Math.sin(i * 0.001) * 100 + 100;
+		odometer.clear().append(i * 2.7 / 1000.0, 11, 2).append(" km");
+		speed.clear().append(speedKph, 1);
+		energy.clear().append(speedKph * speedKph / 25.92, 1);
+		time.clear().appendTimeOfDay(i * 100L);
+	}
+}
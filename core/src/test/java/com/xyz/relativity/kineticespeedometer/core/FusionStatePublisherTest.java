@@ -0,0 +1,44 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FusionStatePublisherTest {
+	@Test
+	public void readerNeverSeesTornState() throws InterruptedException {
+		final FusionStatePublisher publisher = new FusionStatePublisher();
+		final AtomicBoolean running = new AtomicBoolean(true);
+
+		Thread writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				long i = 1;
+				while (running.get()) {
+					publisher.publish(i, i, -i, 2 * i);
+					i++;
+				}
+			}
+		});
+		writer.start();
+
+		FusionState state = new FusionState();
+		long lastTimestamp = 0;
+		try {
+			for (int i = 0; i < 1_000_000; i++) {
+				publisher.read(state);
+				assertEquals((float) state.timestampNs, state.speedMps, 0f);
+				assertEquals(-state.speedMps, state.accelerationMps2, 0f);
+				assertEquals(2.0 * state.timestampNs, state.distanceMeters, 0);
+				assertTrue(state.timestampNs >= lastTimestamp);
+				lastTimestamp = state.timestampNs;
+			}
+		} finally {
+			running.set(false);
+			writer.join();
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistoryPyramidTest {
+	private static final int CAPACITY = 1000;
+	private static final int LEVELS = 8;
+
+	private final float[] values = new float[2];
+
+	@Test
+	public void selectsFinestLevelThatFits() {
+		HistoryPyramid pyramid = new HistoryPyramid(2, CAPACITY, LEVELS);
+		feed(pyramid, 10_000, -1);
+
+		// raw level only holds the newest 1000 samples
+		assertEquals(0, pyramid.selectLevel(9_500, 9_999, 1000));
+		// 10000 samples: level 1 would need 2500 buckets, level 2 needs 625
+		assertEquals(2, pyramid.selectLevel(0, 9_999, 1000));
+		assertEquals(3, pyramid.selectLevel(0, 9_999, 200));
+	}
+
+	@Test
+	public void extremesSurviveEveryLevel() {
+		HistoryPyramid pyramid = new HistoryPyramid(2, CAPACITY, LEVELS);
+		feed(pyramid, 100_000, 54_321);
+
+		SampleRing out = new SampleRing(4 * CAPACITY);
+		// from level 3 on, the rings reach back past the spike
+		for (int level = 3; level < LEVELS; level++) {
+			out.clear();
+			pyramid.emit(level, 0, 0, 100_000, true, out);
+			assertTrue("level " + level, contains(out, 54_321, 1000f));
+			assertXOrdered(out);
+		}
+	}
+
+	@Test
+	public void averagesAreExact() {
+		HistoryPyramid pyramid = new HistoryPyramid(2, CAPACITY, LEVELS);
+		feed(pyramid, 64, -1);
+
+		SampleRing out = new SampleRing(16);
+		pyramid.emit(3, 1, 0, 64, false, out);
+		// series 1 is x itself: average of 0..63 is 31.5
+		assertEquals(1, out.size());
+		assertEquals(31.5f, out.getY(0), 0f);
+	}
+
+	@Test
+	public void pointCountDoesNotGrowWithHistory() {
+		int maxBuckets = 500;
+		SampleRing out = new SampleRing(4 * maxBuckets + 4 * LEVELS);
+		for (int samples : new int[]{10_000, 100_000, 1_000_000}) {
+			HistoryPyramid pyramid = new HistoryPyramid(2, CAPACITY, LEVELS);
+			feed(pyramid, samples, -1);
+
+			pyramid.fill(1, samples - 2_400, samples, maxBuckets, true, out);
+			assertTrue(samples + " samples gave " + out.size() + " points", out.size() <= 4 * maxBuckets + 2 * LEVELS);
+			assertXOrdered(out);
+			assertEquals(0f, out.getX(0), 0f);
+			assertEquals(samples - 1, out.getX(out.size() - 1), 0f);
+		}
+	}
+
+	@Test
+	public void newestSampleIsVisibleAtCoarseLevels() {
+		HistoryPyramid pyramid = new HistoryPyramid(2, CAPACITY, LEVELS);
+		feed(pyramid, 12_345, -1);
+
+		SampleRing out = new SampleRing(4 * CAPACITY);
+		pyramid.emit(LEVELS - 1, 1, 0, 20_000, true, out);
+		assertEquals(12_344f, out.getX(out.size() - 1), 0f);
+	}
+
+	/**
+	 * Series 0 is a small sawtooth with one spike, series 1 is x.
+	 */
+	private void feed(HistoryPyramid pyramid, int samples, int spikeAt) {
+		for (int i = 0; i < samples; i++) {
+			values[0] = i == spikeAt ? 1000f : i % 7;
+			values[1] = i;
+			pyramid.add(i, values);
+		}
+	}
+
+	private static boolean contains(SampleRing ring, float x, float y) {
+		for (int i = 0; i < ring.size(); i++) {
+			if (ring.getX(i) == x && ring.getY(i) == y) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void assertXOrdered(SampleRing ring) {
+		for (int i = 1; i < ring.size(); i++) {
+			assertTrue("x decreases at " + i, ring.getX(i) >= ring.getX(i - 1));
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HistorySnapshotTest {
+	private static final int CAPACITY = 2400;
+
+	@Test
+	public void roundTripKeepsRawSamples() {
+		HistoryPyramid pyramid = new HistoryPyramid(3, CAPACITY, 4);
+		float[] values = new float[3];
+		for (int i = 0; i < 5000; i++) {
+			values[0] = i * 0.5f;
+			values[1] = -i;
+			values[2] = (float) Math.sin(i);
+			pyramid.add(i * 100f, values);
+		}
+
+		HistoryPyramid restored = new HistoryPyramid(3, CAPACITY, 4);
+		assertTrue(HistorySnapshot.read(HistorySnapshot.write(pyramid), restored));
+
+		assertEquals(CAPACITY, restored.getRawCount());
+		for (int i = 0; i < CAPACITY; i++) {
+			assertEquals(pyramid.getRawX(i), restored.getRawX(i), 0f);
+			for (int s = 0; s < 3; s++) {
+				assertEquals(pyramid.getRawValue(s, i), restored.getRawValue(s, i), 0f);
+			}
+		}
+		assertEquals(pyramid.getLastX(), restored.getLastX(), 0f);
+	}
+
+	@Test
+	public void foreignSnapshotIsRejected() {
+		HistoryPyramid pyramid = new HistoryPyramid(3, CAPACITY, 4);
+		pyramid.add(1f, new float[]{1f, 2f, 3f});
+		byte[] snapshot = HistorySnapshot.write(pyramid);
+
+		HistoryPyramid otherShape = new HistoryPyramid(2, CAPACITY, 4);
+		assertFalse(HistorySnapshot.read(snapshot, otherShape));
+
+		byte[] newerVersion = snapshot.clone();
+		newerVersion[4] = (byte) (HistorySnapshot.VERSION + 1);
+		assertFalse(HistorySnapshot.read(newerVersion, pyramid));
+
+		assertFalse(HistorySnapshot.read(Arrays.copyOf(snapshot, snapshot.length - 1), pyramid));
+		assertFalse(HistorySnapshot.read(new byte[3], pyramid));
+		assertEquals(1, pyramid.getRawCount());
+	}
+}
@@ -0,0 +1,130 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LocationArbiterTest {
+	private static final long SECOND_NS = 1_000_000_000L;
+
+	private final LocationSample sample = new LocationSample();
+
+	@Test
+	public void staleAndDuplicateFixesAreNotForwarded() {
+		LocationArbiter arbiter = new LocationArbiter();
+		assertTrue(offer(arbiter, LocationSample.PROVIDER_GPS, 10 * SECOND_NS, 5f, true));
+		assertFalse(offer(arbiter, LocationSample.PROVIDER_GPS, 10 * SECOND_NS, 5f, true));
+		assertFalse(offer(arbiter, LocationSample.PROVIDER_NETWORK, 9 * SECOND_NS, 1f, true));
+		assertTrue(offer(arbiter, LocationSample.PROVIDER_GPS, 11 * SECOND_NS, 8f, true));
+
+		assertEquals(3, arbiter.getStatistics(LocationSample.PROVIDER_GPS).getFixCount());
+		assertEquals(2, arbiter.getStatistics(LocationSample.PROVIDER_GPS).getWinCount());
+	}
+
+	@Test
+	public void inaccurateFixDoesNotReplaceFreshAccurateOne() {
+		LocationArbiter arbiter = new LocationArbiter();
+		assertTrue(offer(arbiter, LocationSample.PROVIDER_GPS, SECOND_NS, 5f, true));
+		assertFalse(offer(arbiter, LocationSample.PROVIDER_NETWORK, 2 * SECOND_NS, 30f, true));
+		assertFalse(offer(arbiter, LocationSample.PROVIDER_NETWORK, 3 * SECOND_NS, 3f, false));
+
+		// the GPS fix is stale by now
+		assertTrue(offer(arbiter, LocationSample.PROVIDER_NETWORK, 12 * SECOND_NS, 30f, true));
+		assertEquals(LocationSample.PROVIDER_NETWORK, arbiter.getBest().providerId);
+	}
+
+	@Test
+	public void staleLastKnownFixIsDropped() {
+		LocationArbiter arbiter = new LocationArbiter();
+		sample.set(LocationSample.PROVIDER_GPS, SECOND_NS, 0, 0, true, 10f, false, 0f, 5f);
+		assertFalse(arbiter.offerLastKnown(sample, SECOND_NS + LocationArbiter.STALE_NS));
+		assertFalse(arbiter.hasFreshFix(SECOND_NS + LocationArbiter.STALE_NS));
+		assertEquals(0, arbiter.getStatistics(LocationSample.PROVIDER_GPS).getFixCount());
+
+		assertTrue(arbiter.offerLastKnown(sample, 2 * SECOND_NS));
+	}
+
+	@Test
+	public void losingProviderIsUnsubscribedAndRetried() {
+		LocationArbiter arbiter = new LocationArbiter();
+		arbiter.onSubscribed(LocationSample.PROVIDER_GPS, 0);
+		arbiter.onSubscribed(LocationSample.PROVIDER_NETWORK, 0);
+
+		long t = SECOND_NS;
+		for (; t < 40 * SECOND_NS; t += SECOND_NS) {
+			offer(arbiter, LocationSample.PROVIDER_GPS, t, 4f, true);
+			offer(arbiter, LocationSample.PROVIDER_NETWORK, t, 40f, false);
+		}
+		assertTrue(arbiter.shouldSubscribe(LocationSample.PROVIDER_GPS, t));
+		assertFalse(arbiter.shouldSubscribe(LocationSample.PROVIDER_NETWORK, t));
+
+		arbiter.onUnsubscribed(LocationSample.PROVIDER_NETWORK, t);
+		assertFalse(arbiter.shouldSubscribe(LocationSample.PROVIDER_NETWORK, t + SECOND_NS));
+		// GPS lost, e.g. in a tunnel
+		assertTrue(arbiter.shouldSubscribe(LocationSample.PROVIDER_NETWORK, t + LocationArbiter.STALE_NS));
+		// re-evaluated after a while even if GPS stays good
+		offer(arbiter, LocationSample.PROVIDER_GPS, t + LocationArbiter.RETRY_NS, 4f, true);
+		assertTrue(arbiter.shouldSubscribe(LocationSample.PROVIDER_NETWORK, t + LocationArbiter.RETRY_NS));
+	}
+
+	@Test
+	public void gpsColdStartIsWaitedFor() {
+		LocationArbiter arbiter = new LocationArbiter();
+		arbiter.onSubscribed(LocationSample.PROVIDER_GPS, 0);
+		arbiter.onSubscribed(LocationSample.PROVIDER_NETWORK, 0);
+
+		// only coarse network fixes without speed for longer than the evaluation period
+		long t = SECOND_NS;
+		for (; t < 2 * LocationArbiter.EVALUATION_NS; t += SECOND_NS) {
+			offer(arbiter, LocationSample.PROVIDER_NETWORK, t, 30f, false);
+			assertTrue(arbiter.shouldSubscribe(LocationSample.PROVIDER_GPS, t));
+			assertTrue(arbiter.shouldSubscribe(LocationSample.PROVIDER_NETWORK, t));
+		}
+		assertFalse(arbiter.hasFreshUsableFix(t));
+
+		// the first GPS fix finally arrives and takes over
+		long firstGps = t;
+		for (; t < firstGps + 2 * LocationArbiter.EVALUATION_NS; t += SECOND_NS) {
+			offer(arbiter, LocationSample.PROVIDER_GPS, t, 5f, true);
+			offer(arbiter, LocationSample.PROVIDER_NETWORK, t, 30f, false);
+		}
+		assertTrue(arbiter.shouldSubscribe(LocationSample.PROVIDER_GPS, t));
+		assertFalse(arbiter.shouldSubscribe(LocationSample.PROVIDER_NETWORK, t));
+	}
+
+	@Test
+	public void providerWithoutFixIsNotEvaluatedOut() {
+		LocationArbiter arbiter = new LocationArbiter();
+		arbiter.onSubscribed(LocationSample.PROVIDER_GPS, 0);
+		arbiter.onSubscribed(LocationSample.PROVIDER_FUSED, 0);
+
+		long t = SECOND_NS;
+		for (; t < 2 * LocationArbiter.EVALUATION_NS; t += SECOND_NS) {
+			offer(arbiter, LocationSample.PROVIDER_FUSED, t, 5f, true);
+		}
+		assertTrue(arbiter.hasFreshUsableFix(t));
+		assertTrue(arbiter.shouldSubscribe(LocationSample.PROVIDER_GPS, t));
+	}
+
+	@Test
+	public void statisticsFollowTheFixes() {
+		LocationArbiter arbiter = new LocationArbiter();
+		for (int i = 1; i <= 20; i++) {
+			sample.set(LocationSample.PROVIDER_GPS, i * SECOND_NS / 2, 0, 0, i % 2 == 0, 10f, false, 0f, 6f);
+			arbiter.offer(sample, i * SECOND_NS / 2 + 100_000_000L);
+		}
+
+		ProviderStatistics stats = arbiter.getStatistics(LocationSample.PROVIDER_GPS);
+		assertEquals(2f, stats.getFixRateHz(), 0.01f);
+		assertEquals(100f, stats.getLatencyMs(), 0.01f);
+		assertEquals(6f, stats.getAccuracyMeters(), 0.01f);
+		assertEquals(0.5f, stats.getSpeedAvailability(), 0.15f);
+	}
+
+	private boolean offer(LocationArbiter arbiter, int provider, long timestampNs, float accuracy, boolean hasSpeed) {
+		sample.set(provider, timestampNs, 0, 0, hasSpeed, 10f, false, 0f, accuracy);
+		return arbiter.offer(sample, timestampNs);
+	}
+}
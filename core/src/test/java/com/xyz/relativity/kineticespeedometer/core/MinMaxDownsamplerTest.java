@@ -0,0 +1,95 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MinMaxDownsamplerTest {
+	private static final int SAMPLES = 2400;
+	private static final int PIXELS = 300;
+
+	@Test
+	public void keepsTheEnvelopeOfEveryBucket() {
+		float[] ys = noise(SAMPLES);
+		ys[1234] = 100f;
+		ys[2000] = -100f;
+
+		SampleRing out = new SampleRing(SAMPLES);
+		MinMaxDownsampler downsampler = new MinMaxDownsampler();
+		downsampler.reset(out, 0, SAMPLES / (float) PIXELS);
+		for (int i = 0; i < SAMPLES; i++) {
+			downsampler.add(i, ys[i]);
+		}
+
+		assertTrue(out.size() + " points", out.size() <= 2 * PIXELS);
+		for (int b = 0; b < PIXELS; b++) {
+			float min = Float.MAX_VALUE;
+			float max = -Float.MAX_VALUE;
+			for (int i = b * SAMPLES / PIXELS; i < (b + 1) * SAMPLES / PIXELS; i++) {
+				min = Math.min(min, ys[i]);
+				max = Math.max(max, ys[i]);
+			}
+			assertTrue("bucket " + b, contains(out, min) && contains(out, max));
+		}
+		for (int i = 1; i < out.size(); i++) {
+			assertTrue(out.getX(i) >= out.getX(i - 1));
+		}
+	}
+
+	@Test
+	public void incrementalMatchesRebuild() {
+		float[] ys = noise(SAMPLES);
+		SampleRing incremental = new SampleRing(SAMPLES);
+		SampleRing rebuilt = new SampleRing(SAMPLES);
+		MinMaxDownsampler downsampler = new MinMaxDownsampler();
+		downsampler.reset(incremental, 0, 8f);
+
+		for (int n = 1; n <= SAMPLES; n++) {
+			downsampler.add(n - 1, ys[n - 1]);
+			if (n % 97 == 0) {
+				MinMaxDownsampler batch = new MinMaxDownsampler();
+				batch.reset(rebuilt, 0, 8f);
+				for (int i = 0; i < n; i++) {
+					batch.add(i, ys[i]);
+				}
+				assertEquals(rebuilt.size(), incremental.size());
+				for (int i = 0; i < rebuilt.size(); i++) {
+					assertEquals(rebuilt.getX(i), incremental.getX(i), 0f);
+					assertEquals(rebuilt.getY(i), incremental.getY(i), 0f);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void zeroWidthPassesThrough() {
+		SampleRing out = new SampleRing(16);
+		MinMaxDownsampler downsampler = new MinMaxDownsampler();
+		downsampler.reset(out, 0, 0);
+		for (int i = 0; i < 10; i++) {
+			downsampler.add(i, 1f);
+		}
+		assertEquals(10, out.size());
+	}
+
+	private static float[] noise(int count) {
+		Random random = new Random(7);
+		float[] ys = new float[count];
+		for (int i = 0; i < count; i++) {
+			ys[i] = (float) (Math.sin(i * 0.01) * 10 + random.nextGaussian());
+		}
+		return ys;
+	}
+
+	private static boolean contains(SampleRing ring, float y) {
+		for (int i = 0; i < ring.size(); i++) {
+			if (ring.getY(i) == y) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
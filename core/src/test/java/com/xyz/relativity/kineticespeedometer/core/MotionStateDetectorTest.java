@@ -0,0 +1,54 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MotionStateDetectorTest {
+	private static final long PERIOD_NS = 20_000_000L;
+
+	@Test
+	public void settlesToStationaryAfterHold() {
+		MotionStateDetector detector = new MotionStateDetector();
+		long t = feed(detector, 1, 5_000_000_000L, 0.01f, 0f);
+		assertEquals(MotionState.MOVING, detector.getState());
+
+		feed(detector, t, 6_000_000_000L, 0.01f, 0f);
+		assertEquals(MotionState.STATIONARY, detector.getState());
+	}
+
+	@Test
+	public void motionOnsetIsImmediate() {
+		MotionStateDetector detector = new MotionStateDetector(MotionState.STATIONARY);
+		long t = feed(detector, 1, 1_000_000_000L, 0.01f, 0f);
+		assertEquals(MotionState.STATIONARY, detector.getState());
+
+		detector.onLinearAcceleration(t, 0f, 2f, 0f);
+		assertEquals(MotionState.MOVING, detector.getState());
+	}
+
+	@Test
+	public void steadyHighSpeedIsCruising() {
+		MotionStateDetector detector = new MotionStateDetector();
+		long t = feed(detector, 1, 7_000_000_000L, 0.02f, 25f);
+		assertEquals(MotionState.CRUISING, detector.getState());
+
+		feed(detector, t, 1_000_000_000L, 0.02f, 3f);
+		assertEquals(MotionState.MOVING, detector.getState());
+	}
+
+	/**
+	 * Feed small alternating accelerations and, every 250 ms, a GPS speed.
+	 */
+	private static long feed(MotionStateDetector detector, long start, long durationNs, float accel, float speed) {
+		long t = start;
+		int i = 0;
+		for (; t < start + durationNs; t += PERIOD_NS, i++) {
+			detector.onLinearAcceleration(t, (i & 1) == 0 ? accel : -accel, 0f, 0f);
+			if (i % 12 == 0) {
+				detector.onGpsSpeed(t, speed);
+			}
+		}
+		return t;
+	}
+}
@@ -0,0 +1,120 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OdometerJournalTest {
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("odometer", ".journal");
+		file.delete();
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+		File compacted = new File(file.getPath() + ".tmp");
+		new File(compacted, "blocker").delete();
+		compacted.delete();
+	}
+
+	@Test
+	public void keepsFullPrecisionAcrossReopen() throws IOException {
+		double meters = 98_765_432.123456;
+		try (OdometerJournal journal = new OdometerJournal(file)) {
+			assertTrue(journal.isEmpty());
+			journal.update(meters, 1);
+		}
+
+		try (OdometerJournal journal = new OdometerJournal(file)) {
+			assertFalse(journal.isEmpty());
+			assertEquals(meters, journal.getMeters(), 0);
+		}
+	}
+
+	@Test
+	public void appendsArePacedButNotLostOnKill() throws IOException {
+		OdometerJournal journal = new OdometerJournal(file, 1000, 5000);
+		journal.update(10, 1000);
+		journal.update(20, 1500); // within the append interval, in memory only
+		journal.update(30, 2000);
+		// process killed: no close, no sync
+		assertEquals(2 * 16, file.length());
+
+		try (OdometerJournal reopened = new OdometerJournal(file)) {
+			assertEquals(30, reopened.getMeters(), 0);
+		}
+	}
+
+	@Test
+	public void tornRecordIsDiscarded() throws IOException {
+		try (OdometerJournal journal = new OdometerJournal(file, 0, 0)) {
+			journal.update(100, 1);
+			journal.update(200, 2);
+		}
+		try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+			raw.setLength(raw.length() - 3);
+		}
+
+		try (OdometerJournal journal = new OdometerJournal(file)) {
+			assertEquals(100, journal.getMeters(), 0);
+			assertEquals(16, file.length());
+			journal.update(300, 1);
+		}
+		try (OdometerJournal journal = new OdometerJournal(file)) {
+			assertEquals(300, journal.getMeters(), 0);
+		}
+	}
+
+	@Test
+	public void compactsLongJournal() throws IOException {
+		try (OdometerJournal journal = new OdometerJournal(file, 0, 1000)) {
+			for (int i = 1; i <= 10_000; i++) {
+				journal.update(i * 0.5, i);
+			}
+		}
+		assertTrue(file.length() < 4096 * 16);
+
+		try (OdometerJournal journal = new OdometerJournal(file)) {
+			assertEquals(5000, journal.getMeters(), 0);
+		}
+	}
+
+	@Test
+	public void failedCompactionBacksOff() throws IOException {
+		try (OdometerJournal journal = new OdometerJournal(file)) {
+			journal.update(0.5, 1);
+		}
+		// a directory in the way of the compacted file
+		File compacted = new File(file.getPath() + ".tmp");
+		assertTrue(compacted.mkdir());
+		assertTrue(new File(compacted, "blocker").createNewFile());
+
+		int failures = 0;
+		try (OdometerJournal journal = new OdometerJournal(file, 0, 1000)) {
+			for (int i = 2; i <= 6000; i++) {
+				try {
+					journal.update(i * 0.5, i);
+				} catch (IOException e) {
+					failures++;
+				}
+			}
+		}
+		assertEquals(1, failures);
+
+		try (OdometerJournal journal = new OdometerJournal(file)) {
+			assertEquals(3000, journal.getMeters(), 0);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SampleRingTest {
+	@Test
+	public void evictsOldestWhenFull() {
+		SampleRing ring = new SampleRing(3);
+		assertFalse(ring.add(1, 10));
+		assertFalse(ring.add(2, 20));
+		assertFalse(ring.add(3, 30));
+		assertTrue(ring.add(4, 40));
+
+		assertEquals(3, ring.size());
+		assertEquals(2f, ring.getX(0), 0f);
+		assertEquals(40f, ring.getY(2), 0f);
+
+		ring.removeFirst();
+		ring.removeLast();
+		assertEquals(1, ring.size());
+		assertEquals(3f, ring.getX(0), 0f);
+	}
+
+	@Test
+	public void removeKeepsOrderAcrossWrap() {
+		SampleRing ring = new SampleRing(4);
+		for (int i = 0; i < 6; i++) {
+			ring.add(i, i * 10);
+		}
+		ring.remove(1);
+
+		assertEquals(3, ring.size());
+		assertEquals(2f, ring.getX(0), 0f);
+		assertEquals(4f, ring.getX(1), 0f);
+		assertEquals(5f, ring.getX(2), 0f);
+	}
+
+	@Test
+	public void searchesByX() {
+		SampleRing ring = new SampleRing(5);
+		for (int i = 0; i < 8; i++) {
+			ring.add(i * 2, 0);
+		}
+		// x: 6, 8, 10, 12, 14
+		assertEquals(-1, ring.floorIndex(5));
+		assertEquals(1, ring.floorIndex(9));
+		assertEquals(1, ring.floorIndex(8));
+		assertEquals(2, ring.ceilIndex(9));
+		assertEquals(-1, ring.ceilIndex(15));
+	}
+
+	@Test
+	public void appendDoesNotAllocate() {
+		SampleRing ring = new SampleRing(2400);
+		for (int i = 0; i < 100_000; i++) {
+			ring.add(i, i);
+		}
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < 1_000_000; i++) {
+			ring.add(i, i);
+		}
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+		assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+	}
+}
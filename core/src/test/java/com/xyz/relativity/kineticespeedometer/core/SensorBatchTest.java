@@ -0,0 +1,67 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SensorBatchTest {
+	private static final long PERIOD_NS = 20_000_000L;
+
+	@Test
+	public void mergesFifoRuns() {
+		SensorBatch batch = new SensorBatch(64);
+		// accelerometer run first, then the rotation run of the same period
+		for (int i = 0; i < 32; i++) {
+			batch.add(SensorBatch.TYPE_LINEAR_ACCELERATION, i * PERIOD_NS, i, 0f, 0f, 0f);
+		}
+		for (int i = 0; i < 32; i++) {
+			batch.add(SensorBatch.TYPE_ROTATION_VECTOR, i * PERIOD_NS + 1, i, 0f, 0f, 1f);
+		}
+		batch.sortByTimestamp();
+
+		for (int i = 0; i < 64; i++) {
+			assertEquals(i % 2 == 0 ? SensorBatch.TYPE_LINEAR_ACCELERATION : SensorBatch.TYPE_ROTATION_VECTOR, batch.types[i]);
+			assertEquals(i / 2, batch.x[i], 0f);
+		}
+	}
+
+	@Test
+	public void equalTimestampsKeepTheirOrder() {
+		SensorBatch batch = new SensorBatch(4);
+		batch.add(SensorBatch.TYPE_LINEAR_ACCELERATION, 20, 1f, 0f, 0f, 0f);
+		batch.add(SensorBatch.TYPE_ROTATION_VECTOR, 10, 2f, 0f, 0f, 0f);
+		batch.add(SensorBatch.TYPE_ROTATION_VECTOR, 20, 3f, 0f, 0f, 0f);
+		batch.add(SensorBatch.TYPE_LINEAR_ACCELERATION, 30, 4f, 0f, 0f, 0f);
+		batch.sortByTimestamp();
+
+		assertEquals(2f, batch.x[0], 0f);
+		assertEquals(1f, batch.x[1], 0f);
+		assertEquals(3f, batch.x[2], 0f);
+		assertEquals(4f, batch.x[3], 0f);
+	}
+
+	@Test
+	public void randomInterleavingIsSorted() {
+		Random random = new Random(5);
+		SensorBatch batch = new SensorBatch(512);
+		long accel = 0;
+		long rotation = 0;
+		while (!batch.isFull()) {
+			if (random.nextBoolean()) {
+				accel += random.nextInt(3) * PERIOD_NS;
+				batch.add(SensorBatch.TYPE_LINEAR_ACCELERATION, accel, 0f, 0f, 0f, 0f);
+			} else {
+				rotation += random.nextInt(3) * PERIOD_NS;
+				batch.add(SensorBatch.TYPE_ROTATION_VECTOR, rotation, 0f, 0f, 0f, 0f);
+			}
+		}
+		batch.sortByTimestamp();
+
+		for (int i = 1; i < batch.size(); i++) {
+			assertTrue(batch.timestamps[i - 1] <= batch.timestamps[i]);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SensorLogReplayTest {
+	private static final long SENSOR_PERIOD_NS = 20_000_000L;
+
+	@Test
+	public void recordsRoundTrip() throws IOException {
+		File log = File.createTempFile("sensors", ".kesl");
+		try {
+			try (SensorLogWriter writer = new SensorLogWriter(log, 2)) {
+				writer.writeRotationVector(10L, 0.1f, 0.2f, 0.3f, SpeedFusionEngine.NO_SCALAR);
+				writer.writeLinearAcceleration(20L, 1f, 2f, 3f);
+				writer.writeGps(30L, 47.123456789, -122.987654321, true, 13.5f, false, 270f, 4f);
+			}
+			assertEquals(SensorLogWriter.FILE_HEADER_SIZE + 3 * SensorLogRecord.SIZE, log.length());
+
+			SensorLogRecord record = new SensorLogRecord();
+			try (SensorLogReader reader = new SensorLogReader(log)) {
+				assertTrue(reader.next(record));
+				assertEquals(SensorLogRecord.TYPE_ROTATION_VECTOR, record.type);
+				assertEquals(0.3f, record.z, 0f);
+				assertTrue(Float.isNaN(record.w));
+
+				assertTrue(reader.next(record));
+				assertEquals(SensorLogRecord.TYPE_LINEAR_ACCELERATION, record.type);
+				assertEquals(20L, record.timestampNs);
+				assertEquals(2f, record.y, 0f);
+
+				assertTrue(reader.next(record));
+				assertEquals(SensorLogRecord.TYPE_GPS, record.type);
+				assertEquals(47.123456789, record.latitude, 0);
+				assertEquals(-122.987654321, record.longitude, 0);
+				assertTrue(record.hasSpeed());
+				assertTrue(!record.hasBearing());
+				assertEquals(13.5f, record.speedMps, 0f);
+
+				assertTrue(!reader.next(record));
+			}
+		} finally {
+			log.delete();
+		}
+	}
+
+	@Test
+	public void truncatedRecordIsIgnored() throws IOException {
+		File log = File.createTempFile("sensors", ".kesl");
+		try {
+			try (SensorLogWriter writer = new SensorLogWriter(log)) {
+				writer.writeLinearAcceleration(20L, 1f, 2f, 3f);
+				writer.writeLinearAcceleration(40L, 1f, 2f, 3f);
+			}
+			try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+				file.setLength(file.length() - 5);
+			}
+
+			SensorLogReplay.Result result = new SensorLogReplay(new SpeedFusionEngine()).replay(log);
+			assertEquals(1, result.events);
+		} finally {
+			log.delete();
+		}
+	}
+
+	@Test
+	public void replayIsDeterministic() throws IOException {
+		File log = File.createTempFile("sensors", ".kesl");
+		try {
+			int events = record(log);
+
+			for (EstimatorMode mode : EstimatorMode.values()) {
+				SensorLogReplay replay = new SensorLogReplay(new SpeedFusionEngine(mode));
+				SensorLogReplay.Result first = replay.replay(log);
+				SensorLogReplay.Result second = replay.replay(log);
+				SensorLogReplay.Result fresh = new SensorLogReplay(new SpeedFusionEngine(mode)).replay(log);
+
+				assertEquals(events, first.events);
+				assertTrue(first.distanceMeters > 0);
+				for (SensorLogReplay.Result other : new SensorLogReplay.Result[]{second, fresh}) {
+					assertEquals(first.speedDigest, other.speedDigest);
+					assertEquals(first.finalSpeedMps, other.finalSpeedMps, 0f);
+					assertEquals(first.specificEnergy, other.specificEnergy, 0);
+					assertEquals(first.distanceMeters, other.distanceMeters, 0);
+				}
+			}
+		} finally {
+			log.delete();
+		}
+	}
+
+	private static int record(File log) throws IOException {
+		int events = 0;
+		try (SensorLogWriter writer = new SensorLogWriter(log)) {
+			long t = SENSOR_PERIOD_NS;
+			for (int i = 0; i < 200_000; i++, t += SENSOR_PERIOD_NS) {
+				float phase = i * 0.001f;
+				writer.writeRotationVector(t - 1, 0f, 0f, 0.05f * (float) Math.sin(phase), SpeedFusionEngine.NO_SCALAR);
+				writer.writeLinearAcceleration(t, 0.1f, 1.5f * (float) Math.sin(phase * 3), 0.02f);
+				events += 2;
+				if (i % 50 == 0) {
+					writer.writeGps(t, 47 + i * 1e-6, 8 + i * 1e-6, true, 15f + 10f * (float) Math.sin(phase * 3), true, 5f, 4f);
+					events++;
+				}
+			}
+		}
+		return events;
+	}
+}
@@ -0,0 +1,50 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SlidingMinMaxTest {
+	private static final int SAMPLES = 5000;
+	private static final int WINDOW = 240;
+
+	@Test
+	public void matchesBruteForce() {
+		Random random = new Random(3);
+		float[] ys = new float[SAMPLES];
+		SlidingMinMax tracker = new SlidingMinMax(WINDOW + 1);
+		for (int i = 0; i < SAMPLES; i++) {
+			ys[i] = (float) (Math.sin(i * 0.02) * 50 + random.nextGaussian() * 5);
+			tracker.add(i, ys[i]);
+			tracker.evictBefore(i - WINDOW);
+
+			float min = Float.MAX_VALUE;
+			float max = -Float.MAX_VALUE;
+			for (int j = Math.max(0, i - WINDOW); j <= i; j++) {
+				min = Math.min(min, ys[j]);
+				max = Math.max(max, ys[j]);
+			}
+			assertEquals("min at " + i, min, tracker.getMin(), 0f);
+			assertEquals("max at " + i, max, tracker.getMax(), 0f);
+		}
+	}
+
+	@Test
+	public void monotonicInputKeepsWholeWindow() {
+		SlidingMinMax tracker = new SlidingMinMax(WINDOW);
+		for (int i = 0; i < WINDOW; i++) {
+			tracker.add(i, -i);
+		}
+		assertEquals(0f, tracker.getMax(), 0f);
+		assertEquals(-(WINDOW - 1), tracker.getMin(), 0f);
+
+		tracker.evictBefore(WINDOW - 1);
+		assertEquals(-(WINDOW - 1), tracker.getMax(), 0f);
+
+		tracker.evictBefore(WINDOW);
+		assertTrue(tracker.isEmpty());
+	}
+}
@@ -0,0 +1,193 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpeedFusionEngineTest {
+	private static final long SENSOR_PERIOD_NS = 20_000_000L; // SENSOR_DELAY_GAME
+	private static final long GPS_PERIOD_NS = 250_000_000L;
+
+	@Test
+	public void firstGpsFixSetsSpeed() {
+		SpeedFusionEngine engine = new SpeedFusionEngine();
+		engine.onGpsFix(1_000_000_000L, 0, 0, true, 12.5f, true, 90f, 5f);
+
+		assertTrue(engine.hasGpsFix());
+		assertEquals(12.5f, engine.getSpeedMps(), 0f);
+	}
+
+	@Test
+	public void inaccurateFixIsIgnored() {
+		SpeedFusionEngine engine = new SpeedFusionEngine();
+		engine.onGpsFix(1_000_000_000L, 0, 0, true, 12.5f, true, 90f, 50f);
+
+		assertEquals(0f, engine.getSpeedMps(), 0f);
+	}
+
+	@Test
+	public void forwardAccelerationIncreasesSpeed() {
+		SpeedFusionEngine engine = new SpeedFusionEngine();
+		engine.onRotationVector(0f, 0f, 0f, 1f); // device axes aligned with world axes
+		engine.onGpsFix(1L, 0, 0, true, 10f, true, 0f, 5f); // heading north, along world y
+
+		long t = 1;
+		for (int i = 0; i <= 50; i++, t += SENSOR_PERIOD_NS) {
+			engine.onLinearAcceleration(t, 0f, 2f, 0f);
+		}
+
+		assertTrue(engine.getSpeedMps() > 10f);
+		assertTrue(engine.getAccelerationMps2() > 1f);
+	}
+
+	@Test
+	public void pauseIsNotIntegrated() {
+		SpeedFusionEngine engine = new SpeedFusionEngine();
+		engine.onRotationVector(0f, 0f, 0f, 1f);
+		engine.onGpsFix(1L, 0, 0, true, 10f, true, 0f, 5f);
+		long t = 1;
+		for (int i = 0; i <= 50; i++, t += SENSOR_PERIOD_NS) {
+			engine.onLinearAcceleration(t, 0f, 0.5f, 0f);
+		}
+		float speed = engine.getSpeedMps();
+		double meters = engine.getDistanceMeters();
+
+		// five minutes without sensors
+		t += 300_000_000_000L;
+		engine.onLinearAcceleration(t, 0f, 0.5f, 0f);
+		assertEquals(speed, engine.getSpeedMps(), 0f);
+		assertEquals(meters, engine.getDistanceMeters(), 0);
+
+		engine.resumeAfterGap();
+		t += 300_000_000_000L;
+		engine.onLinearAcceleration(t, 0f, 0.5f, 0f);
+		engine.onLinearAcceleration(t + SENSOR_PERIOD_NS, 0f, 0.5f, 0f);
+		assertEquals(speed, engine.getSpeedMps(), 0.01f);
+		assertEquals(meters, engine.getDistanceMeters(), 0.5);
+	}
+
+	@Test
+	public void missingScalarIsDerived() {
+		SpeedFusionEngine withScalar = new SpeedFusionEngine();
+		SpeedFusionEngine withoutScalar = new SpeedFusionEngine();
+		float s = (float) Math.sin(Math.toRadians(15));
+		float c = (float) Math.cos(Math.toRadians(15));
+		withScalar.onRotationVector(0f, 0f, s, c);
+		withoutScalar.onRotationVector(0f, 0f, s, SpeedFusionEngine.NO_SCALAR);
+
+		for (long t = 1; t < 40 * SENSOR_PERIOD_NS; t += SENSOR_PERIOD_NS) {
+			withScalar.onLinearAcceleration(t, 1f, 1f, 0f);
+			withoutScalar.onLinearAcceleration(t, 1f, 1f, 0f);
+		}
+
+		assertEquals(withScalar.getSpeedMps(), withoutScalar.getSpeedMps(), 1e-4f);
+	}
+
+	@Test
+	public void steadyStateDoesNotAllocate() {
+		for (EstimatorMode mode : EstimatorMode.values()) {
+			SpeedFusionEngine engine = new SpeedFusionEngine(mode);
+			drive(engine, 100_000); // warm up
+
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+			long threadId = Thread.currentThread().getId();
+			long before = threads.getThreadAllocatedBytes(threadId);
+			drive(engine, 1_000_000);
+			long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+			assertTrue(mode + " allocated " + allocated + " bytes", allocated < 1024);
+		}
+	}
+
+	@Test
+	public void kalmanRejectsGpsOutlier() {
+		SpeedFusionEngine engine = new SpeedFusionEngine(EstimatorMode.KALMAN);
+		engine.onRotationVector(0f, 0f, 0f, 1f);
+		long t = 1;
+		for (int i = 0; i < 10; i++, t += GPS_PERIOD_NS) {
+			engine.onGpsFix(t, 0, 0, true, 20f, true, 0f, 4f);
+			engine.onLinearAcceleration(t, 0f, 0f, 0f);
+		}
+		engine.onGpsFix(t, 0, 0, true, 45f, true, 0f, 4f);
+
+		assertEquals(1, engine.getRejectedGpsFixCount());
+		assertEquals(20f, engine.getSpeedMps(), 0.5f);
+	}
+
+	@Test
+	public void batchMatchesEventByEvent() {
+		SpeedFusionEngine direct = new SpeedFusionEngine();
+		SpeedFusionEngine batched = new SpeedFusionEngine();
+		direct.onGpsFix(1L, 0, 0, true, 10f, true, 45f, 5f);
+		batched.onGpsFix(1L, 0, 0, true, 10f, true, 45f, 5f);
+
+		SensorBatch batch = new SensorBatch(64);
+		long t = 1;
+		for (int i = 0; i < 32; i++, t += SENSOR_PERIOD_NS) {
+			float rz = 0.01f * i;
+			direct.onRotationVector(0f, 0f, rz, SpeedFusionEngine.NO_SCALAR);
+			direct.onLinearAcceleration(t, 0.5f, 1f, 0f);
+		}
+		// the FIFO delivers all accelerometer events before the rotation events of the same period
+		t = 1;
+		for (int i = 0; i < 32; i++, t += SENSOR_PERIOD_NS) {
+			batch.add(SensorBatch.TYPE_LINEAR_ACCELERATION, t, 0.5f, 1f, 0f, 0f);
+		}
+		t = 1;
+		for (int i = 0; i < 32; i++, t += SENSOR_PERIOD_NS) {
+			batch.add(SensorBatch.TYPE_ROTATION_VECTOR, t - 1, 0f, 0f, 0.01f * i, SpeedFusionEngine.NO_SCALAR);
+		}
+		assertTrue(batch.isFull());
+		batched.processBatch(batch);
+
+		assertEquals(direct.getSpeedMps(), batched.getSpeedMps(), 0f);
+		assertEquals(direct.getAccelerationMps2(), batched.getAccelerationMps2(), 0f);
+	}
+
+	@Test
+	public void longDriveIsDeterministic() {
+		SpeedFusionEngine first = new SpeedFusionEngine();
+		SpeedFusionEngine second = new SpeedFusionEngine();
+		drive(first, 1_000_000);
+		// the same events in two deliveries end in the same state
+		drive(second, 400_000);
+		drive(second, 600_000, 400_000);
+
+		assertTrue(Float.isFinite(first.getSpeedMps()));
+		assertTrue(Float.isFinite(first.getAccelerationMps2()));
+		assertEquals(first.getSpeedMps(), second.getSpeedMps(), 0f);
+		assertEquals(first.getAccelerationMps2(), second.getAccelerationMps2(), 0f);
+		assertEquals(first.getDistanceMeters(), second.getDistanceMeters(), 0);
+	}
+
+	/**
+	 * Feed a synthetic drive: accelerometer and rotation at game rate, GPS at 4 Hz.
+	 */
+	static void drive(SpeedFusionEngine engine, int events) {
+		drive(engine, events, 0);
+	}
+
+	/**
+	 * Continue a synthetic drive from event first.
+	 */
+	static void drive(SpeedFusionEngine engine, int events, int first) {
+		long t = 1 + first * SENSOR_PERIOD_NS;
+		// GPS fixes at the first sensor event of every GPS period
+		long nextGps = first == 0 ? 0 : ((t - SENSOR_PERIOD_NS) / GPS_PERIOD_NS + 1) * GPS_PERIOD_NS;
+		for (int i = first; i < first + events; i++, t += SENSOR_PERIOD_NS) {
+			float phase = i * 0.01f;
+			if ((i & 1) == 0) {
+				engine.onRotationVector(0f, 0f, 0.1f * (float) Math.sin(phase), SpeedFusionEngine.NO_SCALAR);
+			} else {
+				engine.onLinearAcceleration(t, 0.2f, (float) Math.sin(phase), 0.05f);
+			}
+			if (t >= nextGps) {
+				engine.onGpsFix(t, 0, 0, true, 15f + 5f * (float) Math.sin(phase), true, 10f, 4f);
+				nextGps += GPS_PERIOD_NS;
+			}
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Bytes allocated by the current thread, through the HotSpot extension of the thread MX bean. Tests
+ * using it are skipped on JVMs without per thread allocation counters.
+ */
+final class ThreadAllocations {
+	private final Object threads = ManagementFactory.getThreadMXBean();
+	private final Method allocatedBytes;
+
+	ThreadAllocations() {
+		Method method;
+		try {
+			method = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+		} catch (ClassNotFoundException | NoSuchMethodException e) {
+			method = null;
+		}
+		assumeTrue("per thread allocation counters unavailable", method != null && method.getDeclaringClass().isInstance(threads));
+		allocatedBytes = method;
+	}
+
+	long get() throws Exception {
+		return (Long) allocatedBytes.invoke(threads, Thread.currentThread().getId());
+	}
+}
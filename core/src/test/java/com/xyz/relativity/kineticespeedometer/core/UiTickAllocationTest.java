@@ -0,0 +1,105 @@
+package com.xyz.relativity.kineticespeedometer.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the work of the 10 Hz UI tick of the app that is not view code, with the app's dimensions:
+ * history append, text formatting, and the chart feed of a following history chart with its incremental
+ * appends, periodic rebuilds and sliding axis bounds.
+ */
+public class UiTickAllocationTest {
+	private static final int SERIES = 3;
+	private static final int LEVEL_CAPACITY = 2400;
+	private static final int LEVELS = 8;
+	private static final float TICK_MS = 100f;
+	private static final float WINDOW_MS = LEVEL_CAPACITY * TICK_MS;
+	private static final int PIXELS = 1000;
+
+	private final HistoryPyramid history = new HistoryPyramid(SERIES, LEVEL_CAPACITY, LEVELS);
+	private final float[] sample = new float[SERIES];
+	private final FixedPointFormatter odometer = new FixedPointFormatter(32);
+	private final FixedPointFormatter speed = new FixedPointFormatter(16);
+	private final FixedPointFormatter energy = new FixedPointFormatter(16);
+
+	private final SampleRing scratch = new SampleRing(5 * LEVEL_CAPACITY + 2 * LEVELS);
+	private final SampleRing[] chartSeries = new SampleRing[SERIES];
+	private final MinMaxDownsampler[] downsamplers = new MinMaxDownsampler[SERIES];
+	private final SlidingMinMax[] windows = new SlidingMinMax[SERIES];
+	private float fedX;
+	private float rebuildAtX = -1;
+	private long trackedSamples = 0;
+
+	@Test
+	public void uiTickDoesNotAllocate() throws Exception {
+		ThreadAllocations allocations = new ThreadAllocations();
+		for (int s = 0; s < SERIES; s++) {
+			chartSeries[s] = new SampleRing(scratch.capacity());
+			downsamplers[s] = new MinMaxDownsampler();
+			windows[s] = new SlidingMinMax(LEVEL_CAPACITY);
+		}
+		// past the first window, so every level and every ring is in use
+		for (int i = 0; i < 2 * LEVEL_CAPACITY; i++) {
+			tick(i);
+		}
+
+		long before = allocations.get();
+		for (int i = 2 * LEVEL_CAPACITY; i < 12 * LEVEL_CAPACITY; i++) {
+			tick(i);
+		}
+		long allocated = allocations.get() - before;
+
+		assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+	}
+
+	private void tick(int i) {
+		float x = i * TICK_MS;
+		float speedKph = (float) (Math.sin(i * 0.001) * 100 + 100);
+		sample[0] = speedKph;
+		sample[1] = speedKph * speedKph / 25.92f;
+		sample[2] = (float) Math.cos(i * 0.01);
+		history.add(x, sample);
+
+		odometer.clear().append(i * 2.7 / 1000.0, 11, 2).append(" km");
+		speed.clear().append(speedKph, 1);
+		energy.clear().append(sample[1], 1);
+
+		feedChart();
+	}
+
+	/**
+	 * What HistoryChartAdapter.refresh() does while following.
+	 */
+	private void feedChart() {
+		float to = history.getLastX();
+		float from = Math.max(history.getFirstX(), to - WINDOW_MS);
+		boolean append = to < rebuildAtX;
+		for (int s = 0; s < SERIES; s++) {
+			scratch.clear();
+			if (append) {
+				history.emit(0, s, Math.nextAfter(fedX, Double.POSITIVE_INFINITY), Float.MAX_VALUE, true, scratch);
+			} else {
+				history.fill(s, from, to, LEVEL_CAPACITY, true, scratch);
+				downsamplers[s].reset(chartSeries[s], from, (to - from) / PIXELS);
+			}
+			downsamplers[s].addAll(scratch);
+		}
+		fedX = to;
+		if (!append) {
+			rebuildAtX = to + (to - from) / 4;
+		}
+
+		long samples = history.getSampleCount();
+		int count = history.getRawCount();
+		for (int r = (int) Math.max(0, count - (samples - trackedSamples)); r < count; r++) {
+			for (int s = 0; s < SERIES; s++) {
+				windows[s].add(history.getRawX(r), history.getRawValue(s, r));
+			}
+		}
+		trackedSamples = samples;
+		for (SlidingMinMax window : windows) {
+			window.evictBefore(from);
+		}
+	}
+}
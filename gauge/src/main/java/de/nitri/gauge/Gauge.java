@@ -3,6 +3,7 @@ package de.nitri.gauge;
 import android.content.Context;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.BlurMaskFilter;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -14,12 +15,14 @@ import android.graphics.RectF;
 import android.graphics.Shader;
 import android.graphics.Typeface;
 import android.os.Bundle;
+import android.os.Looper;
 import android.os.Parcelable;
 import android.text.Html;
 import android.text.Spanned;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.View;
 
 import androidx.annotation.ColorInt;
@@ -37,6 +40,8 @@ public class Gauge extends View {
 	private static final float TEXT_OUTLINE_STRENGTH = convertDpToPixel(2).floatValue();
 	private static final float TEXT_GLOW_STRENGTH = convertDpToPixel(2.5).floatValue();
 	private static final float TEXT_GLOW_BLUR_RATIO = 0.5f;
+	private static final Typeface BOLD_TYPEFACE = Typeface.create(Typeface.DEFAULT_BOLD, Typeface.BOLD);
+	private static final int GLOW_FILTER_CACHE_SIZE = 8;
 	private IGaugeNick gaugeNick = new IGaugeNick() {
 		@Override
 		public int getNicColor(int nick, float value) {
@@ -81,31 +86,37 @@ public class Gauge extends View {
 		}
 	};
 
+	private final IGaugeNick defaultGaugeNick = gaugeNick;
+
+	// set by setScale or a config, otherwise built from gaugeNick whenever the dial is rendered
+	private GaugeScale customScale;
+	// customScale was built by a config from its nick handler, dropped once the range or nicks change
+	private boolean customScaleDerived;
+	private GaugeScale scale;
+	// ticks of a transformed quantity, with their scale angles and label anchors
+	private SecondaryScale secondaryScale;
+	private float[] secondaryDegrees = new float[0];
+	private float[] secondaryLabelX = new float[0];
+	private float[] secondaryLabelY = new float[0];
+
 	private Paint needlePaint;
 	private Path needlePath;
 	private Paint needleScrewPaint;
 
-	private float canvasCenterX;
-	private float canvasCenterY;
-	private float canvasWidth;
-	private float canvasHeight;
-	private float needleTailLength;
-	private float needleWidth;
-	private float needleLength;
-	private RectF rimRect;
+	// angles, anchors and layout, this view only draws them
+	private final GaugeGeometry geometry = new GaugeGeometry();
+	private final RectF rimRect = new RectF();
 	private Paint rimPaint;
 	private Paint rimCirclePaint;
-	private RectF faceRect;
+	private final RectF faceRect = new RectF();
 	private Paint facePaint;
 	private Paint rimShadowPaint;
 	private Paint scalePaint;
-	private RectF scaleRect;
+	private final RectF scaleRect = new RectF();
 
 	private int totalNicks = 120;
 	private float startAngle = 20;
 	private float endAngle = 340;
-	private float degreesPerNick = (endAngle - startAngle) / totalNicks;
-	private float valuePerNick = 10;
 	private float minValue = 0;
 	private float maxValue = 1000;
 	private boolean intScale = true;
@@ -116,19 +127,37 @@ public class Gauge extends View {
 	private float value = 0;
 	private float needleValue = 0;
 
-	private float needleStep;
-
-	private float labelRadius;
-
 	private int majorNickInterval = 10;
 	private int minorTicInterval = -1;
 
 	private int deltaTimeInterval = 5;
 	private float needleStepFactor = 3f;
+	// needle speed of the constant velocity profiles, 2 degrees per deltaTimeInterval unless set
+	private float needleDegreesPerSecond = -1;
+	private float needleSpringFrequency = 10f;
+
+	private final NeedleAnimator needleAnimator = new NeedleAnimator();
+	private boolean needleFrameScheduled = false;
+	private final Choreographer.FrameCallback needleFrame = new Choreographer.FrameCallback() {
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			needleFrameScheduled = false;
+			needleAnimator.step(frameTimeNanos);
+			needleValue = needleAnimator.getPosition();
+			invalidate();
+			scheduleNeedleFrame();
+		}
+	};
+	private final Runnable startNeedleAnimation = new Runnable() {
+		@Override
+		public void run() {
+			needleAnimator.setTarget(value, System.nanoTime());
+			scheduleNeedleFrame();
+		}
+	};
 
 	private static final String TAG = Gauge.class.getSimpleName();
 	private Paint labelPaint;
-	private long lastMoveTime;
 	private boolean needleShadow = true;
 	private int faceColor;
 	private int rimColor;
@@ -146,13 +175,24 @@ public class Gauge extends View {
 	private float requestedUpperUnitTextSize = 0;
 	private float requestedLowerTextSize = 0;
 	private float requestedLowerUnitTextSize = 0;
-	private String upperText = "upper";
+	// copied into, so callers can format into a reused buffer every frame
+	private final StringBuilder upperText = new StringBuilder("upper");
 	private String upperTextUnit = "upper unit";
-	private String lowerText = "lower";
+	private final StringBuilder lowerText = new StringBuilder("lower");
 	private String lowerTextUnit = "lower unit";
 
+	// glow mask filters by text size, one per distinct size instead of one per drawn text
+	private final float[] glowFilterSizes = new float[GLOW_FILTER_CACHE_SIZE];
+	private final BlurMaskFilter[] glowFilters = new BlurMaskFilter[GLOW_FILTER_CACHE_SIZE];
+	private int nextGlowFilter = 0;
+
 	private float textScaleFactor;
 
+	// rim, face, scale, labels and units, rendered once and blitted every frame
+	private Bitmap dialCache;
+	private final Canvas dialCanvas = new Canvas();
+	private boolean dialDirty = true;
+
 	private static final int REF_MAX_PORTRAIT_CANVAS_SIZE = 1080; // reference size, scale text accordingly
 
 	public Gauge(Context context) {
@@ -193,9 +233,13 @@ public class Gauge extends View {
 		needleColor = a.getColor(R.styleable.Gauge_needleColor, Color.RED);
 		needleShadow = a.getBoolean(R.styleable.Gauge_needleShadow, needleShadow);
 		requestedTextSize = a.getDimension(R.styleable.Gauge_textSize, requestedTextSize);
-		upperText = a.getString(R.styleable.Gauge_upperText) == null ? upperText : fromHtml(a.getString(R.styleable.Gauge_upperText)).toString();
+		if (a.getString(R.styleable.Gauge_upperText) != null) {
+			replace(upperText, fromHtml(a.getString(R.styleable.Gauge_upperText)));
+		}
 		upperTextUnit = a.getString(R.styleable.Gauge_upperTextUnit) == null ? upperTextUnit : fromHtml(a.getString(R.styleable.Gauge_upperTextUnit)).toString();
-		lowerText = a.getString(R.styleable.Gauge_lowerText) == null ? lowerText : fromHtml(a.getString(R.styleable.Gauge_lowerText)).toString();
+		if (a.getString(R.styleable.Gauge_lowerText) != null) {
+			replace(lowerText, fromHtml(a.getString(R.styleable.Gauge_lowerText)));
+		}
 		lowerTextUnit = a.getString(R.styleable.Gauge_lowerTextUnit) == null ? lowerTextUnit : fromHtml(a.getString(R.styleable.Gauge_lowerTextUnit)).toString();
 		requestedUpperTextSize = a.getDimension(R.styleable.Gauge_upperTextSize, 0);
 		requestedUpperUnitTextSize = a.getDimension(R.styleable.Gauge_upperTextSize, 0);
@@ -208,18 +252,13 @@ public class Gauge extends View {
 	}
 
 	private void initValues() {
-		degreesPerNick = (endAngle - startAngle) / totalNicks;
-		valuePerNick = (maxValue - minValue) / totalNicks;
-		needleStep = needleStepFactor * valuePerDegree();
+		dialDirty = true;
+		geometry.setScale(minValue, maxValue, startAngle, endAngle, totalNicks);
 		needleValue = value = initialValue;
+		configureNeedleAnimator();
+		needleAnimator.jumpTo(initialValue);
 
-		if (majorNickInterval % 2 == 0) {
-			minorTicInterval = majorNickInterval / 2;
-		} else if (majorNickInterval % 3 == 0) {
-			minorTicInterval = majorNickInterval / 3;
-		} else if (majorNickInterval % 5 == 0) {
-			minorTicInterval = majorNickInterval / 5;
-		}
+		minorTicInterval = GaugeConfig.minorNickInterval(majorNickInterval);
 
 		int widthPixels = getResources().getDisplayMetrics().widthPixels;
 		textScaleFactor = (float) widthPixels / (float) REF_MAX_PORTRAIT_CANVAS_SIZE;
@@ -234,6 +273,7 @@ public class Gauge extends View {
 	private void initPaint() {
 
 		setSaveEnabled(true);
+		dialDirty = true;
 
 		// Rim and shadow are based on the Vintage Thermometer:
 		// http://mindtherobot.com/blog/272/android-custom-ui-making-a-vintage-thermometer/
@@ -315,38 +355,128 @@ public class Gauge extends View {
 	protected void onDraw(Canvas canvas) {
 		super.onDraw(canvas);
 
-		drawRim(canvas);
-		drawFace(canvas);
-		drawScale(canvas);
+		drawDial(canvas);
 		drawTexts(canvas);
-		canvas.rotate(scaleToCanvasDegrees(valueToDegrees(needleValue)), canvasCenterX, canvasCenterY);
+		canvas.rotate(geometry.needleDegrees(needleValue), geometry.getCenterX(), geometry.getCenterY());
 		canvas.drawPath(needlePath, needlePaint);
-		canvas.drawCircle(canvasCenterX, canvasCenterY, canvasWidth / 61f, needleScrewPaint);
+		canvas.drawCircle(geometry.getCenterX(), geometry.getCenterY(), geometry.getWidth() / 61f, needleScrewPaint);
+	}
 
-		if (needsToMove()) {
-			moveNeedle();
+	private void configureNeedleAnimator() {
+		float degreesPerSecond = needleDegreesPerSecond > 0 ? needleDegreesPerSecond : 2000f / deltaTimeInterval;
+		needleAnimator.setVelocity(degreesPerSecond * geometry.valuePerDegree());
+		needleAnimator.setSpringFrequency(needleSpringFrequency);
+		// a tenth of a degree is below what the needle can show
+		needleAnimator.setTolerance(0.1f * geometry.valuePerDegree());
+	}
+
+	/**
+	 * Ask for the next vsync while the needle moves, or for the end of a peak hold. Nothing is scheduled
+	 * once it settled.
+	 */
+	private void scheduleNeedleFrame() {
+		long delayNanos = needleAnimator.getNextStepDelayNanos(System.nanoTime());
+		if (delayNanos < 0 || needleFrameScheduled) {
+			return;
+		}
+		needleFrameScheduled = true;
+		if (delayNanos == 0) {
+			Choreographer.getInstance().postFrameCallback(needleFrame);
+		} else {
+			Choreographer.getInstance().postFrameCallbackDelayed(needleFrame, delayNanos / 1_000_000 + 1);
 		}
 	}
 
-	private void moveNeedle() {
-		long currentTime = System.currentTimeMillis();
-		long deltaTime = currentTime - lastMoveTime;
+	/**
+	 * Set the needle target without scheduling frames, for a {@link GaugeTextureView} render thread that
+	 * runs its own frame loop.
+	 */
+	void setNeedleTarget(float value, long nowNanos) {
+		this.value = value;
+		needleAnimator.setTarget(value, nowNanos);
+	}
 
-		if (deltaTime >= deltaTimeInterval) {
-			if (Math.abs(value - needleValue) <= needleStep) {
-				needleValue = value;
-			} else {
-				if (value > needleValue) {
-					needleValue += 2 * valuePerDegree();
-				} else {
-					needleValue -= 2 * valuePerDegree();
-				}
-			}
-			lastMoveTime = System.currentTimeMillis();
-			postInvalidateDelayed(deltaTimeInterval);
+	/**
+	 * Advance the needle to the frame time without scheduling frames, see {@link #setNeedleTarget}.
+	 *
+	 * @return whether the needle moved
+	 */
+	boolean stepNeedle(long frameTimeNanos) {
+		float previous = needleValue;
+		needleAnimator.step(frameTimeNanos);
+		needleValue = needleAnimator.getPosition();
+		return needleValue != previous;
+	}
+
+	/**
+	 * @return see {@link NeedleAnimator#getNextStepDelayNanos(long)}
+	 */
+	long getNeedleStepDelayNanos(long nowNanos) {
+		return needleAnimator.getNextStepDelayNanos(nowNanos);
+	}
+
+	float getValue() {
+		return value;
+	}
+
+	CharSequence getUpperText() {
+		return upperText;
+	}
+
+	CharSequence getLowerText() {
+		return lowerText;
+	}
+
+	/**
+	 * Draw the static part of the gauge from the cache, rendering it first if the size, colors, scale or
+	 * nick handler changed since.
+	 */
+	private void drawDial(Canvas canvas) {
+		int width = (int) geometry.getWidth();
+		int height = (int) geometry.getHeight();
+		if (width <= 0 || height <= 0) {
+			return;
+		}
+		if (dialCache == null || dialCache.getWidth() != width || dialCache.getHeight() != height) {
+			releaseDialCache();
+			dialCache = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+			dialCanvas.setBitmap(dialCache);
+			dialDirty = true;
+		}
+		if (dialDirty) {
+			layoutScale();
+			dialCache.eraseColor(Color.TRANSPARENT);
+			drawRim(dialCanvas);
+			drawFace(dialCanvas);
+			drawScale(dialCanvas);
+			drawUnits(dialCanvas);
+			dialDirty = false;
+		}
+		canvas.drawBitmap(dialCache, 0, 0, null);
+	}
+
+	void releaseDialCache() {
+		if (dialCache != null) {
+			dialCanvas.setBitmap(null);
+			dialCache.recycle();
+			dialCache = null;
 		}
 	}
 
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		scheduleNeedleFrame();
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		Choreographer.getInstance().removeFrameCallback(needleFrame);
+		needleFrameScheduled = false;
+		releaseDialCache();
+	}
+
 	private void drawRim(Canvas canvas) {
 		canvas.drawOval(rimRect, rimPaint);
 		canvas.drawOval(rimRect, rimCirclePaint);
@@ -358,67 +488,112 @@ public class Gauge extends View {
 		canvas.drawOval(faceRect, rimShadowPaint);
 	}
 
+	/**
+	 * Resolve the scale and precompute the anchors of the secondary ticks.
+	 */
+	private void layoutScale() {
+		scale = customScale != null ? customScale : GaugeScale.fromNickHandler(gaugeNick, totalNicks, geometry.getValuePerNick());
+
+		int ticks = secondaryScale != null ? secondaryScale.getTickCount() : 0;
+		if (secondaryDegrees.length != ticks) {
+			secondaryDegrees = new float[ticks];
+			secondaryLabelX = new float[ticks];
+			secondaryLabelY = new float[ticks];
+		}
+		if (ticks > 0) {
+			geometry.valueAnchors(secondaryScale.values, ticks, secondaryDegrees, secondaryLabelX, secondaryLabelY);
+		}
+	}
+
 	private void drawScale(Canvas canvas) {
+		float centerX = geometry.getCenterX();
+		float centerY = geometry.getCenterY();
+		float[] nickDegrees = geometry.getNickDegrees();
 		float y1 = scaleRect.top;
-		float y2 = y1 + (0.020f * canvasHeight);
-		float y3 = y1 + (0.060f * canvasHeight);
-		float y4 = y1 + (0.030f * canvasHeight);
+		float y2 = y1 + (0.020f * geometry.getHeight());
+		float y3 = y1 + (0.060f * geometry.getHeight());
+		float y4 = y1 + (0.030f * geometry.getHeight());
 
-		for (int i = 0; i <= totalNicks; ++i) {
+		for (int i = 0; i <= scale.getTotalNicks(); ++i) {
 			canvas.save();
+			canvas.rotate(nickDegrees[i], centerX, centerY);
 
-			float value = i * valuePerNick;
-			canvas.rotate(i * degreesPerNick + 180 + startAngle, canvasCenterX, canvasCenterY);
-
-			if (gaugeNick.shouldDrawMajorNick(i, value)) {
-				scalePaint.setColor(gaugeNick.getMajorNicColor(i, value));
-				canvas.drawLine(canvasCenterX, y1, canvasCenterX, y3, scalePaint);
+			if (scale.major[i]) {
+				scalePaint.setColor(scale.majorColor[i]);
+				canvas.drawLine(centerX, y1, centerX, y3, scalePaint);
 			}
 
-			if (gaugeNick.shouldDrawHalfNick(i, value)) {
-				scalePaint.setColor(gaugeNick.getHalfNicColor(i, value));
-				canvas.drawLine(canvasCenterX, y1, canvasCenterX, y4, scalePaint);
+			if (scale.half[i]) {
+				scalePaint.setColor(scale.halfColor[i]);
+				canvas.drawLine(centerX, y1, centerX, y4, scalePaint);
 			}
 
-			scalePaint.setColor(gaugeNick.getNicColor(i, value));
-			canvas.drawLine(canvasCenterX, y1, canvasCenterX, y2, scalePaint);
+			scalePaint.setColor(scale.nickColor[i]);
+			canvas.drawLine(centerX, y1, centerX, y2, scalePaint);
 
 			canvas.restore();
-			drawLabels(canvas, i);
 		}
+
+		if (secondaryScale != null) {
+			scalePaint.setColor(secondaryScale.color);
+			for (int i = 0; i < secondaryDegrees.length; i++) {
+				canvas.save();
+				canvas.rotate(secondaryDegrees[i], centerX, centerY);
+				canvas.drawLine(centerX, y1, centerX, secondaryScale.major[i] ? y3 : y4, scalePaint);
+				canvas.restore();
+			}
+		}
+		drawLabels(canvas);
 	}
 
-	private void drawLabels(Canvas canvas, int i) {
-		String valueLabel = gaugeNick.getNicLabelString(i, i * valuePerNick);
-		if (valueLabel != null) {
-			labelPaint.setColor(gaugeNick.getNicLabelColor());
-			float scaleAngle = (i * degreesPerNick) + 180 + startAngle;
-			float scaleAngleRads = (float) Math.toRadians(scaleAngle);
-			//Log.d(TAG, "i = " + i + ", angle = " + scaleAngle + ", value = " + value);
-			float deltaX = labelRadius * (float) Math.sin(scaleAngleRads);
-			float deltaY = labelRadius * (float) Math.cos(scaleAngleRads);
-			drawTextCentered(valueLabel, canvasCenterX + deltaX, canvasCenterY - deltaY, labelPaint, canvas);
+	private void drawLabels(Canvas canvas) {
+		float[] labelX = geometry.getNickLabelX();
+		float[] labelY = geometry.getNickLabelY();
+		labelPaint.setColor(scale.labelColor);
+		for (int i = 0; i <= scale.getTotalNicks(); ++i) {
+			if (scale.labels[i] != null) {
+				drawTextCentered(scale.labels[i], labelX[i], labelY[i], labelPaint, canvas);
+			}
+		}
+		if (secondaryScale != null) {
+			labelPaint.setColor(secondaryScale.color);
+			for (int i = 0; i < secondaryDegrees.length; i++) {
+				if (secondaryScale.labels[i] != null) {
+					drawTextCentered(secondaryScale.labels[i], secondaryLabelX[i], secondaryLabelY[i], labelPaint, canvas);
+				}
+			}
 		}
 	}
 
 	private void drawTexts(Canvas canvas) {
-		drawTextCentered(upperText, canvasCenterX, canvasCenterY - canvasCenterY / 4, upperTextPaint, canvas);
-		drawTextCentered(upperTextUnit, upperTextUnitPaint.getTextSize() / 2, true, canvasCenterX, scaleRect.bottom - upperTextUnitPaint.getTextSize(), upperTextUnitPaint, canvas);
-		drawTextCentered(lowerText, canvasCenterX, canvasCenterY + canvasCenterY / 4, lowerTextPaint, canvas);
-		drawTextCentered(lowerTextUnit, lowerTextUnitPaint.getTextSize() / 2, true, canvasCenterX, scaleRect.bottom - lowerTextUnitPaint.getTextSize() * 0.4f, lowerTextUnitPaint, canvas);
+		float centerX = geometry.getCenterX();
+		float centerY = geometry.getCenterY();
+		drawTextCentered(upperText, centerX, centerY - centerY / 4, upperTextPaint, canvas);
+		drawTextCentered(lowerText, centerX, centerY + centerY / 4, lowerTextPaint, canvas);
+	}
+
+	private void drawUnits(Canvas canvas) {
+		float centerX = geometry.getCenterX();
+		drawTextCentered(upperTextUnit, upperTextUnitPaint.getTextSize() / 2, true, centerX, scaleRect.bottom - upperTextUnitPaint.getTextSize(), upperTextUnitPaint, canvas);
+		drawTextCentered(lowerTextUnit, lowerTextUnitPaint.getTextSize() / 2, true, centerX, scaleRect.bottom - lowerTextUnitPaint.getTextSize() * 0.4f, lowerTextUnitPaint, canvas);
 	}
 
 	@Override
 	protected void onSizeChanged(int w, int h, int oldw, int oldh) {
 		super.onSizeChanged(w, h, oldw, oldh);
+		layoutDial(w, h);
+	}
 
-		canvasWidth = (float) w;
-		canvasHeight = (float) h;
-		canvasCenterX = w / 2f;
-		canvasCenterY = h / 2f;
-		needleTailLength = canvasWidth / 12f;
-		needleWidth = canvasWidth / 98f;
-		needleLength = (canvasWidth / 2f) * 0.8f;
+	/**
+	 * Size the geometry, shaders and text sizes to the canvas.
+	 */
+	private void layoutDial(int w, int h) {
+		geometry.layout(w, h);
+		float canvasWidth = (float) w;
+		float canvasHeight = (float) h;
+		setRect(rimRect, geometry.getRimRect());
+		setRect(faceRect, geometry.getFaceRect());
+		setRect(scaleRect, geometry.getScaleRect());
 
 		needlePaint.setStrokeWidth(canvasWidth / 197f);
 
@@ -427,17 +602,11 @@ public class Gauge extends View {
 
 		setNeedle();
 
-		rimRect = new RectF(canvasWidth * .05f, canvasHeight * .05f, canvasWidth * 0.95f, canvasHeight * 0.95f);
 		rimPaint.setShader(new LinearGradient(canvasWidth * 0.40f, canvasHeight * 0.0f, canvasWidth * 0.60f, canvasHeight * 1.0f,
 				Color.rgb(0xf0, 0xf5, 0xf0),
 				Color.rgb(0x30, 0x31, 0x30),
 				Shader.TileMode.CLAMP));
 
-		float rimSize = 0.02f * canvasWidth;
-		faceRect = new RectF();
-		faceRect.set(rimRect.left + rimSize, rimRect.top + rimSize,
-				rimRect.right - rimSize, rimRect.bottom - rimSize);
-
 		rimShadowPaint.setShader(new RadialGradient(0.5f * canvasWidth, 0.5f * canvasHeight, faceRect.width() / 2.0f,
 				new int[]{0x00000000, 0x00000500, 0x50000500},
 				new float[]{0.96f, 0.96f, 0.99f},
@@ -447,13 +616,6 @@ public class Gauge extends View {
 		scalePaint.setTextSize(0.045f * canvasWidth);
 		scalePaint.setTextScaleX(0.8f * canvasWidth);
 
-		float scalePosition = 0.015f * canvasWidth;
-		scaleRect = new RectF();
-		scaleRect.set(faceRect.left + scalePosition, faceRect.top + scalePosition,
-				faceRect.right - scalePosition, faceRect.bottom - scalePosition);
-
-		labelRadius = (canvasCenterX - scaleRect.left) * 0.70f;
-
         /*
         Log.d(TAG, "width = " + w);
         Log.d(TAG, "height = " + h);
@@ -482,16 +644,26 @@ public class Gauge extends View {
 		upperTextUnitPaint.setTextSize(requestedUpperUnitTextSize > 0 ? requestedUpperUnitTextSize * textScaleFactor : textSize);
 		lowerTextPaint.setTextSize(requestedLowerTextSize > 0 ? requestedLowerTextSize * textScaleFactor : textSize);
 		lowerTextUnitPaint.setTextSize(requestedLowerUnitTextSize > 0 ? requestedLowerUnitTextSize * textScaleFactor : textSize);
+		dialDirty = true;
+	}
+
+	private static void setRect(RectF target, float[] rect) {
+		target.set(rect[GaugeGeometry.LEFT], rect[GaugeGeometry.TOP], rect[GaugeGeometry.RIGHT], rect[GaugeGeometry.BOTTOM]);
 	}
 
 	private void setNeedle() {
+		float canvasCenterX = geometry.getCenterX();
+		float canvasCenterY = geometry.getCenterY();
+		float needleTailLength = geometry.getNeedleTailLength();
+		float needleWidth = geometry.getNeedleWidth();
+		float needleLength = geometry.getNeedleLength();
 		needlePath.reset();
 		needlePath.moveTo(canvasCenterX - needleTailLength, canvasCenterY);
 		needlePath.lineTo(canvasCenterX, canvasCenterY - (needleWidth / 2));
 		needlePath.lineTo(canvasCenterX + needleLength, canvasCenterY);
 		needlePath.lineTo(canvasCenterX, canvasCenterY + (needleWidth / 2));
 		needlePath.lineTo(canvasCenterX - needleTailLength, canvasCenterY);
-		needlePath.addCircle(canvasCenterX, canvasCenterY, canvasWidth / 49f, Path.Direction.CW);
+		needlePath.addCircle(canvasCenterX, canvasCenterY, geometry.getWidth() / 49f, Path.Direction.CW);
 		needlePath.close();
 
 		needleScrewPaint.setShader(new RadialGradient(canvasCenterX, canvasCenterY, needleWidth / 2,
@@ -532,42 +704,27 @@ public class Gauge extends View {
 			Bundle bundle = (Bundle) state;
 			value = bundle.getFloat("value");
 			needleValue = bundle.getFloat("needleValue");
+			needleAnimator.jumpTo(needleValue);
+			post(startNeedleAnimation);
 			super.onRestoreInstanceState(bundle.getParcelable("superState"));
 		} else {
 			super.onRestoreInstanceState(state);
 		}
 	}
 
-	private float valueToDegrees(float value) {
-		float angle = (value / valuePerNick * degreesPerNick);
-		return angle <= endAngle ? angle + 180 + startAngle : endAngle + 180;
-	}
-
-	private float valuePerDegree() {
-		return valuePerNick / degreesPerNick;
-	}
-
-	private float scaleToCanvasDegrees(float degrees) {
-		return degrees - 90;
-	}
-
-	private boolean needsToMove() {
-		return Math.abs(needleValue - value) > 0;
-	}
-
-	private void drawTextCentered(String text, float textSize, boolean bold, float x, float y, Paint paint, Canvas canvas) {
+	private void drawTextCentered(CharSequence text, float textSize, boolean bold, float x, float y, Paint paint, Canvas canvas) {
 		float currentTextSize = paint.getTextSize();
 		paint.setTextSize(textSize);
 		Typeface typeface = paint.getTypeface();
 		if (bold) {
-			paint.setTypeface(Typeface.create(Typeface.DEFAULT_BOLD, Typeface.BOLD));
+			paint.setTypeface(BOLD_TYPEFACE);
 		}
 		drawTextCentered(text, x, y, paint, canvas);
 		paint.setTextSize(currentTextSize);
 		paint.setTypeface(typeface);
 	}
 
-	private void drawTextCentered(String text, float x, float y, Paint paint, Canvas canvas) {
+	private void drawTextCentered(CharSequence text, float x, float y, Paint paint, Canvas canvas) {
 		//float xPos = x - (paint.measureText(text)/2f);
 		float yPos = (y - ((paint.descent() + paint.ascent()) / 2f));
 
@@ -576,9 +733,9 @@ public class Gauge extends View {
 		//draw glow
 		paint.setStyle(Paint.Style.STROKE);
 		paint.setStrokeWidth(TEXT_GLOW_STRENGTH);
-		paint.setMaskFilter(new BlurMaskFilter(paint.getTextSize() * TEXT_GLOW_BLUR_RATIO, BlurMaskFilter.Blur.NORMAL));
+		paint.setMaskFilter(glowFilter(paint.getTextSize()));
 		paint.setColor(color);
-		canvas.drawText(text, x, yPos, paint);
+		canvas.drawText(text, 0, text.length(), x, yPos, paint);
 
 		//draw outline
 		paint.setStrokeWidth(TEXT_OUTLINE_STRENGTH);
@@ -588,13 +745,31 @@ public class Gauge extends View {
 		} else {
 			paint.setColor(Color.LTGRAY);
 		}
-		canvas.drawText(text, x, yPos, paint);
+		canvas.drawText(text, 0, text.length(), x, yPos, paint);
 
 		//draw text
 		paint.setColor(color);
 		paint.setStyle(Paint.Style.FILL);
 		paint.setMaskFilter(null);
-		canvas.drawText(text, x, yPos, paint);
+		canvas.drawText(text, 0, text.length(), x, yPos, paint);
+	}
+
+	private BlurMaskFilter glowFilter(float textSize) {
+		for (int i = 0; i < GLOW_FILTER_CACHE_SIZE; i++) {
+			if (glowFilters[i] != null && glowFilterSizes[i] == textSize) {
+				return glowFilters[i];
+			}
+		}
+		int slot = nextGlowFilter;
+		nextGlowFilter = (nextGlowFilter + 1) % GLOW_FILTER_CACHE_SIZE;
+		glowFilterSizes[slot] = textSize;
+		glowFilters[slot] = new BlurMaskFilter(textSize * TEXT_GLOW_BLUR_RATIO, BlurMaskFilter.Blur.NORMAL);
+		return glowFilters[slot];
+	}
+
+	private static void replace(StringBuilder target, CharSequence text) {
+		target.setLength(0);
+		target.append(text);
 	}
 
 	/**
@@ -604,6 +779,7 @@ public class Gauge extends View {
 	 */
 	public void setValue(float value) {
 		needleValue = this.value = value;
+		needleAnimator.jumpTo(value);
 		postInvalidate();
 	}
 
@@ -614,7 +790,50 @@ public class Gauge extends View {
 	 */
 	public void moveToValue(float value) {
 		this.value = value;
-		postInvalidate();
+		if (Looper.myLooper() == Looper.getMainLooper()) {
+			startNeedleAnimation.run();
+		} else {
+			post(startNeedleAnimation);
+		}
+	}
+
+	/**
+	 * Set how the needle moves to a new value (default: {@link NeedleAnimator.Profile#CONSTANT_VELOCITY}).
+	 *
+	 * @param profile Profile
+	 */
+	public void setNeedleProfile(NeedleAnimator.Profile profile) {
+		needleAnimator.setProfile(profile);
+	}
+
+	/**
+	 * Set the natural frequency of the {@link NeedleAnimator.Profile#SPRING} profile (default: 10).
+	 *
+	 * @param radiansPerSecond Frequency, higher is faster
+	 */
+	public void setNeedleSpringFrequency(float radiansPerSecond) {
+		needleSpringFrequency = radiansPerSecond;
+		configureNeedleAnimator();
+	}
+
+	/**
+	 * Set the needle speed of the {@link NeedleAnimator.Profile#CONSTANT_VELOCITY} profile and of the
+	 * fall of the {@link NeedleAnimator.Profile#PEAK_HOLD} profile.
+	 *
+	 * @param degreesPerSecond Speed
+	 */
+	public void setNeedleSpeed(float degreesPerSecond) {
+		needleDegreesPerSecond = degreesPerSecond;
+		configureNeedleAnimator();
+	}
+
+	/**
+	 * Set how long the {@link NeedleAnimator.Profile#PEAK_HOLD} profile keeps a peak (default: 1000 ms).
+	 *
+	 * @param holdMs Time (ms)
+	 */
+	public void setNeedlePeakHold(long holdMs) {
+		needleAnimator.setHoldNanos(holdMs * 1_000_000L);
 	}
 
 	/**
@@ -623,7 +842,18 @@ public class Gauge extends View {
 	 * @param text Text
 	 */
 	public void setUpperText(String text) {
-		upperText = text;
+		setUpperText((CharSequence) text);
+	}
+
+	/**
+	 * Set string to display on upper gauge face.
+	 * <p>
+	 * The text is copied, so a reused buffer can be passed without allocating a String per update.
+	 *
+	 * @param text Text
+	 */
+	public void setUpperText(CharSequence text) {
+		replace(upperText, text);
 		invalidate();
 	}
 
@@ -634,6 +864,7 @@ public class Gauge extends View {
 	 */
 	public void setUpperTextUnit(String text) {
 		upperTextUnit = text;
+		dialDirty = true;
 		invalidate();
 	}
 
@@ -644,8 +875,10 @@ public class Gauge extends View {
 	 */
 	public void setUpperTextColor(@ColorInt int color) {
 		upperTextColor = color;
-		initValues();
-		initPaint();
+		upperTextPaint.setColor(color);
+		upperTextUnitPaint.setColor(color);
+		dialDirty = true;
+		invalidate();
 	}
 
 	/**
@@ -654,7 +887,18 @@ public class Gauge extends View {
 	 * @param text Text
 	 */
 	public void setLowerText(String text) {
-		lowerText = text;
+		setLowerText((CharSequence) text);
+	}
+
+	/**
+	 * Set string to display on lower gauge face.
+	 * <p>
+	 * The text is copied, so a reused buffer can be passed without allocating a String per update.
+	 *
+	 * @param text Text
+	 */
+	public void setLowerText(CharSequence text) {
+		replace(lowerText, text);
 		invalidate();
 	}
 
@@ -665,6 +909,7 @@ public class Gauge extends View {
 	 */
 	public void setLowerTextUnit(String text) {
 		lowerTextUnit = text;
+		dialDirty = true;
 		invalidate();
 	}
 
@@ -675,8 +920,10 @@ public class Gauge extends View {
 	 */
 	public void setLowerTextColor(@ColorInt int color) {
 		lowerTextColor = color;
-		initValues();
-		initPaint();
+		lowerTextPaint.setColor(color);
+		lowerTextUnitPaint.setColor(color);
+		dialDirty = true;
+		invalidate();
 	}
 
 	/**
@@ -722,20 +969,23 @@ public class Gauge extends View {
 	}
 
 	/**
-	 * Set the delta time between movement steps during needle animation (default: 5 ms).
+	 * Set the constant needle speed as the time per 2 degrees (default: 5 ms).
+	 * The needle is animated per display frame, see {@link #setNeedleSpeed(float)}.
 	 *
 	 * @param interval Time (ms)
 	 */
 	public void setDeltaTimeInterval(int interval) {
 		deltaTimeInterval = interval;
+		configureNeedleAnimator();
 	}
 
 	/**
-	 * Set the factor that determines the step size during needle animation (default: 3f).
-	 * The actual step size is calulated as follows: step_size = step_factor * scale_value_per_degree.
+	 * Formerly the distance, in degrees, within which the needle snapped to the value.
 	 *
 	 * @param factor Step factor
+	 * @deprecated the needle animation settles on its own, see {@link #setNeedleProfile(NeedleAnimator.Profile)}
 	 */
+	@Deprecated
 	public void setNeedleStepFactor(float factor) {
 		needleStepFactor = factor;
 	}
@@ -748,6 +998,7 @@ public class Gauge extends View {
 	 */
 	public void setMinValue(float value) {
 		minValue = value;
+		dropDerivedScale();
 		initValues();
 		validate();
 		invalidate();
@@ -760,6 +1011,7 @@ public class Gauge extends View {
 	 */
 	public void setMaxValue(float value) {
 		maxValue = value;
+		dropDerivedScale();
 		initValues();
 		validate();
 		invalidate();
@@ -796,6 +1048,10 @@ public class Gauge extends View {
 	 */
 	public void setTotalNicks(int nicks) {
 		totalNicks = nicks;
+		if (customScale != null && customScale.getTotalNicks() != nicks) {
+			customScale = null;
+		}
+		dropDerivedScale();
 		initValues();
 		validate();
 		invalidate();
@@ -808,6 +1064,10 @@ public class Gauge extends View {
 	 */
 	public void setMajorNickInterval(int interval) {
 		majorNickInterval = interval;
+		if (gaugeNick == defaultGaugeNick) {
+			// the default nicks depend on the interval
+			dropDerivedScale();
+		}
 		initValues();
 		validate();
 		invalidate();
@@ -820,28 +1080,152 @@ public class Gauge extends View {
 	 */
 	public void setNickHandler(IGaugeNick nickHandler) {
 		this.gaugeNick = nickHandler;
+		this.customScale = null;
+		this.customScaleDerived = false;
+		initValues();
+		validate();
+		invalidate();
+	}
+
+	/**
+	 * Set a precomputed scale, replacing the nick handler. Also sets the total nicks of the scale.
+	 *
+	 * @param scale Scale
+	 */
+	public void setScale(GaugeScale scale) {
+		this.customScale = scale;
+		this.customScaleDerived = false;
+		this.totalNicks = scale.getTotalNicks();
+		initValues();
+		validate();
+		invalidate();
+	}
+
+	/**
+	 * Drop a scale built by {@link #applyConfig(GaugeConfig)} from the nick handler, it is rebuilt for
+	 * the new settings when the dial is rendered.
+	 */
+	private void dropDerivedScale() {
+		if (customScaleDerived) {
+			customScale = null;
+			customScaleDerived = false;
+		}
+	}
+
+	/**
+	 * A builder holding the current settings, including those from the layout attributes.
+	 *
+	 * @return Builder
+	 */
+	public GaugeConfig.Builder configBuilder() {
+		GaugeConfig.Builder builder = new GaugeConfig.Builder()
+				.setMinValue(minValue)
+				.setMaxValue(maxValue)
+				.setInitialValue(initialValue)
+				.setStartAngle(startAngle)
+				.setEndAngle(endAngle)
+				.setTotalNicks(totalNicks)
+				.setMajorNickInterval(majorNickInterval)
+				.setLabelTextSize(requestedLabelTextSize)
+				.setFaceColor(faceColor)
+				.setRimColor(rimColor)
+				.setScaleColor(scaleColor)
+				.setNeedleColor(needleColor)
+				.setNeedleShadow(needleShadow)
+				.setUpperTextColor(upperTextColor)
+				.setLowerTextColor(lowerTextColor)
+				.setTextSize(requestedTextSize)
+				.setUpperTextSize(requestedUpperTextSize)
+				.setUpperUnitTextSize(requestedUpperUnitTextSize)
+				.setLowerTextSize(requestedLowerTextSize)
+				.setLowerUnitTextSize(requestedLowerUnitTextSize)
+				.setUpperTextUnit(upperTextUnit)
+				.setLowerTextUnit(lowerTextUnit)
+				.setNeedleProfile(needleAnimator.getProfile())
+				.setNeedleSpringFrequency(needleSpringFrequency)
+				.setNeedleSpeed(needleDegreesPerSecond)
+				.setNeedlePeakHold(needleAnimator.getHoldNanos() / 1_000_000L);
+		builder.setSecondaryScale(secondaryScale);
+		if (customScale != null && !customScaleDerived) {
+			builder.setScale(customScale);
+		} else if (gaugeNick != defaultGaugeNick) {
+			builder.setNickHandler(gaugeNick);
+		}
+		return builder;
+	}
+
+	/**
+	 * Apply all settings at once: values, paints and layout are recomputed and validated a single time,
+	 * and the nicks come from the scale built with the config.
+	 *
+	 * @param config Config, may be shared between gauges
+	 */
+	public void applyConfig(GaugeConfig config) {
+		minValue = config.minValue;
+		maxValue = config.maxValue;
+		initialValue = config.initialValue;
+		startAngle = config.startAngle;
+		endAngle = config.endAngle;
+		totalNicks = config.totalNicks;
+		majorNickInterval = config.majorNickInterval;
+		requestedLabelTextSize = config.labelTextSize;
+		faceColor = config.faceColor;
+		rimColor = config.rimColor;
+		scaleColor = config.scaleColor;
+		needleColor = config.needleColor;
+		needleShadow = config.needleShadow;
+		upperTextColor = config.upperTextColor;
+		lowerTextColor = config.lowerTextColor;
+		requestedTextSize = config.textSize;
+		requestedUpperTextSize = config.upperTextSize;
+		requestedUpperUnitTextSize = config.upperUnitTextSize;
+		requestedLowerTextSize = config.lowerTextSize;
+		requestedLowerUnitTextSize = config.lowerUnitTextSize;
+		upperTextUnit = config.upperTextUnit;
+		lowerTextUnit = config.lowerTextUnit;
+		gaugeNick = config.nickHandler != null ? config.nickHandler : defaultGaugeNick;
+		// built for the range and nicks of this config, so it stays valid until a setter changes them
+		customScale = config.scale;
+		customScaleDerived = !config.scaleGiven;
+		secondaryScale = config.secondaryScale;
+		needleAnimator.setProfile(config.needleProfile);
+		needleAnimator.setHoldNanos(config.needlePeakHoldMs * 1_000_000L);
+		needleSpringFrequency = config.needleSpringFrequency;
+		needleDegreesPerSecond = config.needleDegreesPerSecond;
+
 		initValues();
+		initPaint();
+		if (getWidth() > 0 && getHeight() > 0) {
+			layoutDial(getWidth(), getHeight());
+		}
 		validate();
 		invalidate();
 	}
 
+	/**
+	 * Add the ticks of a second quantity, e.g. speed on an energy gauge. Compute them for the range of
+	 * this gauge with {@link SecondaryScale#compute}.
+	 *
+	 * @param scale Scale, null for none
+	 */
+	public void setSecondaryScale(SecondaryScale scale) {
+		this.secondaryScale = scale;
+		dialDirty = true;
+		invalidate();
+	}
+
 	private void validate() {
-		boolean valid = true;
-		if (totalNicks % majorNickInterval != 0) {
-			valid = false;
+		int invalid = geometry.validate(majorNickInterval);
+		if ((invalid & GaugeGeometry.INVALID_NICKS) != 0) {
 			Log.w(TAG, getResources().getString(R.string.invalid_number_of_nicks, totalNicks, majorNickInterval));
 		}
-		float sum = minValue + maxValue;
-		int intSum = Math.round(sum);
-		if ((maxValue >= 1 && (sum != intSum || (intSum & 1) != 0)) || minValue >= maxValue) {
-			valid = false;
+		if ((invalid & GaugeGeometry.INVALID_MIN_MAX_RATIO) != 0) {
 			Log.w(TAG, getResources().getString(R.string.invalid_min_max_ratio, minValue, maxValue));
 		}
-		if (Math.round(sum % valuePerNick) != 0) {
-			valid = false;
-			Log.w(TAG, getResources().getString(R.string.invalid_min_max, minValue, maxValue, valuePerNick));
+		if ((invalid & GaugeGeometry.INVALID_MIN_MAX) != 0) {
+			Log.w(TAG, getResources().getString(R.string.invalid_min_max, minValue, maxValue, geometry.getValuePerNick()));
 		}
-		if (valid) Log.i(TAG, getResources().getString(R.string.scale_ok));
+		if (invalid == 0) Log.i(TAG, getResources().getString(R.string.scale_ok));
 	}
 
 	private static Spanned fromHtml(String html) {
@@ -0,0 +1,408 @@
+package de.nitri.gauge;
+
+import androidx.annotation.ColorInt;
+
+/**
+ * Immutable set of {@link Gauge} settings, applied in one pass by {@link Gauge#applyConfig(GaugeConfig)}
+ * instead of a setter chain that recomputes values, paints and validation after every call.
+ * <p>
+ * The nick table and the values derived from the range are computed once when the config is built and
+ * used as they are by every gauge the config is applied to. Start from {@link Gauge#configBuilder()} to keep the
+ * attributes from the layout. Scales passed to the builder must not change afterwards.
+ */
+public final class GaugeConfig {
+	final float minValue;
+	final float maxValue;
+	final float initialValue;
+	final float startAngle;
+	final float endAngle;
+	final int totalNicks;
+	final int majorNickInterval;
+	final float labelTextSize;
+	final int faceColor;
+	final int rimColor;
+	final int scaleColor;
+	final int needleColor;
+	final boolean needleShadow;
+	final int upperTextColor;
+	final int lowerTextColor;
+	final float textSize;
+	final float upperTextSize;
+	final float upperUnitTextSize;
+	final float lowerTextSize;
+	final float lowerUnitTextSize;
+	final String upperTextUnit;
+	final String lowerTextUnit;
+	final NeedleAnimator.Profile needleProfile;
+	final float needleSpringFrequency;
+	final float needleDegreesPerSecond;
+	final long needlePeakHoldMs;
+	final IGaugeNick nickHandler;
+	final SecondaryScale secondaryScale;
+
+	// derived
+	private final float valuePerNick;
+	private final int minorNickInterval;
+	final GaugeScale scale;
+	// false if scale was built from the nick handler, the gauge then drops it once a setter changes the range or nicks
+	final boolean scaleGiven;
+
+	private GaugeConfig(Builder builder) {
+		minValue = builder.minValue;
+		maxValue = builder.maxValue;
+		initialValue = builder.initialValue;
+		startAngle = builder.startAngle;
+		endAngle = builder.endAngle;
+		majorNickInterval = builder.majorNickInterval;
+		labelTextSize = builder.labelTextSize;
+		faceColor = builder.faceColor;
+		rimColor = builder.rimColor;
+		scaleColor = builder.scaleColor;
+		needleColor = builder.needleColor;
+		needleShadow = builder.needleShadow;
+		upperTextColor = builder.upperTextColor;
+		lowerTextColor = builder.lowerTextColor;
+		textSize = builder.textSize;
+		upperTextSize = builder.upperTextSize;
+		upperUnitTextSize = builder.upperUnitTextSize;
+		lowerTextSize = builder.lowerTextSize;
+		lowerUnitTextSize = builder.lowerUnitTextSize;
+		upperTextUnit = builder.upperTextUnit;
+		lowerTextUnit = builder.lowerTextUnit;
+		needleProfile = builder.needleProfile;
+		needleSpringFrequency = builder.needleSpringFrequency;
+		needleDegreesPerSecond = builder.needleDegreesPerSecond;
+		needlePeakHoldMs = builder.needlePeakHoldMs;
+		nickHandler = builder.nickHandler;
+		secondaryScale = builder.secondaryScale;
+
+		totalNicks = builder.scale != null ? builder.scale.getTotalNicks() : builder.totalNicks;
+		valuePerNick = (maxValue - minValue) / totalNicks;
+		minorNickInterval = minorNickInterval(majorNickInterval);
+		scaleGiven = builder.scale != null;
+		if (scaleGiven) {
+			scale = builder.scale;
+		} else {
+			scale = GaugeScale.fromNickHandler(nickHandler != null ? nickHandler : new DefaultNicks(), totalNicks, valuePerNick);
+		}
+	}
+
+	/**
+	 * @return the interval of the half nicks for a major nick interval, -1 for none
+	 */
+	static int minorNickInterval(int majorNickInterval) {
+		if (majorNickInterval % 2 == 0) {
+			return majorNickInterval / 2;
+		} else if (majorNickInterval % 3 == 0) {
+			return majorNickInterval / 3;
+		} else if (majorNickInterval % 5 == 0) {
+			return majorNickInterval / 5;
+		}
+		return -1;
+	}
+
+	public Builder buildUpon() {
+		return new Builder(this);
+	}
+
+	/**
+	 * The nicks of a gauge without nick handler: a labeled major nick every majorNickInterval, a half
+	 * nick in between, all in the scale color.
+	 */
+	private final class DefaultNicks implements IGaugeNick {
+		@Override
+		public int getNicColor(int nick, float value) {
+			return scaleColor;
+		}
+
+		@Override
+		public boolean shouldDrawMajorNick(int nick, float value) {
+			return nick % majorNickInterval == 0;
+		}
+
+		@Override
+		public int getMajorNicColor(int nick, float value) {
+			return scaleColor;
+		}
+
+		@Override
+		public boolean shouldDrawHalfNick(int nick, float value) {
+			return minorNickInterval > 0 && nick % minorNickInterval == 0;
+		}
+
+		@Override
+		public int getHalfNicColor(int nick, float value) {
+			return scaleColor;
+		}
+
+		@Override
+		public String getNicLabelString(int nick, float value) {
+			return shouldDrawMajorNick(nick, value) ? String.valueOf(Math.round(value)) : null;
+		}
+
+		@Override
+		public int getNicLabelColor() {
+			return scaleColor;
+		}
+	}
+
+	/**
+	 * Defaults are those of a {@link Gauge} without attributes. Text sizes of 0 are derived from the
+	 * gauge size.
+	 */
+	public static final class Builder {
+		private float minValue = 0;
+		private float maxValue = 1000;
+		private float initialValue = 0;
+		private float startAngle = 20;
+		private float endAngle = 340;
+		private int totalNicks = 120;
+		private int majorNickInterval = 10;
+		private float labelTextSize = 0;
+		private int faceColor = 0xffffffff;
+		private int rimColor = 0x4f333633;
+		private int scaleColor = 0x9f004d0f;
+		private int needleColor = 0xffff0000;
+		private boolean needleShadow = true;
+		private int upperTextColor = 0x9f004d0f;
+		private int lowerTextColor = 0x9f004d0f;
+		private float textSize = 0;
+		private float upperTextSize = 0;
+		private float upperUnitTextSize = 0;
+		private float lowerTextSize = 0;
+		private float lowerUnitTextSize = 0;
+		private String upperTextUnit = "upper unit";
+		private String lowerTextUnit = "lower unit";
+		private NeedleAnimator.Profile needleProfile = NeedleAnimator.Profile.CONSTANT_VELOCITY;
+		private float needleSpringFrequency = 10f;
+		private float needleDegreesPerSecond = -1;
+		private long needlePeakHoldMs = 1000;
+		private IGaugeNick nickHandler;
+		private GaugeScale scale;
+		private SecondaryScale secondaryScale;
+
+		public Builder() {
+		}
+
+		private Builder(GaugeConfig config) {
+			minValue = config.minValue;
+			maxValue = config.maxValue;
+			initialValue = config.initialValue;
+			startAngle = config.startAngle;
+			endAngle = config.endAngle;
+			totalNicks = config.totalNicks;
+			majorNickInterval = config.majorNickInterval;
+			labelTextSize = config.labelTextSize;
+			faceColor = config.faceColor;
+			rimColor = config.rimColor;
+			scaleColor = config.scaleColor;
+			needleColor = config.needleColor;
+			needleShadow = config.needleShadow;
+			upperTextColor = config.upperTextColor;
+			lowerTextColor = config.lowerTextColor;
+			textSize = config.textSize;
+			upperTextSize = config.upperTextSize;
+			upperUnitTextSize = config.upperUnitTextSize;
+			lowerTextSize = config.lowerTextSize;
+			lowerUnitTextSize = config.lowerUnitTextSize;
+			upperTextUnit = config.upperTextUnit;
+			lowerTextUnit = config.lowerTextUnit;
+			needleProfile = config.needleProfile;
+			needleSpringFrequency = config.needleSpringFrequency;
+			needleDegreesPerSecond = config.needleDegreesPerSecond;
+			needlePeakHoldMs = config.needlePeakHoldMs;
+			nickHandler = config.nickHandler;
+			secondaryScale = config.secondaryScale;
+			// otherwise rebuilt from the handler or the default nicks
+			scale = config.scaleGiven ? config.scale : null;
+		}
+
+		public Builder setMinValue(float minValue) {
+			this.minValue = minValue;
+			return this;
+		}
+
+		public Builder setMaxValue(float maxValue) {
+			this.maxValue = maxValue;
+			return this;
+		}
+
+		public Builder setInitialValue(float initialValue) {
+			this.initialValue = initialValue;
+			return this;
+		}
+
+		/**
+		 * @see Gauge#setStartAngle(float)
+		 */
+		public Builder setStartAngle(float startAngle) {
+			this.startAngle = startAngle;
+			return this;
+		}
+
+		/**
+		 * @see Gauge#setEndAngle(float)
+		 */
+		public Builder setEndAngle(float endAngle) {
+			this.endAngle = endAngle;
+			return this;
+		}
+
+		/**
+		 * @see Gauge#setTotalNicks(int)
+		 */
+		public Builder setTotalNicks(int totalNicks) {
+			this.totalNicks = totalNicks;
+			if (scale != null && scale.getTotalNicks() != totalNicks) {
+				scale = null;
+			}
+			return this;
+		}
+
+		public Builder setMajorNickInterval(int majorNickInterval) {
+			this.majorNickInterval = majorNickInterval;
+			return this;
+		}
+
+		/**
+		 * @param size label text size in pixels, 0 to derive it from the gauge size
+		 */
+		public Builder setLabelTextSize(float size) {
+			this.labelTextSize = size;
+			return this;
+		}
+
+		public Builder setFaceColor(@ColorInt int color) {
+			this.faceColor = color;
+			return this;
+		}
+
+		public Builder setRimColor(@ColorInt int color) {
+			this.rimColor = color;
+			return this;
+		}
+
+		public Builder setScaleColor(@ColorInt int color) {
+			this.scaleColor = color;
+			return this;
+		}
+
+		public Builder setNeedleColor(@ColorInt int color) {
+			this.needleColor = color;
+			return this;
+		}
+
+		public Builder setNeedleShadow(boolean needleShadow) {
+			this.needleShadow = needleShadow;
+			return this;
+		}
+
+		public Builder setUpperTextColor(@ColorInt int color) {
+			this.upperTextColor = color;
+			return this;
+		}
+
+		public Builder setLowerTextColor(@ColorInt int color) {
+			this.lowerTextColor = color;
+			return this;
+		}
+
+		/**
+		 * @see Gauge#setTextSize(float)
+		 */
+		public Builder setTextSize(float size) {
+			this.textSize = size;
+			return this;
+		}
+
+		/**
+		 * @see Gauge#setUpperTextSize(float)
+		 */
+		public Builder setUpperTextSize(float size) {
+			this.upperTextSize = size;
+			return this;
+		}
+
+		public Builder setUpperUnitTextSize(float size) {
+			this.upperUnitTextSize = size;
+			return this;
+		}
+
+		/**
+		 * @see Gauge#setLowerTextSize(float)
+		 */
+		public Builder setLowerTextSize(float size) {
+			this.lowerTextSize = size;
+			return this;
+		}
+
+		public Builder setLowerUnitTextSize(float size) {
+			this.lowerUnitTextSize = size;
+			return this;
+		}
+
+		public Builder setUpperTextUnit(String text) {
+			this.upperTextUnit = text;
+			return this;
+		}
+
+		public Builder setLowerTextUnit(String text) {
+			this.lowerTextUnit = text;
+			return this;
+		}
+
+		public Builder setNeedleProfile(NeedleAnimator.Profile profile) {
+			this.needleProfile = profile;
+			return this;
+		}
+
+		public Builder setNeedleSpringFrequency(float radiansPerSecond) {
+			this.needleSpringFrequency = radiansPerSecond;
+			return this;
+		}
+
+		/**
+		 * @param degreesPerSecond constant needle speed, -1 for the speed from {@link Gauge#setDeltaTimeInterval(int)}
+		 */
+		public Builder setNeedleSpeed(float degreesPerSecond) {
+			this.needleDegreesPerSecond = degreesPerSecond;
+			return this;
+		}
+
+		public Builder setNeedlePeakHold(long holdMs) {
+			this.needlePeakHoldMs = holdMs;
+			return this;
+		}
+
+		/**
+		 * Build the nicks from a handler, which is called once per nick by {@link #build()}. Replaces a
+		 * scale.
+		 */
+		public Builder setNickHandler(IGaugeNick nickHandler) {
+			this.nickHandler = nickHandler;
+			this.scale = null;
+			return this;
+		}
+
+		/**
+		 * Use a precomputed scale, which also sets the total nicks. Replaces a nick handler.
+		 */
+		public Builder setScale(GaugeScale scale) {
+			this.scale = scale;
+			this.nickHandler = null;
+			return this;
+		}
+
+		/**
+		 * @see Gauge#setSecondaryScale(SecondaryScale)
+		 */
+		public Builder setSecondaryScale(SecondaryScale secondaryScale) {
+			this.secondaryScale = secondaryScale;
+			return this;
+		}
+
+		public GaugeConfig build() {
+			return new GaugeConfig(this);
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package de.nitri.gauge;
+
+/**
+ * The math of a {@link Gauge} without any Android type: scale mapping, nick angles, the layout of rim,
+ * face and scale, label anchors and the needle transform, as primitive values and arrays the view only
+ * reads.
+ * <p>
+ * Angles are in degrees, clockwise, with 0 pointing up like {@code Canvas.rotate}. The start and end
+ * angles of the scale are measured from the bottom (6h) position. Returned arrays are owned by the
+ * geometry and replaced or rewritten by {@link #setScale} and {@link #layout}, do not modify them.
+ */
+public final class GaugeGeometry {
+	public static final int INVALID_NICKS = 1;
+	public static final int INVALID_MIN_MAX_RATIO = 2;
+	public static final int INVALID_MIN_MAX = 4;
+
+	// rect array indices
+	public static final int LEFT = 0;
+	public static final int TOP = 1;
+	public static final int RIGHT = 2;
+	public static final int BOTTOM = 3;
+
+	private float minValue = 0;
+	private float maxValue = 1000;
+	private float startAngle = 20;
+	private float endAngle = 340;
+	private int totalNicks = 120;
+	private float degreesPerNick;
+	private float valuePerNick;
+	private float[] nickDegrees = new float[0];
+
+	private float width;
+	private float height;
+	private float centerX;
+	private float centerY;
+	private float needleTailLength;
+	private float needleWidth;
+	private float needleLength;
+	private float labelRadius;
+	private final float[] rimRect = new float[4];
+	private final float[] faceRect = new float[4];
+	private final float[] scaleRect = new float[4];
+	private float[] nickLabelX = new float[0];
+	private float[] nickLabelY = new float[0];
+
+	public GaugeGeometry() {
+		setScale(minValue, maxValue, startAngle, endAngle, totalNicks);
+	}
+
+	public void setScale(float minValue, float maxValue, float startAngle, float endAngle, int totalNicks) {
+		this.minValue = minValue;
+		this.maxValue = maxValue;
+		this.startAngle = startAngle;
+		this.endAngle = endAngle;
+		this.totalNicks = totalNicks;
+		degreesPerNick = (endAngle - startAngle) / totalNicks;
+		valuePerNick = (maxValue - minValue) / totalNicks;
+
+		if (nickDegrees.length != totalNicks + 1) {
+			nickDegrees = new float[totalNicks + 1];
+			nickLabelX = new float[totalNicks + 1];
+			nickLabelY = new float[totalNicks + 1];
+		}
+		for (int i = 0; i <= totalNicks; i++) {
+			nickDegrees[i] = i * degreesPerNick + 180 + startAngle;
+		}
+		layoutNickLabels();
+	}
+
+	/**
+	 * Lay the gauge out on a canvas of the given size.
+	 */
+	public void layout(float width, float height) {
+		this.width = width;
+		this.height = height;
+		centerX = width / 2f;
+		centerY = height / 2f;
+		needleTailLength = width / 12f;
+		needleWidth = width / 98f;
+		needleLength = (width / 2f) * 0.8f;
+
+		set(rimRect, width * .05f, height * .05f, width * 0.95f, height * 0.95f);
+		inset(faceRect, rimRect, 0.02f * width);
+		inset(scaleRect, faceRect, 0.015f * width);
+		labelRadius = (centerX - scaleRect[LEFT]) * 0.70f;
+		layoutNickLabels();
+	}
+
+	private static void set(float[] rect, float left, float top, float right, float bottom) {
+		rect[LEFT] = left;
+		rect[TOP] = top;
+		rect[RIGHT] = right;
+		rect[BOTTOM] = bottom;
+	}
+
+	private static void inset(float[] rect, float[] outer, float inset) {
+		set(rect, outer[LEFT] + inset, outer[TOP] + inset, outer[RIGHT] - inset, outer[BOTTOM] - inset);
+	}
+
+	private void layoutNickLabels() {
+		for (int i = 0; i < nickDegrees.length; i++) {
+			nickLabelX[i] = labelX(nickDegrees[i]);
+			nickLabelY[i] = labelY(nickDegrees[i]);
+		}
+	}
+
+	private float labelX(float degrees) {
+		return centerX + labelRadius * (float) Math.sin(Math.toRadians(degrees));
+	}
+
+	private float labelY(float degrees) {
+		return centerY - labelRadius * (float) Math.cos(Math.toRadians(degrees));
+	}
+
+	/**
+	 * @return the angle of a value on the scale, clamped to the end of the scale
+	 */
+	public float valueToDegrees(float value) {
+		float angle = (value / valuePerNick * degreesPerNick);
+		return angle <= endAngle ? angle + 180 + startAngle : endAngle + 180;
+	}
+
+	public float valuePerDegree() {
+		return valuePerNick / degreesPerNick;
+	}
+
+	/**
+	 * @return the canvas rotation of a needle drawn pointing right from the center
+	 */
+	public static float scaleToCanvasDegrees(float degrees) {
+		return degrees - 90;
+	}
+
+	/**
+	 * @return the canvas rotation of the needle at a value, about {@link #getCenterX()}, {@link #getCenterY()}
+	 */
+	public float needleDegrees(float value) {
+		return scaleToCanvasDegrees(valueToDegrees(value));
+	}
+
+	/**
+	 * Angles and label anchors of ticks at arbitrary values, such as those of a {@link SecondaryScale}.
+	 */
+	public void valueAnchors(float[] values, int count, float[] degrees, float[] x, float[] y) {
+		for (int i = 0; i < count; i++) {
+			degrees[i] = valueToDegrees(values[i]);
+			x[i] = labelX(degrees[i]);
+			y[i] = labelY(degrees[i]);
+		}
+	}
+
+	/**
+	 * @return 0 for a scale with whole labels at the nicks, otherwise INVALID_* flags
+	 */
+	public int validate(int majorNickInterval) {
+		int invalid = 0;
+		if (totalNicks % majorNickInterval != 0) {
+			invalid |= INVALID_NICKS;
+		}
+		float sum = minValue + maxValue;
+		int intSum = Math.round(sum);
+		if ((maxValue >= 1 && (sum != intSum || (intSum & 1) != 0)) || minValue >= maxValue) {
+			invalid |= INVALID_MIN_MAX_RATIO;
+		}
+		if (Math.round(sum % valuePerNick) != 0) {
+			invalid |= INVALID_MIN_MAX;
+		}
+		return invalid;
+	}
+
+	public float getDegreesPerNick() {
+		return degreesPerNick;
+	}
+
+	public float getValuePerNick() {
+		return valuePerNick;
+	}
+
+	/**
+	 * @return canvas rotation of every nick, totalNicks + 1 entries
+	 */
+	public float[] getNickDegrees() {
+		return nickDegrees;
+	}
+
+	public float[] getNickLabelX() {
+		return nickLabelX;
+	}
+
+	public float[] getNickLabelY() {
+		return nickLabelY;
+	}
+
+	public float getWidth() {
+		return width;
+	}
+
+	public float getHeight() {
+		return height;
+	}
+
+	public float getCenterX() {
+		return centerX;
+	}
+
+	public float getCenterY() {
+		return centerY;
+	}
+
+	public float getNeedleTailLength() {
+		return needleTailLength;
+	}
+
+	public float getNeedleWidth() {
+		return needleWidth;
+	}
+
+	public float getNeedleLength() {
+		return needleLength;
+	}
+
+	public float getLabelRadius() {
+		return labelRadius;
+	}
+
+	/**
+	 * @return left, top, right, bottom
+	 */
+	public float[] getRimRect() {
+		return rimRect;
+	}
+
+	public float[] getFaceRect() {
+		return faceRect;
+	}
+
+	public float[] getScaleRect() {
+		return scaleRect;
+	}
+}
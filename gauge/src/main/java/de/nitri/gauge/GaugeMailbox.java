@@ -0,0 +1,83 @@
+package de.nitri.gauge;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free hand-over of gauge updates from one producer thread to one render thread, as a triple
+ * buffer: the producer fills its back frame and swaps it with the middle one, the consumer swaps the
+ * middle frame with its front one when it is newer. Neither side ever waits or allocates, a frame the
+ * consumer did not take in time is overwritten by the next one.
+ * <p>
+ * Each published frame holds the complete state, so a skipped frame loses nothing but its timing.
+ */
+final class GaugeMailbox {
+	static final class Frame {
+		float value;
+		// incremented for every value that is to be shown without animation
+		int jumps;
+		final StringBuilder upperText = new StringBuilder();
+		final StringBuilder lowerText = new StringBuilder();
+
+		void copyFrom(Frame other) {
+			value = other.value;
+			jumps = other.jumps;
+			replace(upperText, other.upperText);
+			replace(lowerText, other.lowerText);
+		}
+
+		private static void replace(StringBuilder target, CharSequence text) {
+			target.setLength(0);
+			target.append(text);
+		}
+	}
+
+	private static final int INDEX_MASK = 3;
+	private static final int FRESH = 4;
+
+	private final Frame[] frames = {new Frame(), new Frame(), new Frame()};
+	// index of the middle frame, plus FRESH while the consumer has not taken it
+	private final AtomicInteger middle = new AtomicInteger(1);
+	private int back = 0;
+	private int front = 2;
+
+	/**
+	 * Producer side: the frame to fill before {@link #publish()}. Its content is stale, fill all of it.
+	 */
+	Frame edit() {
+		return frames[back];
+	}
+
+	/**
+	 * Producer side: hand the edited frame over.
+	 */
+	void publish() {
+		back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+	}
+
+	/**
+	 * @return whether a frame was published since the consumer last took one
+	 */
+	boolean hasNews() {
+		return (middle.get() & FRESH) != 0;
+	}
+
+	/**
+	 * Consumer side: move the latest published frame to the front.
+	 *
+	 * @return false if there was nothing new, the front frame is unchanged then
+	 */
+	boolean take() {
+		if (!hasNews()) {
+			return false;
+		}
+		front = middle.getAndSet(front) & INDEX_MASK;
+		return true;
+	}
+
+	/**
+	 * Consumer side: the frame taken last.
+	 */
+	Frame front() {
+		return frames[front];
+	}
+}
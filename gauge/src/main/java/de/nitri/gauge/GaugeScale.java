@@ -0,0 +1,108 @@
+package de.nitri.gauge;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed look of every nick of a {@link Gauge}, read by the draw loop from primitive arrays
+ * without any callback.
+ * <p>
+ * There are {@code totalNicks + 1} nicks, nick i sits {@code i * valuePerNick} above the minimum. Build
+ * one directly, or from an {@link IGaugeNick} with {@link #fromNickHandler(IGaugeNick, int, float)},
+ * which calls the handler once per nick.
+ */
+public final class GaugeScale {
+	private final int totalNicks;
+	final boolean[] major;
+	final int[] majorColor;
+	final boolean[] half;
+	final int[] halfColor;
+	final int[] nickColor;
+	final String[] labels;
+	int labelColor;
+
+	/**
+	 * @param color color of all nicks and labels until set otherwise
+	 */
+	public GaugeScale(int totalNicks, int color) {
+		if (totalNicks <= 0) {
+			throw new IllegalArgumentException("totalNicks must be positive: " + totalNicks);
+		}
+		this.totalNicks = totalNicks;
+		major = new boolean[totalNicks + 1];
+		majorColor = new int[totalNicks + 1];
+		half = new boolean[totalNicks + 1];
+		halfColor = new int[totalNicks + 1];
+		nickColor = new int[totalNicks + 1];
+		labels = new String[totalNicks + 1];
+		Arrays.fill(nickColor, color);
+		labelColor = color;
+	}
+
+	public static GaugeScale fromNickHandler(IGaugeNick handler, int totalNicks, float valuePerNick) {
+		GaugeScale scale = new GaugeScale(totalNicks, handler.getNicLabelColor());
+		for (int i = 0; i <= totalNicks; i++) {
+			float value = i * valuePerNick;
+			scale.setNickColor(i, handler.getNicColor(i, value));
+			if (handler.shouldDrawMajorNick(i, value)) {
+				scale.setMajor(i, handler.getMajorNicColor(i, value));
+			}
+			if (handler.shouldDrawHalfNick(i, value)) {
+				scale.setHalf(i, handler.getHalfNicColor(i, value));
+			}
+			scale.setLabel(i, handler.getNicLabelString(i, value));
+		}
+		return scale;
+	}
+
+	public int getTotalNicks() {
+		return totalNicks;
+	}
+
+	public GaugeScale setNickColor(int nick, int color) {
+		nickColor[nick] = color;
+		return this;
+	}
+
+	/**
+	 * Draw a long nick.
+	 */
+	public GaugeScale setMajor(int nick, int color) {
+		major[nick] = true;
+		majorColor[nick] = color;
+		return this;
+	}
+
+	/**
+	 * Draw a medium nick.
+	 */
+	public GaugeScale setHalf(int nick, int color) {
+		half[nick] = true;
+		halfColor[nick] = color;
+		return this;
+	}
+
+	/**
+	 * @param label text next to the nick, null for none
+	 */
+	public GaugeScale setLabel(int nick, String label) {
+		labels[nick] = label;
+		return this;
+	}
+
+	public GaugeScale setLabelColor(int color) {
+		labelColor = color;
+		return this;
+	}
+
+	public boolean isMajor(int nick) {
+		return major[nick];
+	}
+
+	public boolean isHalf(int nick) {
+		return half[nick];
+	}
+
+	public String getLabel(int nick) {
+		return labels[nick];
+	}
+}
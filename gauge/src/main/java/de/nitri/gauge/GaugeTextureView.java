@@ -0,0 +1,471 @@
+package de.nitri.gauge;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.SurfaceTexture;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Parcelable;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.Surface;
+import android.view.TextureView;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link Gauge} drawn by its own render thread, so the needle keeps moving at display refresh rate
+ * while the main thread is busy with charts or layout.
+ * <p>
+ * It takes the same attributes as {@link Gauge}. Values and texts are handed to the render thread
+ * through a lock-free {@link GaugeMailbox}, call {@link #setValue(float)}, {@link #moveToValue(float)},
+ * {@link #setUpperText(CharSequence)} and {@link #setLowerText(CharSequence)} from one thread, normally
+ * the main thread. Everything else, such as {@link IGaugeNick} handlers, is set on the wrapped gauge
+ * with {@link #editGauge(GaugeEditor)}.
+ * <p>
+ * The gauge is drawn on a software canvas, like {@link Gauge} it relies on blur mask filters.
+ */
+public class GaugeTextureView extends TextureView {
+	private static final String TAG = GaugeTextureView.class.getSimpleName();
+	private static final long FINISH_TIMEOUT_MS = 500;
+
+	/**
+	 * Changes a gauge on the thread that currently owns it.
+	 */
+	public interface GaugeEditor {
+		void edit(Gauge gauge);
+	}
+
+	private final Gauge gauge;
+	private final GaugeMailbox mailbox = new GaugeMailbox();
+	// the producer's complete state, copied into the mailbox on every change
+	private final GaugeMailbox.Frame state = new GaugeMailbox.Frame();
+	private volatile RenderThread renderThread;
+
+	private final SurfaceTextureListener surfaceListener = new SurfaceTextureListener() {
+		@Override
+		public void onSurfaceTextureAvailable(SurfaceTexture surfaceTexture, int width, int height) {
+			gauge.setValue(state.value);
+			gauge.setUpperText(state.upperText);
+			gauge.setLowerText(state.lowerText);
+
+			RenderThread thread = new RenderThread(surfaceTexture, width, height, state.jumps);
+			thread.start();
+			thread.handler = new Handler(thread.getLooper());
+			renderThread = thread;
+		}
+
+		@Override
+		public void onSurfaceTextureSizeChanged(SurfaceTexture surfaceTexture, final int width, final int height) {
+			final RenderThread thread = renderThread;
+			if (thread != null) {
+				thread.handler.post(new Runnable() {
+					@Override
+					public void run() {
+						thread.layoutGauge(width, height);
+					}
+				});
+			}
+		}
+
+		@Override
+		public boolean onSurfaceTextureDestroyed(SurfaceTexture surfaceTexture) {
+			RenderThread thread = renderThread;
+			renderThread = null;
+			// if the render thread is stuck, it releases the surface texture itself once it ends
+			return thread == null || thread.finish();
+		}
+
+		@Override
+		public void onSurfaceTextureUpdated(SurfaceTexture surfaceTexture) {
+		}
+	};
+
+	public GaugeTextureView(Context context) {
+		super(context);
+		gauge = new Gauge(context);
+		init();
+	}
+
+	public GaugeTextureView(Context context, AttributeSet attrs) {
+		super(context, attrs);
+		gauge = new Gauge(context, attrs);
+		init();
+	}
+
+	public GaugeTextureView(Context context, AttributeSet attrs, int defStyleAttr) {
+		super(context, attrs, defStyleAttr);
+		gauge = new Gauge(context, attrs, defStyleAttr);
+		init();
+	}
+
+	private void init() {
+		state.value = gauge.getValue();
+		state.upperText.append(gauge.getUpperText());
+		state.lowerText.append(gauge.getLowerText());
+		setOpaque(false);
+		setSurfaceTextureListener(surfaceListener);
+	}
+
+	/**
+	 * Change the wrapped gauge, on the render thread while there is one, so it is never touched by two
+	 * threads. Set values and texts on this view instead, the next frame would overwrite them.
+	 *
+	 * @param editor Editor
+	 */
+	public void editGauge(GaugeEditor editor) {
+		RenderThread thread = renderThread;
+		if (thread == null) {
+			editor.edit(gauge);
+		} else {
+			thread.edit(editor);
+		}
+	}
+
+	/**
+	 * @see Gauge#applyConfig(GaugeConfig)
+	 */
+	public void applyConfig(final GaugeConfig config) {
+		editGauge(new GaugeEditor() {
+			@Override
+			public void edit(Gauge gauge) {
+				gauge.applyConfig(config);
+			}
+		});
+	}
+
+	/**
+	 * @see Gauge#setNickHandler(IGaugeNick)
+	 */
+	public void setNickHandler(final IGaugeNick nickHandler) {
+		editGauge(new GaugeEditor() {
+			@Override
+			public void edit(Gauge gauge) {
+				gauge.setNickHandler(nickHandler);
+			}
+		});
+	}
+
+	/**
+	 * @see Gauge#setScale(GaugeScale)
+	 */
+	public void setScale(final GaugeScale scale) {
+		editGauge(new GaugeEditor() {
+			@Override
+			public void edit(Gauge gauge) {
+				gauge.setScale(scale);
+			}
+		});
+	}
+
+	/**
+	 * Set gauge to value.
+	 *
+	 * @param value Value
+	 */
+	public void setValue(float value) {
+		state.value = value;
+		state.jumps++;
+		publish();
+	}
+
+	/**
+	 * Animate gauge to value.
+	 *
+	 * @param value Value
+	 */
+	public void moveToValue(float value) {
+		state.value = value;
+		publish();
+	}
+
+	/**
+	 * Set string to display on upper gauge face. The text is copied.
+	 *
+	 * @param text Text
+	 */
+	public void setUpperText(CharSequence text) {
+		state.upperText.setLength(0);
+		state.upperText.append(text);
+		publish();
+	}
+
+	/**
+	 * Set string to display on lower gauge face. The text is copied.
+	 *
+	 * @param text Text
+	 */
+	public void setLowerText(CharSequence text) {
+		state.lowerText.setLength(0);
+		state.lowerText.append(text);
+		publish();
+	}
+
+	private void publish() {
+		mailbox.edit().copyFrom(state);
+		mailbox.publish();
+		RenderThread thread = renderThread;
+		if (thread != null) {
+			thread.wake();
+		}
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+
+		int size;
+		int width = getMeasuredWidth();
+		int height = getMeasuredHeight();
+		int widthWithoutPadding = width - getPaddingLeft() - getPaddingRight();
+		int heightWithoutPadding = height - getPaddingTop() - getPaddingBottom();
+
+		if (widthWithoutPadding > heightWithoutPadding) {
+			size = heightWithoutPadding;
+		} else {
+			size = widthWithoutPadding;
+		}
+
+		setMeasuredDimension(size + getPaddingLeft() + getPaddingRight(), size + getPaddingTop() + getPaddingBottom());
+	}
+
+	@Override
+	protected Parcelable onSaveInstanceState() {
+		Bundle bundle = new Bundle();
+		bundle.putParcelable("superState", super.onSaveInstanceState());
+		bundle.putFloat("value", state.value);
+		return bundle;
+	}
+
+	@Override
+	protected void onRestoreInstanceState(Parcelable state) {
+		if (state instanceof Bundle) {
+			Bundle bundle = (Bundle) state;
+			setValue(bundle.getFloat("value"));
+			super.onRestoreInstanceState(bundle.getParcelable("superState"));
+		} else {
+			super.onRestoreInstanceState(state);
+		}
+	}
+
+	/**
+	 * Owns the gauge between surface creation and destruction. It draws on vsync while the needle moves
+	 * or something changed, and sleeps otherwise until {@link #wake()}. While a peak is held it sleeps
+	 * until the needle moves again.
+	 */
+	private final class RenderThread extends HandlerThread implements Choreographer.FrameCallback {
+		private final SurfaceTexture surfaceTexture;
+		// set by the render thread before it sleeps, cleared by whoever wakes it
+		private final AtomicBoolean idle = new AtomicBoolean(false);
+		// set by whichever of the render thread ending and finish() giving up on it comes first
+		private final AtomicBoolean ended = new AtomicBoolean(false);
+		private final Runnable requestFrame = new Runnable() {
+			@Override
+			public void run() {
+				requestFrame();
+			}
+		};
+		private Handler handler;
+		private Choreographer choreographer;
+		private Surface surface;
+		private int width;
+		private int height;
+		private int jumps;
+		private boolean frameScheduled = false;
+		// the scheduled frame is a delayed one, e.g. the end of a peak hold
+		private boolean frameDelayed = false;
+		private boolean dirty = true;
+
+		RenderThread(SurfaceTexture surfaceTexture, int width, int height, int jumps) {
+			super("GaugeRender", Process.THREAD_PRIORITY_DISPLAY);
+			this.surfaceTexture = surfaceTexture;
+			this.width = width;
+			this.height = height;
+			this.jumps = jumps;
+		}
+
+		@Override
+		public void run() {
+			super.run();
+			if (!ended.compareAndSet(false, true)) {
+				// finish() timed out and left the surface texture to us
+				surfaceTexture.release();
+			}
+		}
+
+		@Override
+		protected void onLooperPrepared() {
+			choreographer = Choreographer.getInstance();
+			surface = new Surface(surfaceTexture);
+			layoutGauge(width, height);
+		}
+
+		void layoutGauge(int width, int height) {
+			this.width = width;
+			this.height = height;
+			gauge.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+					MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY));
+			gauge.layout(0, 0, width, height);
+			dirty = true;
+			requestFrame();
+		}
+
+		void edit(final GaugeEditor editor) {
+			handler.post(new Runnable() {
+				@Override
+				public void run() {
+					editor.edit(gauge);
+					dirty = true;
+					requestFrame();
+				}
+			});
+		}
+
+		/**
+		 * Any thread: make sure a frame follows a published mailbox frame.
+		 */
+		void wake() {
+			if (idle.compareAndSet(true, false)) {
+				handler.post(requestFrame);
+			}
+		}
+
+		private void requestFrame() {
+			idle.set(false);
+			if (frameDelayed) {
+				// something changed before the delayed frame, draw now instead
+				choreographer.removeFrameCallback(this);
+				frameScheduled = false;
+				frameDelayed = false;
+			}
+			if (!frameScheduled && surface != null) {
+				frameScheduled = true;
+				choreographer.postFrameCallback(this);
+			}
+		}
+
+		/**
+		 * Sleep until the needle moves again, like {@link #goIdle()} a published frame wakes us earlier.
+		 */
+		private void requestFrameDelayed(long delayNanos) {
+			if (!frameScheduled && surface != null) {
+				frameScheduled = true;
+				frameDelayed = true;
+				choreographer.postFrameCallbackDelayed(this, delayNanos / 1_000_000 + 1);
+			}
+			goIdle();
+		}
+
+		private void goIdle() {
+			idle.set(true);
+			// a frame published before idle was set did not wake us
+			if (mailbox.hasNews() && idle.compareAndSet(true, false)) {
+				requestFrame();
+			}
+		}
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			frameScheduled = false;
+			frameDelayed = false;
+			if (surface == null) {
+				return;
+			}
+
+			boolean changed = dirty;
+			dirty = false;
+			if (mailbox.take()) {
+				GaugeMailbox.Frame frame = mailbox.front();
+				if (frame.jumps != jumps) {
+					jumps = frame.jumps;
+					gauge.setValue(frame.value);
+				} else if (frame.value != gauge.getValue()) {
+					gauge.setNeedleTarget(frame.value, frameTimeNanos);
+				}
+				gauge.setUpperText(frame.upperText);
+				gauge.setLowerText(frame.lowerText);
+				changed = true;
+			}
+			changed |= gauge.stepNeedle(frameTimeNanos);
+
+			if (changed) {
+				draw();
+			}
+			long delayNanos = gauge.getNeedleStepDelayNanos(System.nanoTime());
+			if (delayNanos < 0) {
+				goIdle();
+			} else if (delayNanos == 0) {
+				requestFrame();
+			} else {
+				requestFrameDelayed(delayNanos);
+			}
+		}
+
+		private void draw() {
+			if (width <= 0 || height <= 0) {
+				return;
+			}
+			Canvas canvas;
+			try {
+				canvas = surface.lockCanvas(null);
+			} catch (IllegalArgumentException | Surface.OutOfResourcesException e) {
+				Log.w(TAG, "Cannot draw the gauge", e);
+				return;
+			}
+			try {
+				canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+				gauge.draw(canvas);
+			} finally {
+				surface.unlockCanvasAndPost(canvas);
+			}
+		}
+
+		/**
+		 * Main thread: stop rendering and wait for it up to {@link #FINISH_TIMEOUT_MS}, the gauge belongs
+		 * to the main thread again after.
+		 *
+		 * @return true if the render thread ended in time, false if it is left to release the surface
+		 * texture when it does
+		 */
+		boolean finish() {
+			handler.post(new Runnable() {
+				@Override
+				public void run() {
+					choreographer.removeFrameCallback(RenderThread.this);
+					frameScheduled = false;
+					frameDelayed = false;
+					gauge.releaseDialCache();
+					surface.release();
+					surface = null;
+				}
+			});
+			quitSafely();
+
+			long deadline = SystemClock.uptimeMillis() + FINISH_TIMEOUT_MS;
+			long remaining;
+			boolean interrupted = false;
+			while (isAlive() && (remaining = deadline - SystemClock.uptimeMillis()) > 0) {
+				try {
+					join(remaining);
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+
+			if (ended.compareAndSet(false, true)) {
+				Log.w(TAG, "Render thread did not finish within " + FINISH_TIMEOUT_MS + " ms");
+				return false;
+			}
+			return true;
+		}
+	}
+}
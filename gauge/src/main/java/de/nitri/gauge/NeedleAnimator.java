@@ -0,0 +1,184 @@
+package de.nitri.gauge;
+
+/**
+ * Time based needle motion, stepped with frame timestamps so the needle speed does not depend on the
+ * frame rate. Positions and speeds are in gauge value units.
+ * <p>
+ * Between frames the caller asks {@link #getNextStepDelayNanos(long)} whether another frame is needed
+ * at all, so no frames are scheduled once the needle settled.
+ */
+public class NeedleAnimator {
+	public enum Profile {
+		/**
+		 * Critically damped spring: fast and smooth, without overshoot.
+		 */
+		SPRING,
+		/**
+		 * Constant speed towards the target.
+		 */
+		CONSTANT_VELOCITY,
+		/**
+		 * Jump to a new peak at once, hold it, then fall at constant speed.
+		 */
+		PEAK_HOLD
+	}
+
+	// a longer stall is not caught up in one step
+	private static final long MAX_STEP_NANOS = 100_000_000L;
+
+	private Profile profile = Profile.CONSTANT_VELOCITY;
+	private float springFrequency = 10f;
+	private float velocity = 1f;
+	private long holdNanos = 1_000_000_000L;
+	private float tolerance = 1e-3f;
+
+	private float position;
+	private float target;
+	private float speed;
+	private long lastNanos;
+	private long peakNanos;
+
+	public Profile getProfile() {
+		return profile;
+	}
+
+	public void setProfile(Profile profile) {
+		this.profile = profile;
+		speed = 0;
+	}
+
+	/**
+	 * @param radiansPerSecond natural frequency of {@link Profile#SPRING}, the needle covers about 95% of
+	 *                         a step within 4.7 / frequency seconds
+	 */
+	public void setSpringFrequency(float radiansPerSecond) {
+		this.springFrequency = radiansPerSecond;
+	}
+
+	/**
+	 * @param unitsPerSecond speed of {@link Profile#CONSTANT_VELOCITY} and of the {@link Profile#PEAK_HOLD} fall
+	 */
+	public void setVelocity(float unitsPerSecond) {
+		this.velocity = unitsPerSecond;
+	}
+
+	/**
+	 * @param holdNanos how long {@link Profile#PEAK_HOLD} keeps a peak
+	 */
+	public void setHoldNanos(long holdNanos) {
+		this.holdNanos = holdNanos;
+	}
+
+	public long getHoldNanos() {
+		return holdNanos;
+	}
+
+	/**
+	 * @param tolerance distance, in units, and speed, in units per spring period, below which the needle
+	 *                  snaps to the target
+	 */
+	public void setTolerance(float tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Place the needle without animation.
+	 */
+	public void jumpTo(float value) {
+		position = target = value;
+		speed = 0;
+	}
+
+	public void setTarget(float target, long nowNanos) {
+		if (isSettled()) {
+			lastNanos = nowNanos;
+		}
+		this.target = target;
+		if (profile == Profile.PEAK_HOLD && target >= position) {
+			position = target;
+			speed = 0;
+			peakNanos = nowNanos;
+		}
+	}
+
+	/**
+	 * Advance to the frame time.
+	 */
+	public void step(long nowNanos) {
+		long dt = Math.min(nowNanos - lastNanos, MAX_STEP_NANOS);
+		if (profile == Profile.PEAK_HOLD) {
+			long holdEnd = peakNanos + holdNanos;
+			if (nowNanos <= holdEnd) {
+				lastNanos = nowNanos;
+				return;
+			}
+			dt = Math.min(dt, nowNanos - holdEnd);
+		}
+		lastNanos = nowNanos;
+		if (dt <= 0 || isSettled()) {
+			return;
+		}
+
+		float seconds = dt / 1e9f;
+		switch (profile) {
+			case SPRING:
+				stepSpring(seconds);
+				break;
+			case CONSTANT_VELOCITY:
+			case PEAK_HOLD:
+				stepConstant(seconds);
+				break;
+		}
+	}
+
+	private void stepSpring(float seconds) {
+		// exact solution of the critically damped oscillator: x(t) = (c1 + c2 t) e^(-wt)
+		float w = springFrequency;
+		float c1 = position - target;
+		float c2 = speed + w * c1;
+		float decay = (float) Math.exp(-w * seconds);
+		float displacement = (c1 + c2 * seconds) * decay;
+		speed = (c2 - w * (c1 + c2 * seconds)) * decay;
+		position = target + displacement;
+
+		if (Math.abs(displacement) < tolerance && Math.abs(speed) < tolerance * w) {
+			position = target;
+			speed = 0;
+		}
+	}
+
+	private void stepConstant(float seconds) {
+		float distance = target - position;
+		float step = velocity * seconds;
+		if (Math.abs(distance) <= Math.max(step, tolerance)) {
+			position = target;
+		} else {
+			position += Math.signum(distance) * step;
+		}
+	}
+
+	public float getPosition() {
+		return position;
+	}
+
+	public float getTarget() {
+		return target;
+	}
+
+	public boolean isSettled() {
+		return position == target && speed == 0;
+	}
+
+	/**
+	 * @return nanoseconds until {@link #step(long)} has work to do, 0 for the next frame, -1 once settled
+	 */
+	public long getNextStepDelayNanos(long nowNanos) {
+		if (isSettled()) {
+			return -1;
+		}
+		if (profile == Profile.PEAK_HOLD) {
+			return Math.max(0, peakNanos + holdNanos - nowNanos);
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,121 @@
+package de.nitri.gauge;
+
+import java.util.Locale;
+
+/**
+ * Ticks of a second quantity on a {@link Gauge} dial, at round multiples of that quantity. The gauge
+ * value of every tick is computed once, through the inverse of a {@link ValueTransform}, so the ticks
+ * sit exactly where the needle points at that quantity rather than on the nearest nick.
+ */
+public final class SecondaryScale {
+	// ticks further apart than this fraction of a step from a multiple are not major
+	private static final double STEP_TOLERANCE = 1e-6;
+	private static final int MAX_TICKS = 10_000;
+
+	private final int tickCount;
+	final float[] values;
+	final boolean[] major;
+	final String[] labels;
+	int color;
+
+	private SecondaryScale(int tickCount, int color) {
+		this.tickCount = tickCount;
+		values = new float[tickCount];
+		major = new boolean[tickCount];
+		labels = new String[tickCount];
+		this.color = color;
+	}
+
+	/**
+	 * @param transform gauge value to secondary value, monotonic over the range
+	 * @param majorStep secondary interval of the long, labeled ticks
+	 * @param minorStep secondary interval of the medium ticks, a divisor of majorStep, or 0 for none
+	 * @param color     color of ticks and labels
+	 */
+	public static SecondaryScale compute(ValueTransform transform, float minValue, float maxValue,
+										 float majorStep, float minorStep, int color) {
+		if (majorStep <= 0) {
+			throw new IllegalArgumentException("majorStep must be positive: " + majorStep);
+		}
+		double step = minorStep > 0 ? minorStep : majorStep;
+		double from = transform.apply(minValue);
+		double to = transform.apply(maxValue);
+		if (from > to) {
+			double swap = from;
+			from = to;
+			to = swap;
+		}
+		if (Double.isNaN(from) || Double.isInfinite(from) || Double.isNaN(to) || Double.isInfinite(to)) {
+			throw new IllegalArgumentException("transform is not finite over " + minValue + ".." + maxValue);
+		}
+
+		long first = (long) Math.ceil(from / step - STEP_TOLERANCE);
+		long last = (long) Math.floor(to / step + STEP_TOLERANCE);
+		if (last - first + 1 > MAX_TICKS) {
+			throw new IllegalArgumentException("more than " + MAX_TICKS + " ticks, step " + step);
+		}
+		SecondaryScale scale = new SecondaryScale((int) Math.max(0, last - first + 1), color);
+		int decimals = decimals(majorStep);
+		for (int i = 0; i < scale.tickCount; i++) {
+			double secondary = (first + i) * step;
+			double value = transform.inverse(secondary, minValue, maxValue);
+			scale.values[i] = (float) Math.min(Math.max(value, minValue), maxValue);
+			double multiple = secondary / majorStep;
+			if (Math.abs(multiple - Math.rint(multiple)) < STEP_TOLERANCE * Math.max(1, Math.abs(multiple))) {
+				scale.major[i] = true;
+				scale.labels[i] = format(Math.rint(multiple) * majorStep, decimals);
+			}
+		}
+		return scale;
+	}
+
+	// the fraction digits of a step, up to 6
+	private static int decimals(double step) {
+		int decimals = 0;
+		double scaled = step;
+		while (decimals < 6 && Math.abs(scaled - Math.rint(scaled)) > STEP_TOLERANCE * Math.abs(scaled)) {
+			scaled *= 10;
+			decimals++;
+		}
+		return decimals;
+	}
+
+	private static String format(double secondary, int decimals) {
+		if (decimals == 0) {
+			return String.valueOf(Math.round(secondary));
+		}
+		return String.format(Locale.getDefault(), "%." + decimals + "f", secondary);
+	}
+
+	public int getTickCount() {
+		return tickCount;
+	}
+
+	/**
+	 * @return the gauge value of a tick
+	 */
+	public float getValue(int tick) {
+		return values[tick];
+	}
+
+	public boolean isMajor(int tick) {
+		return major[tick];
+	}
+
+	public String getLabel(int tick) {
+		return labels[tick];
+	}
+
+	/**
+	 * @param label text next to the tick, null for none
+	 */
+	public SecondaryScale setLabel(int tick, String label) {
+		labels[tick] = label;
+		return this;
+	}
+
+	public SecondaryScale setColor(int color) {
+		this.color = color;
+		return this;
+	}
+}
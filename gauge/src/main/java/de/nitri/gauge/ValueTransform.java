@@ -0,0 +1,106 @@
+package de.nitri.gauge;
+
+/**
+ * Monotonic mapping from the gauge value to a second quantity shown on the same dial, such as the
+ * speed belonging to a kinetic energy. {@link SecondaryScale} places its ticks through the inverse, in
+ * closed form for the built-in transforms.
+ * <p>
+ * A custom transform only has to implement {@link #apply(double)}, the inverse then falls back to a
+ * bisection over the gauge range.
+ */
+public abstract class ValueTransform {
+	private static final int BISECTION_STEPS = 64;
+
+	/**
+	 * @return the secondary value of a gauge value
+	 */
+	public abstract double apply(double value);
+
+	/**
+	 * @return the gauge value within [minValue, maxValue] whose secondary value is secondary
+	 */
+	public double inverse(double secondary, double minValue, double maxValue) {
+		double low = minValue;
+		double high = maxValue;
+		boolean rising = apply(maxValue) >= apply(minValue);
+		for (int i = 0; i < BISECTION_STEPS; i++) {
+			double middle = (low + high) / 2;
+			if ((apply(middle) < secondary) == rising) {
+				low = middle;
+			} else {
+				high = middle;
+			}
+		}
+		return (low + high) / 2;
+	}
+
+	/**
+	 * secondary = factor * value + offset
+	 */
+	public static ValueTransform linear(final double factor, final double offset) {
+		return new ValueTransform() {
+			@Override
+			public double apply(double value) {
+				return factor * value + offset;
+			}
+
+			@Override
+			public double inverse(double secondary, double minValue, double maxValue) {
+				return (secondary - offset) / factor;
+			}
+		};
+	}
+
+	/**
+	 * secondary = factor * value^2, for values of at least 0
+	 */
+	public static ValueTransform square(final double factor) {
+		return new ValueTransform() {
+			@Override
+			public double apply(double value) {
+				return factor * value * value;
+			}
+
+			@Override
+			public double inverse(double secondary, double minValue, double maxValue) {
+				return Math.sqrt(secondary / factor);
+			}
+		};
+	}
+
+	/**
+	 * secondary = factor * sqrt(value), e.g. the speed of a kinetic energy with factor sqrt(2 / mass)
+	 */
+	public static ValueTransform sqrt(final double factor) {
+		return new ValueTransform() {
+			@Override
+			public double apply(double value) {
+				return factor * Math.sqrt(value);
+			}
+
+			@Override
+			public double inverse(double secondary, double minValue, double maxValue) {
+				double root = secondary / factor;
+				return root * root;
+			}
+		};
+	}
+
+	/**
+	 * secondary = log(value) to the base, for values above 0
+	 */
+	public static ValueTransform log(final double base) {
+		final double logBase = Math.log(base);
+		return new ValueTransform() {
+			@Override
+			public double apply(double value) {
+				return Math.log(value) / logBase;
+			}
+
+			@Override
+			public double inverse(double secondary, double minValue, double maxValue) {
+				return Math.exp(secondary * logBase);
+			}
+		};
+	}
+}
@@ -0,0 +1,51 @@
+package de.nitri.gauge;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GaugeConfigTest {
+	@Test
+	public void defaultNicksAreBuiltOnceFromTheRange() {
+		GaugeConfig config = new GaugeConfig.Builder()
+				.setMinValue(0)
+				.setMaxValue(200)
+				.setTotalNicks(20)
+				.setMajorNickInterval(4)
+				.setScaleColor(7)
+				.build();
+
+		assertFalse(config.scaleGiven);
+		assertEquals(20, config.scale.getTotalNicks());
+		assertTrue(config.scale.isMajor(8));
+		assertTrue("half nick between majors", config.scale.isHalf(2));
+		assertFalse(config.scale.isHalf(3));
+		assertEquals("80", config.scale.getLabel(8));
+		assertEquals(7, config.scale.labelColor);
+
+		GaugeConfig wider = config.buildUpon().setMaxValue(400).build();
+		assertNotSame(config.scale, wider.scale);
+		assertEquals("160", wider.scale.getLabel(8));
+	}
+
+	@Test
+	public void givenScaleSetsTotalNicksAndSurvivesBuildUpon() {
+		GaugeScale scale = new GaugeScale(50, 1);
+		GaugeConfig config = new GaugeConfig.Builder()
+				.setTotalNicks(120)
+				.setScale(scale)
+				.build();
+
+		assertTrue(config.scaleGiven);
+		assertEquals(50, config.totalNicks);
+		assertSame(scale, config.scale);
+		assertSame(scale, config.buildUpon().setNeedleColor(2).build().scale);
+		GaugeConfig otherNicks = config.buildUpon().setTotalNicks(60).build();
+		assertNotSame("other nick count", scale, otherNicks.scale);
+		assertFalse(otherNicks.scaleGiven);
+	}
+}
@@ -0,0 +1,75 @@
+package de.nitri.gauge;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GaugeGeometryTest {
+	private static final float EPSILON = 1e-3f;
+
+	@Test
+	public void nicksAndNeedleShareTheScaleMapping() {
+		GaugeGeometry geometry = new GaugeGeometry();
+		geometry.setScale(0, 1200, 30, 330, 60);
+		geometry.layout(800, 800);
+
+		float[] degrees = geometry.getNickDegrees();
+		assertEquals(61, degrees.length);
+		assertEquals(210f, degrees[0], EPSILON);
+		assertEquals(510f, degrees[60], EPSILON);
+		float previous = Float.NEGATIVE_INFINITY;
+		for (int i = 0; i < degrees.length; i++) {
+			float value = i * geometry.getValuePerNick();
+			assertEquals(degrees[i], geometry.valueToDegrees(value), EPSILON);
+			assertEquals(degrees[i] - 90, geometry.needleDegrees(value), EPSILON);
+			assertTrue(degrees[i] > previous);
+			previous = degrees[i];
+		}
+		assertEquals("clamped past the end", 510f, geometry.valueToDegrees(5000), EPSILON);
+		assertEquals(4f, geometry.valuePerDegree(), EPSILON);
+	}
+
+	@Test
+	public void labelAnchorsLieOnTheLabelCircleInsideTheScale() {
+		GaugeGeometry geometry = new GaugeGeometry();
+		geometry.setScale(0, 1000, 20, 340, 100);
+		geometry.layout(1000, 1000);
+
+		float[] rim = geometry.getRimRect();
+		float[] face = geometry.getFaceRect();
+		float[] scale = geometry.getScaleRect();
+		assertTrue(rim[GaugeGeometry.LEFT] < face[GaugeGeometry.LEFT] && face[GaugeGeometry.LEFT] < scale[GaugeGeometry.LEFT]);
+		assertTrue(rim[GaugeGeometry.BOTTOM] > face[GaugeGeometry.BOTTOM] && face[GaugeGeometry.BOTTOM] > scale[GaugeGeometry.BOTTOM]);
+		assertTrue(geometry.getLabelRadius() < geometry.getCenterX() - scale[GaugeGeometry.LEFT]);
+
+		float[] x = geometry.getNickLabelX();
+		float[] y = geometry.getNickLabelY();
+		for (int i = 0; i < x.length; i++) {
+			double radius = Math.hypot(x[i] - geometry.getCenterX(), y[i] - geometry.getCenterY());
+			assertEquals(geometry.getLabelRadius(), radius, 0.01);
+		}
+		// the scale starts at the bottom, left of center, and ends to the right
+		assertTrue(x[0] < geometry.getCenterX() && y[0] > geometry.getCenterY());
+		assertTrue(x[100] > geometry.getCenterX() && y[100] > geometry.getCenterY());
+
+		float[] values = {0, 500, 1000};
+		float[] degrees = new float[3];
+		float[] valueX = new float[3];
+		float[] valueY = new float[3];
+		geometry.valueAnchors(values, 3, degrees, valueX, valueY);
+		assertEquals(x[50], valueX[1], EPSILON);
+		assertEquals(y[100], valueY[2], EPSILON);
+	}
+
+	@Test
+	public void validateFlagsTheInvalidScales() {
+		GaugeGeometry geometry = new GaugeGeometry();
+		geometry.setScale(0, 1000, 20, 340, 120);
+		assertEquals(0, geometry.validate(10));
+		assertEquals(GaugeGeometry.INVALID_NICKS, geometry.validate(7));
+
+		geometry.setScale(500, 100, 20, 340, 120);
+		assertTrue((geometry.validate(10) & GaugeGeometry.INVALID_MIN_MAX_RATIO) != 0);
+	}
+}
@@ -0,0 +1,65 @@
+package de.nitri.gauge;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GaugeMailboxTest {
+	@Test
+	public void consumerSeesLatestFrameOnce() {
+		GaugeMailbox mailbox = new GaugeMailbox();
+		assertFalse(mailbox.take());
+
+		publish(mailbox, 1);
+		publish(mailbox, 2);
+		assertTrue(mailbox.take());
+		assertEquals(2f, mailbox.front().value, 0f);
+		assertEquals("2", mailbox.front().upperText.toString());
+		assertFalse("taken already", mailbox.take());
+		assertEquals(2f, mailbox.front().value, 0f);
+
+		publish(mailbox, 3);
+		assertTrue(mailbox.hasNews());
+		assertTrue(mailbox.take());
+		assertEquals(3f, mailbox.front().value, 0f);
+	}
+
+	@Test
+	public void framesAreNeverTorn() throws InterruptedException {
+		final GaugeMailbox mailbox = new GaugeMailbox();
+		final int count = 200_000;
+		Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 1; i <= count; i++) {
+					publish(mailbox, i);
+				}
+			}
+		});
+		producer.start();
+
+		float last = 0;
+		while (last < count) {
+			if (mailbox.take()) {
+				GaugeMailbox.Frame frame = mailbox.front();
+				assertTrue("in order", frame.value > last);
+				assertEquals(String.valueOf((int) frame.value), frame.upperText.toString());
+				assertEquals(String.valueOf(-(int) frame.value), frame.lowerText.toString());
+				last = frame.value;
+			}
+		}
+		producer.join();
+	}
+
+	private static void publish(GaugeMailbox mailbox, int value) {
+		GaugeMailbox.Frame frame = mailbox.edit();
+		frame.value = value;
+		frame.upperText.setLength(0);
+		frame.upperText.append(value);
+		frame.lowerText.setLength(0);
+		frame.lowerText.append(-value);
+		mailbox.publish();
+	}
+}
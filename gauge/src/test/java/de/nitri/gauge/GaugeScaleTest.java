@@ -0,0 +1,65 @@
+package de.nitri.gauge;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GaugeScaleTest {
+	@Test
+	public void nickHandlerIsCalledOncePerNick() {
+		final int[] calls = new int[1];
+		IGaugeNick handler = new IGaugeNick() {
+			@Override
+			public boolean shouldDrawMajorNick(int nick, float value) {
+				calls[0]++;
+				return nick % 10 == 0;
+			}
+
+			@Override
+			public int getMajorNicColor(int nick, float value) {
+				return 1;
+			}
+
+			@Override
+			public boolean shouldDrawHalfNick(int nick, float value) {
+				return nick % 5 == 0;
+			}
+
+			@Override
+			public int getHalfNicColor(int nick, float value) {
+				return 2;
+			}
+
+			@Override
+			public int getNicColor(int nick, float value) {
+				return 3;
+			}
+
+			@Override
+			public String getNicLabelString(int nick, float value) {
+				return nick % 10 == 0 ? String.valueOf(Math.round(value)) : null;
+			}
+
+			@Override
+			public int getNicLabelColor() {
+				return 4;
+			}
+		};
+
+		GaugeScale scale = GaugeScale.fromNickHandler(handler, 100, 2.5f);
+
+		assertEquals(101, calls[0]);
+		assertEquals(100, scale.getTotalNicks());
+		assertTrue(scale.isMajor(100));
+		assertFalse(scale.isMajor(95));
+		assertTrue(scale.isHalf(95));
+		assertEquals(1, scale.majorColor[20]);
+		assertEquals(3, scale.nickColor[7]);
+		assertEquals(4, scale.labelColor);
+		assertEquals("50", scale.getLabel(20));
+		assertNull(scale.getLabel(21));
+	}
+}
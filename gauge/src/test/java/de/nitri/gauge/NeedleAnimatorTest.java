@@ -0,0 +1,100 @@
+package de.nitri.gauge;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NeedleAnimatorTest {
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	public void springDoesNotDependOnFrameRate() {
+		NeedleAnimator at60 = spring();
+		NeedleAnimator at144 = spring();
+		at60.setTarget(100, 0);
+		at144.setTarget(100, 0);
+
+		float previous = 0;
+		for (long t = 0; t <= SECOND / 4; t += SECOND / 240) {
+			if (t % (SECOND / 60) < SECOND / 240) {
+				at60.step(t);
+			}
+			if (t % (SECOND / 144) < SECOND / 240) {
+				at144.step(t);
+			}
+			assertTrue("no overshoot", at144.getPosition() <= 100f);
+			assertTrue("monotonic", at144.getPosition() >= previous);
+			previous = at144.getPosition();
+		}
+		at60.step(SECOND / 4);
+		at144.step(SECOND / 4);
+		assertEquals(at60.getPosition(), at144.getPosition(), 0.01f);
+	}
+
+	@Test
+	public void springSettlesAndStopsAskingForFrames() {
+		NeedleAnimator animator = spring();
+		animator.setTarget(100, 0);
+		long t = 0;
+		while (!animator.isSettled() && t < 10 * SECOND) {
+			t += SECOND / 60;
+			animator.step(t);
+		}
+		assertTrue("settled after " + t + " ns", t < 2 * SECOND);
+		assertEquals(100f, animator.getPosition(), 0f);
+		assertEquals(-1, animator.getNextStepDelayNanos(t));
+	}
+
+	@Test
+	public void constantVelocityTakesDistanceOverSpeed() {
+		NeedleAnimator animator = new NeedleAnimator();
+		animator.setVelocity(50);
+		animator.setTarget(100, 0);
+
+		run(animator, 0, SECOND);
+		assertEquals(50f, animator.getPosition(), 0.01f);
+		run(animator, SECOND, SECOND + SECOND / 2);
+		assertEquals(75f, animator.getPosition(), 0.01f);
+		run(animator, SECOND + SECOND / 2, 3 * SECOND);
+		assertEquals(100f, animator.getPosition(), 0f);
+		assertTrue(animator.isSettled());
+	}
+
+	@Test
+	public void peakHoldKeepsPeakThenFalls() {
+		NeedleAnimator animator = new NeedleAnimator();
+		animator.setProfile(NeedleAnimator.Profile.PEAK_HOLD);
+		animator.setVelocity(10);
+		animator.setHoldNanos(SECOND);
+
+		animator.setTarget(80, 0);
+		assertEquals("rises at once", 80f, animator.getPosition(), 0f);
+
+		animator.setTarget(20, SECOND / 2);
+		assertEquals(SECOND / 2, animator.getNextStepDelayNanos(SECOND / 2));
+		run(animator, SECOND / 2, SECOND / 2 + SECOND / 4);
+		assertEquals("held", 80f, animator.getPosition(), 0f);
+
+		run(animator, SECOND / 2 + SECOND / 4, 2 * SECOND);
+		assertEquals("falls after the hold", 70f, animator.getPosition(), 0.01f);
+		assertFalse(animator.isSettled());
+		assertEquals(0, animator.getNextStepDelayNanos(2 * SECOND));
+	}
+
+	private static void run(NeedleAnimator animator, long from, long to) {
+		for (long t = from + SECOND / 60; t < to; t += SECOND / 60) {
+			animator.step(t);
+		}
+		animator.step(to);
+	}
+
+	private static NeedleAnimator spring() {
+		NeedleAnimator animator = new NeedleAnimator();
+		animator.setProfile(NeedleAnimator.Profile.SPRING);
+		animator.setSpringFrequency(20);
+		animator.setTolerance(0.01f);
+		return animator;
+	}
+}
@@ -0,0 +1,65 @@
+package de.nitri.gauge;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SecondaryScaleTest {
+	@Test
+	public void speedTicksOnEnergyDialSitAtExactEnergies() {
+		float halfMass = 40f;
+		float maxEnergy = halfMass * 50f * 50f;
+		// km/h of a kinetic energy in J
+		ValueTransform kph = ValueTransform.sqrt(3.6 / Math.sqrt(halfMass));
+
+		SecondaryScale scale = SecondaryScale.compute(kph, 0, maxEnergy, 20, 10, 5);
+
+		// 0, 10, ..., 180 km/h
+		assertEquals(19, scale.getTickCount());
+		for (int i = 0; i < scale.getTickCount(); i++) {
+			double ms = i * 10 / 3.6;
+			assertEquals(halfMass * ms * ms, scale.getValue(i), maxEnergy * 1e-6);
+			assertEquals(i % 2 == 0, scale.isMajor(i));
+		}
+		assertEquals("40", scale.getLabel(4));
+		assertNull(scale.getLabel(3));
+	}
+
+	@Test
+	public void customTransformFallsBackToBisection() {
+		ValueTransform closedForm = ValueTransform.log(10);
+		ValueTransform custom = new ValueTransform() {
+			@Override
+			public double apply(double value) {
+				return Math.log10(value);
+			}
+		};
+
+		SecondaryScale expected = SecondaryScale.compute(closedForm, 1, 1000, 1, 0.5f, 0);
+		SecondaryScale actual = SecondaryScale.compute(custom, 1, 1000, 1, 0.5f, 0);
+
+		assertEquals(7, actual.getTickCount());
+		for (int i = 0; i < actual.getTickCount(); i++) {
+			assertEquals(expected.getValue(i), actual.getValue(i), 1e-3f);
+		}
+		assertEquals(100f, actual.getValue(4), 1e-3f);
+		assertEquals("2", actual.getLabel(4));
+	}
+
+	@Test
+	public void decreasingTransformAndFractionalSteps() {
+		ValueTransform reverse = ValueTransform.linear(-0.01, 1);
+
+		SecondaryScale scale = SecondaryScale.compute(reverse, 0, 100, 0.25f, 0, 0);
+
+		assertEquals(5, scale.getTickCount());
+		assertEquals(100f, scale.getValue(0), 1e-4f);
+		assertEquals(0f, scale.getValue(4), 1e-4f);
+		assertTrue(scale.isMajor(1));
+		assertEquals(String.format("%.2f", 0.25), scale.getLabel(1));
+		assertNull(scale.setLabel(0, null).getLabel(0));
+	}
+}